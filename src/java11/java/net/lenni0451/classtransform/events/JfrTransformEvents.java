@@ -0,0 +1,180 @@
+package net.lenni0451.classtransform.events;
+
+import jdk.jfr.*;
+
+/**
+ * The {@link TransformEvents} emitting Java Flight Recorder events<br>
+ * Thresholds can be configured per event in the recording settings
+ */
+class JfrTransformEvents extends TransformEvents {
+
+    private static final String CATEGORY = "ClassTransform";
+
+    @Override
+    public Object beginClassTransform() {
+        return begin(new ClassTransformed());
+    }
+
+    @Override
+    public void endClassTransform(final Object event, final String className, final long bytecodeNanos, final long rawNanos, final long transformerNanos, final long writeNanos, final int appliedTransformers, final boolean cached) {
+        ClassTransformed classTransformed = (ClassTransformed) event;
+        classTransformed.end();
+        if (!classTransformed.shouldCommit()) return;
+        classTransformed.className = className;
+        classTransformed.bytecodeDuration = bytecodeNanos;
+        classTransformed.rawDuration = rawNanos;
+        classTransformed.transformerDuration = transformerNanos;
+        classTransformed.writeDuration = writeNanos;
+        classTransformed.appliedTransformers = appliedTransformers;
+        classTransformed.cached = cached;
+        classTransformed.commit();
+    }
+
+    @Override
+    public Object beginTransformerApply() {
+        return begin(new TransformerApplied());
+    }
+
+    @Override
+    public void endTransformerApply(final Object event, final String transformer, final String className) {
+        TransformerApplied transformerApplied = (TransformerApplied) event;
+        transformerApplied.end();
+        if (!transformerApplied.shouldCommit()) return;
+        transformerApplied.transformer = transformer;
+        transformerApplied.className = className;
+        transformerApplied.commit();
+    }
+
+    @Override
+    public Object beginHierarchyResolve() {
+        return begin(new HierarchyResolved());
+    }
+
+    @Override
+    public void endHierarchyResolve(final Object event, final String className, final int supers) {
+        HierarchyResolved hierarchyResolved = (HierarchyResolved) event;
+        hierarchyResolved.end();
+        if (!hierarchyResolved.shouldCommit()) return;
+        hierarchyResolved.className = className;
+        hierarchyResolved.supers = supers;
+        hierarchyResolved.commit();
+    }
+
+    @Override
+    public Object beginMappingLoad() {
+        return begin(new MappingsLoaded());
+    }
+
+    @Override
+    public void endMappingLoad(final Object event, final String mapper, final boolean cached) {
+        MappingsLoaded mappingsLoaded = (MappingsLoaded) event;
+        mappingsLoaded.end();
+        if (!mappingsLoaded.shouldCommit()) return;
+        mappingsLoaded.mapper = mapper;
+        mappingsLoaded.cached = cached;
+        mappingsLoaded.commit();
+    }
+
+    @Override
+    public Object beginClassDefine() {
+        return begin(new ClassDefined());
+    }
+
+    @Override
+    public void endClassDefine(final Object event, final String className, final int size) {
+        ClassDefined classDefined = (ClassDefined) event;
+        classDefined.end();
+        if (!classDefined.shouldCommit()) return;
+        classDefined.className = className;
+        classDefined.size = size;
+        classDefined.commit();
+    }
+
+    private static Event begin(final Event event) {
+        if (!event.isEnabled()) return null;
+        event.begin();
+        return event;
+    }
+
+
+    @Name("net.lenni0451.classtransform.ClassTransformed")
+    @Label("Class Transformed")
+    @Description("A class has been transformed by a TransformerManager")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class ClassTransformed extends Event {
+        @Label("Class Name")
+        String className;
+        @Label("Bytecode Transformers")
+        @Timespan
+        long bytecodeDuration;
+        @Label("Parsing and Raw Transformers")
+        @Timespan
+        long rawDuration;
+        @Label("Transformers")
+        @Timespan
+        long transformerDuration;
+        @Label("Writing")
+        @Timespan
+        long writeDuration;
+        @Label("Applied Transformers")
+        int appliedTransformers;
+        @Label("Cached")
+        boolean cached;
+    }
+
+    @Name("net.lenni0451.classtransform.TransformerApplied")
+    @Label("Transformer Applied")
+    @Description("A transformer has been applied to a class")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class TransformerApplied extends Event {
+        @Label("Transformer")
+        String transformer;
+        @Label("Class Name")
+        String className;
+    }
+
+    @Name("net.lenni0451.classtransform.HierarchyResolved")
+    @Label("Hierarchy Resolved")
+    @Description("The super classes of a class have been resolved")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class HierarchyResolved extends Event {
+        @Label("Class Name")
+        String className;
+        @Label("Super Classes")
+        int supers;
+    }
+
+    @Name("net.lenni0451.classtransform.MappingsLoaded")
+    @Label("Mappings Loaded")
+    @Description("The mappings of a mapper have been loaded")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class MappingsLoaded extends Event {
+        @Label("Mapper")
+        String mapper;
+        @Label("Cached")
+        boolean cached;
+    }
+
+    @Name("net.lenni0451.classtransform.ClassDefined")
+    @Label("Class Defined")
+    @Description("A transformed class has been defined by an InjectionClassLoader")
+    @Category(CATEGORY)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    static class ClassDefined extends Event {
+        @Label("Class Name")
+        String className;
+        @Label("Size")
+        @DataAmount
+        int size;
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.mappings.impl.TinyV2Mapper;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappingParserBenchmark {
+
+    @Param({"20000"})
+    private int classes;
+    private File mappingFile;
+
+    @Setup
+    public void setup() throws IOException {
+        this.mappingFile = File.createTempFile("mappings", ".tiny");
+        this.mappingFile.deleteOnExit();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.mappingFile), StandardCharsets.UTF_8))) {
+            writer.write("tiny\t2\t0\tofficial\tintermediary\tnamed\n");
+            for (int i = 0; i < this.classes; i++) {
+                writer.write("c\tc" + i + "\tclass_" + i + "\tnet/test/Class" + i + "\n");
+                writer.write("\tc\tThe class number " + i + "\n");
+                for (int j = 0; j < 10; j++) {
+                    writer.write("\tm\t(Lc" + i + ";I)V\tm" + j + "\tmethod_" + i + "_" + j + "\tmethod" + j + "\n");
+                    writer.write("\t\tp\t1\t\t\tparam\n");
+                    writer.write("\tf\tLc" + ((i + 1) % this.classes) + ";\tf" + j + "\tfield_" + i + "_" + j + "\tfield" + j + "\n");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public MapRemapper streaming() {
+        TinyV2Mapper mapper = new TinyV2Mapper(MapperConfig.create(), this.mappingFile, TinyV2Mapper.Type.INTERMEDIARY_TO_CLEAN);
+        mapper.load();
+        return mapper.getRemapper();
+    }
+
+    @Benchmark
+    public MapRemapper legacy() {
+        LegacyTinyV2Mapper mapper = new LegacyTinyV2Mapper(MapperConfig.create(), this.mappingFile, TinyV2Mapper.Type.INTERMEDIARY_TO_CLEAN);
+        mapper.load();
+        return mapper.getRemapper();
+    }
+
+
+    /**
+     * The regex based parser which reads all lines into memory and parses them twice
+     */
+    private static class LegacyTinyV2Mapper extends AMapper {
+
+        private static final String HEADER_LINE = "tiny\\t(2)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
+        private static final String CLASS_LINE = "^c\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
+        private static final String METHOD_LINE = "^\\tm\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
+        private static final String FIELD_LINE = "^\\tf\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
+        private static final String PARAMETER_LINE = "^\\t{2}p\\t\\d+\\t+[^\\t]+$";
+        private static final String COMMENT_LINE = "^\\t+c.*$";
+
+        private final File mappingFile;
+        private final TinyV2Mapper.Type type;
+
+        private LegacyTinyV2Mapper(final MapperConfig config, final File mappingFile, final TinyV2Mapper.Type type) {
+            super(config);
+            this.mappingFile = mappingFile;
+            this.type = type;
+        }
+
+        @Override
+        protected void init() throws Throwable {
+            MapRemapper descriptorRemapper = new MapRemapper();
+            List<String> lines = new ArrayList<>();
+            try (Scanner s = new Scanner(this.mappingFile)) {
+                while (s.hasNextLine()) lines.add(s.nextLine());
+            }
+            for (String line : lines) {
+                if (this.skipLine(line)) continue;
+                if (line.matches(CLASS_LINE)) {
+                    Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
+                    if (m.find()) descriptorRemapper.addClassMapping(m.group(1), m.group(1 + this.type.getFromIndex()));
+                }
+            }
+
+            String currentClass = null;
+            for (String line : lines) {
+                if (this.skipLine(line)) continue;
+
+                if (line.matches(CLASS_LINE)) {
+                    Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
+                    if (m.find()) {
+                        currentClass = m.group(1 + this.type.getFromIndex());
+                        String newName = m.group(1 + this.type.getToIndex());
+                        if (!currentClass.equals(newName)) this.remapper.addClassMapping(currentClass, newName);
+                    }
+                } else if (line.matches(METHOD_LINE)) {
+                    Matcher m = Pattern.compile(METHOD_LINE).matcher(line);
+                    if (m.find()) {
+                        String name = m.group(2 + this.type.getFromIndex());
+                        String newName = m.group(2 + this.type.getToIndex());
+                        if (!name.equals(newName)) this.remapper.addMethodMapping(currentClass, name, descriptorRemapper.mapMethodDesc(m.group(1)), newName);
+                    }
+                } else if (line.matches(FIELD_LINE)) {
+                    Matcher m = Pattern.compile(FIELD_LINE).matcher(line);
+                    if (m.find()) {
+                        String name = m.group(2 + this.type.getFromIndex());
+                        String newName = m.group(2 + this.type.getToIndex());
+                        if (!name.equals(newName)) this.remapper.addFieldMapping(currentClass, name, descriptorRemapper.mapDesc(m.group(1)), newName);
+                    }
+                } else {
+                    throw new IllegalStateException("Unknown line: " + line);
+                }
+            }
+        }
+
+        private boolean skipLine(final String line) {
+            return line.trim().isEmpty() || line.matches(HEADER_LINE) || line.matches(COMMENT_LINE) || line.matches(PARAMETER_LINE);
+        }
+
+    }
+
+}
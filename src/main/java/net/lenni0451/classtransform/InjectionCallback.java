@@ -1,12 +1,163 @@
 package net.lenni0451.classtransform;
 
+import org.objectweb.asm.Type;
+
 public class InjectionCallback {
 
-    private final boolean cancellable;
+    /**
+     * A shared callback for non-cancellable injections without a return value<br>
+     * It can neither be cancelled nor can a return value be set, so it is safe to use it for all injections at the same time
+     */
+    public static final InjectionCallback NON_CANCELLABLE = new InjectionCallback(false);
+    private static final String[] PRIMITIVE_NAMES = {"void", "boolean", "char", "byte", "short", "int", "float", "long", "double"};
+    private static final Class<?>[] PRIMITIVE_WRAPPERS = {Void.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Float.class, Long.class, Double.class};
+    private static final ThreadLocal<InjectionCallback> REUSABLE = ThreadLocal.withInitial(() -> new InjectionCallback(false));
+
+    /**
+     * Get the reusable callback of the current thread<br>
+     * If the callback is still in use (e.g. the injection is re-entered by the handler) a new callback is created instead<br>
+     * The callback has to be released using {@link #release()} after the injection has read the result
+     *
+     * @param cancellable If the callback should be cancellable
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable) {
+        InjectionCallback callback = REUSABLE.get();
+        if (callback.inUse) return new InjectionCallback(cancellable);
+        callback.reset(cancellable);
+        return callback;
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final Object returnValue) {
+        InjectionCallback callback = REUSABLE.get();
+        if (callback.inUse) return new InjectionCallback(cancellable, returnValue);
+        callback.reset(cancellable);
+        callback.returnValue = returnValue;
+        callback.returnValueSet = true;
+        return callback;
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final boolean returnValue) {
+        return acquire(cancellable, Type.BOOLEAN, returnValue ? 1 : 0);
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final byte returnValue) {
+        return acquire(cancellable, Type.BYTE, returnValue);
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final char returnValue) {
+        return acquire(cancellable, Type.CHAR, returnValue);
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final short returnValue) {
+        return acquire(cancellable, Type.SHORT, returnValue);
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final int returnValue) {
+        return acquire(cancellable, Type.INT, returnValue);
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final long returnValue) {
+        return acquire(cancellable, Type.LONG, returnValue);
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final float returnValue) {
+        return acquire(cancellable, Type.FLOAT, Double.doubleToRawLongBits(returnValue));
+    }
+
+    /**
+     * Get the reusable callback of the current thread with the given primitive return value<br>
+     * See {@link #acquire(boolean)} for more information
+     *
+     * @param cancellable If the callback should be cancellable
+     * @param returnValue The current return value
+     * @return The reset callback
+     */
+    public static InjectionCallback acquire(final boolean cancellable, final double returnValue) {
+        return acquire(cancellable, Type.DOUBLE, Double.doubleToRawLongBits(returnValue));
+    }
+
+    private static InjectionCallback acquire(final boolean cancellable, final int sort, final long returnValue) {
+        InjectionCallback callback = REUSABLE.get();
+        if (callback.inUse) callback = new InjectionCallback(cancellable);
+        else callback.reset(cancellable);
+        callback.setPrimitive(sort, returnValue);
+        return callback;
+    }
+
+
+    private boolean cancellable;
 
     private boolean cancelled;
     private Object returnValue;
+    private int primitiveSort;
+    private long primitiveValue;
     private boolean returnValueSet;
+    private boolean inUse;
 
     public InjectionCallback(final boolean cancellable) {
         this.cancellable = cancellable;
@@ -18,6 +169,71 @@ public class InjectionCallback {
         this.returnValueSet = true;
     }
 
+    public InjectionCallback(final boolean cancellable, final boolean returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.BOOLEAN, returnValue ? 1 : 0);
+    }
+
+    public InjectionCallback(final boolean cancellable, final byte returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.BYTE, returnValue);
+    }
+
+    public InjectionCallback(final boolean cancellable, final char returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.CHAR, returnValue);
+    }
+
+    public InjectionCallback(final boolean cancellable, final short returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.SHORT, returnValue);
+    }
+
+    public InjectionCallback(final boolean cancellable, final int returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.INT, returnValue);
+    }
+
+    public InjectionCallback(final boolean cancellable, final long returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.LONG, returnValue);
+    }
+
+    public InjectionCallback(final boolean cancellable, final float returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.FLOAT, Double.doubleToRawLongBits(returnValue));
+    }
+
+    public InjectionCallback(final boolean cancellable, final double returnValue) {
+        this(cancellable);
+        this.setPrimitive(Type.DOUBLE, Double.doubleToRawLongBits(returnValue));
+    }
+
+    private void reset(final boolean cancellable) {
+        this.cancellable = cancellable;
+        this.cancelled = false;
+        this.returnValue = null;
+        this.primitiveSort = Type.VOID;
+        this.returnValueSet = false;
+        this.inUse = true;
+    }
+
+    private void setPrimitive(final int sort, final long primitiveValue) {
+        this.returnValue = null;
+        this.primitiveSort = sort;
+        this.primitiveValue = primitiveValue;
+        this.returnValueSet = true;
+    }
+
+    /**
+     * Release the callback after it has been acquired using {@link #acquire(boolean)}<br>
+     * The callback must not be used anymore after it has been released
+     */
+    public void release() {
+        this.inUse = false;
+        this.returnValue = null;
+    }
+
     public boolean isCancelled() {
         return this.cancelled;
     }
@@ -33,7 +249,128 @@ public class InjectionCallback {
 
     public Object getReturnValue() {
         if (!this.returnValueSet) throw new IllegalStateException("Return value not set");
-        return returnValue;
+        switch (this.primitiveSort) {
+            case Type.BOOLEAN:
+                return this.primitiveValue != 0;
+            case Type.BYTE:
+                return (byte) this.primitiveValue;
+            case Type.CHAR:
+                return (char) this.primitiveValue;
+            case Type.SHORT:
+                return (short) this.primitiveValue;
+            case Type.INT:
+                return (int) this.primitiveValue;
+            case Type.LONG:
+                return this.primitiveValue;
+            case Type.FLOAT:
+                return (float) Double.longBitsToDouble(this.primitiveValue);
+            case Type.DOUBLE:
+                return Double.longBitsToDouble(this.primitiveValue);
+            default:
+                return this.returnValue;
+        }
+    }
+
+    /**
+     * Get the return value as a boolean without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a boolean
+     */
+    public boolean getReturnValueBoolean() {
+        return this.getPrimitive(Type.BOOLEAN) != 0;
+    }
+
+    /**
+     * Get the return value as a byte without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a byte
+     */
+    public byte getReturnValueByte() {
+        return (byte) this.getPrimitive(Type.BYTE);
+    }
+
+    /**
+     * Get the return value as a char without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a char
+     */
+    public char getReturnValueChar() {
+        return (char) this.getPrimitive(Type.CHAR);
+    }
+
+    /**
+     * Get the return value as a short without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a short
+     */
+    public short getReturnValueShort() {
+        return (short) this.getPrimitive(Type.SHORT);
+    }
+
+    /**
+     * Get the return value as an int without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not an int
+     */
+    public int getReturnValueInt() {
+        return (int) this.getPrimitive(Type.INT);
+    }
+
+    /**
+     * Get the return value as a long without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a long
+     */
+    public long getReturnValueLong() {
+        return this.getPrimitive(Type.LONG);
+    }
+
+    /**
+     * Get the return value as a float without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a float
+     */
+    public float getReturnValueFloat() {
+        return (float) Double.longBitsToDouble(this.getPrimitive(Type.FLOAT));
+    }
+
+    /**
+     * Get the return value as a double without boxing it
+     *
+     * @return The return value
+     * @throws ClassCastException If the return value is not a double
+     */
+    public double getReturnValueDouble() {
+        return Double.longBitsToDouble(this.getPrimitive(Type.DOUBLE));
+    }
+
+    private long getPrimitive(final int sort) {
+        if (!this.returnValueSet) throw new IllegalStateException("Return value not set");
+        if (this.primitiveSort == sort) return this.primitiveValue;
+        if (this.primitiveSort != Type.VOID) throw new ClassCastException("Cannot get " + PRIMITIVE_NAMES[this.primitiveSort] + " return value as " + PRIMITIVE_NAMES[sort]);
+
+        //Boxed return values have to be of the exact wrapper type like when they are unboxed by a cast
+        Object value = this.returnValue;
+        if (value == null) throw new NullPointerException("Cannot get null return value as " + PRIMITIVE_NAMES[sort]);
+        if (!PRIMITIVE_WRAPPERS[sort].isInstance(value)) throw new ClassCastException("Cannot get " + value.getClass().getName() + " return value as " + PRIMITIVE_NAMES[sort]);
+        switch (sort) {
+            case Type.BOOLEAN:
+                return (Boolean) value ? 1 : 0;
+            case Type.CHAR:
+                return (Character) value;
+            case Type.FLOAT:
+            case Type.DOUBLE:
+                return Double.doubleToRawLongBits(((Number) value).doubleValue());
+            default:
+                return ((Number) value).longValue();
+        }
     }
 
     public <T> T castReturnValue() {
@@ -41,9 +378,50 @@ public class InjectionCallback {
     }
 
     public void setReturnValue(final Object returnValue) {
-        this.returnValue = returnValue;
         this.setCancelled(true);
+        this.returnValue = returnValue;
+        this.primitiveSort = Type.VOID;
         this.returnValueSet = true;
     }
 
+    public void setReturnValue(final boolean returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.BOOLEAN, returnValue ? 1 : 0);
+    }
+
+    public void setReturnValue(final byte returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.BYTE, returnValue);
+    }
+
+    public void setReturnValue(final char returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.CHAR, returnValue);
+    }
+
+    public void setReturnValue(final short returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.SHORT, returnValue);
+    }
+
+    public void setReturnValue(final int returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.INT, returnValue);
+    }
+
+    public void setReturnValue(final long returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.LONG, returnValue);
+    }
+
+    public void setReturnValue(final float returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.FLOAT, Double.doubleToRawLongBits(returnValue));
+    }
+
+    public void setReturnValue(final double returnValue) {
+        this.setCancelled(true);
+        this.setPrimitive(Type.DOUBLE, Double.doubleToRawLongBits(returnValue));
+    }
+
 }
@@ -0,0 +1,215 @@
+package net.lenni0451.classtransform;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Invocation counters for injection sites<br>
+ * If enabled using {@link TransformerManager#setInjectionCounters(boolean)} every injection site increments its counter before calling the handler<br>
+ * The ids are derived from the description of the site, so the transformed bytecode does not depend on the order classes are transformed in<br>
+ * The sites are registered when the class is transformed, so this class has to be shared between the {@link TransformerManager} and the transformed classes
+ */
+public class InjectionCounters {
+
+    private static final Object LOCK = new Object();
+    private static final Map<String, Integer> IDS = new HashMap<>();
+    private static final List<Site> REGISTERED = new ArrayList<>();
+    private static volatile Site[] sites = new Site[16];
+
+    /**
+     * Register an injection site<br>
+     * Registering the same site again (e.g. after retransforming the class) returns the same id<br>
+     * The id is a hash of the site and only depends on the registration order if two sites have the same hash
+     *
+     * @param transformer     The internal name of the transformer class
+     * @param handler         The original name and descriptor of the handler method
+     * @param targetClass     The internal name of the transformed class
+     * @param targetMethod    The name and descriptor of the target method
+     * @param injectionTarget The injection target (e.g. HEAD, INVOKE Ljava/lang/Object;hashCode()I)
+     * @param index           The index of the site if the target matched multiple instructions
+     * @return The id of the site
+     */
+    public static int register(final String transformer, final String handler, final String targetClass, final String targetMethod, final String injectionTarget, final int index) {
+        String key = transformer + " " + handler + " " + targetClass + " " + targetMethod + " " + injectionTarget + " " + index;
+        synchronized (LOCK) {
+            Integer registeredId = IDS.get(key);
+            if (registeredId != null) return registeredId;
+
+            CRC32 crc = new CRC32();
+            crc.update(key.getBytes(StandardCharsets.UTF_8));
+            int id = (int) crc.getValue();
+            while (find(sites, id) != null) id++;
+
+            Site site = new Site(id, transformer, handler, targetClass, targetMethod, injectionTarget, index);
+            Site[] sites = InjectionCounters.sites;
+            if ((REGISTERED.size() + 1) * 2 > sites.length) {
+                //Keep the table at most half full so lookups stay short
+                Site[] resized = new Site[sites.length * 2];
+                for (Site registered : REGISTERED) insert(resized, registered);
+                sites = resized;
+            } else {
+                sites = sites.clone();
+            }
+            insert(sites, site);
+            InjectionCounters.sites = sites;
+            REGISTERED.add(site);
+            IDS.put(key, id);
+            return id;
+        }
+    }
+
+    /**
+     * Increment the counter of a site<br>
+     * This is called by the injected code
+     *
+     * @param id The id of the site
+     */
+    public static void increment(final int id) {
+        getSite(id).counter.increment();
+    }
+
+    /**
+     * Get the current count of a site
+     *
+     * @param id The id of the site
+     * @return The amount of invocations
+     */
+    public static long get(final int id) {
+        return getSite(id).counter.sum();
+    }
+
+    /**
+     * Get the information about a site
+     *
+     * @param id The id of the site
+     * @return The site
+     */
+    public static Site getSite(final int id) {
+        Site site = find(sites, id);
+        if (site == null) throw new IllegalArgumentException("Unknown site id " + id);
+        return site;
+    }
+
+    /**
+     * Get the current counts of all registered sites
+     *
+     * @return A map of all sites and their invocation counts in the order they were registered
+     */
+    public static Map<Site, Long> getCounts() {
+        Map<Site, Long> counts = new LinkedHashMap<>();
+        synchronized (LOCK) {
+            for (Site site : REGISTERED) counts.put(site, site.counter.sum());
+        }
+        return counts;
+    }
+
+    /**
+     * Reset the counters of all sites to zero<br>
+     * The sites stay registered
+     */
+    public static void reset() {
+        for (Site site : sites) {
+            if (site != null) site.counter.reset();
+        }
+    }
+
+    private static Site find(final Site[] sites, final int id) {
+        int mask = sites.length - 1;
+        for (int i = mix(id) & mask; ; i = (i + 1) & mask) {
+            Site site = sites[i];
+            if (site == null || site.id == id) return site;
+        }
+    }
+
+    private static void insert(final Site[] sites, final Site site) {
+        int mask = sites.length - 1;
+        int i = mix(site.id) & mask;
+        while (sites[i] != null) i = (i + 1) & mask;
+        sites[i] = site;
+    }
+
+    private static int mix(final int id) {
+        return id ^ (id >>> 16);
+    }
+
+
+    public static class Site {
+
+        private final int id;
+        private final String transformer;
+        private final String handler;
+        private final String targetClass;
+        private final String targetMethod;
+        private final String injectionTarget;
+        private final int index;
+        private final LongAdder counter = new LongAdder();
+
+        private Site(final int id, final String transformer, final String handler, final String targetClass, final String targetMethod, final String injectionTarget, final int index) {
+            this.id = id;
+            this.transformer = transformer;
+            this.handler = handler;
+            this.targetClass = targetClass;
+            this.targetMethod = targetMethod;
+            this.injectionTarget = injectionTarget;
+            this.index = index;
+        }
+
+        /**
+         * @return The id of the site
+         */
+        public int getId() {
+            return this.id;
+        }
+
+        /**
+         * @return The internal name of the transformer class
+         */
+        public String getTransformer() {
+            return this.transformer;
+        }
+
+        /**
+         * @return The original name and descriptor of the handler method
+         */
+        public String getHandler() {
+            return this.handler;
+        }
+
+        /**
+         * @return The internal name of the transformed class
+         */
+        public String getTargetClass() {
+            return this.targetClass;
+        }
+
+        /**
+         * @return The name and descriptor of the target method
+         */
+        public String getTargetMethod() {
+            return this.targetMethod;
+        }
+
+        /**
+         * @return The injection target (e.g. HEAD, INVOKE Ljava/lang/Object;hashCode()I)
+         */
+        public String getInjectionTarget() {
+            return this.injectionTarget;
+        }
+
+        /**
+         * @return The index of the site if the target matched multiple instructions
+         */
+        public int getIndex() {
+            return this.index;
+        }
+
+        @Override
+        public String toString() {
+            return this.transformer + "#" + this.handler + " -> " + this.targetClass + "." + this.targetMethod + " @ " + this.injectionTarget + " [" + this.index + "]";
+        }
+
+    }
+
+}
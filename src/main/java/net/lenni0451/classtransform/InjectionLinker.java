@@ -0,0 +1,174 @@
+package net.lenni0451.classtransform;
+
+import java.lang.invoke.*;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/**
+ * The bootstrap and relinking API for handlers which are called using invokedynamic<br>
+ * If enabled using {@link TransformerManager#setDynamicHandlers(boolean)} calls to handlers are linked to a {@link MutableCallSite}<br>
+ * Handlers are identified by the key {@code transformer#name(desc)} using the internal name of the transformer and the original name of the handler
+ */
+public class InjectionLinker {
+
+    private static final MethodHandle NOOP;
+    private static final Object LOCK = new Object();
+    private static final Map<String, List<WeakReference<Link>>> LINKS = new HashMap<>();
+    private static final Map<String, Object> STATES = new HashMap<>();
+    private static final Map<String, Set<MethodType>> TYPES = new HashMap<>();
+    private static final Object DISABLED = new Object();
+
+    static {
+        try {
+            NOOP = MethodHandles.lookup().findStatic(InjectionLinker.class, "noop", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The bootstrap method for injected handler calls
+     *
+     * @param lookup  The lookup of the transformed class
+     * @param name    The name of the handler
+     * @param type    The type of the call site
+     * @param key     The key of the handler
+     * @param handler The handle of the handler
+     * @return The linked call site
+     * @throws IllegalArgumentException If the transformed class has no access to the handler
+     */
+    public static CallSite bootstrap(final MethodHandles.Lookup lookup, final String name, final MethodType type, final String key, final MethodHandle handler) {
+        lookup.revealDirect(handler); //Check the access of the transformed class
+        return link(key, handler.asType(type), null);
+    }
+
+    /**
+     * The bootstrap method for redirect handler calls<br>
+     * The fallback is used when the handler is disabled and calls the original redirected member
+     *
+     * @param lookup   The lookup of the transformed class
+     * @param name     The name of the handler
+     * @param type     The type of the call site
+     * @param key      The key of the handler
+     * @param handler  The handle of the handler
+     * @param fallback The handle of the original member
+     * @return The linked call site
+     * @throws IllegalArgumentException If the transformed class has no access to the handler or the original member
+     */
+    public static CallSite bootstrap(final MethodHandles.Lookup lookup, final String name, final MethodType type, final String key, final MethodHandle handler, MethodHandle fallback) {
+        lookup.revealDirect(handler);
+        lookup.revealDirect(fallback);
+        int extraArguments = type.parameterCount() - fallback.type().parameterCount();
+        //Non-static handlers get the instance of the transformed class as the first argument
+        if (extraArguments > 0) fallback = MethodHandles.dropArguments(fallback, 0, type.parameterList().subList(0, extraArguments));
+        return link(key, handler.asType(type), fallback.asType(type));
+    }
+
+    /**
+     * @return The keys of all handlers which have been linked
+     */
+    public static Set<String> getKeys() {
+        synchronized (LOCK) {
+            return new HashSet<>(LINKS.keySet());
+        }
+    }
+
+    /**
+     * Call the original handler again
+     *
+     * @param key The key of the handler
+     */
+    public static void enable(final String key) {
+        relink(key, null);
+    }
+
+    /**
+     * Stop calling the handler<br>
+     * Injections do nothing and redirects call the original member instead<br>
+     * Sites which are linked later and can't fall back to the original member keep calling the handler
+     *
+     * @param key The key of the handler
+     * @throws IllegalStateException If the handler is a redirect without a known original member
+     */
+    public static void disable(final String key) {
+        relink(key, DISABLED);
+    }
+
+    /**
+     * Call another method handle instead of the handler<br>
+     * The handle is adapted to the type of the call sites using {@link MethodHandle#asType(MethodType)}
+     *
+     * @param key     The key of the handler
+     * @param handler The new handler
+     * @throws WrongMethodTypeException If the handle can't be adapted to the type of a call site which has been linked before
+     */
+    public static void swap(final String key, final MethodHandle handler) {
+        synchronized (LOCK) {
+            //Sites which are linked later may not be loaded yet, so all types which have been linked are checked
+            for (MethodType type : TYPES.getOrDefault(key, Collections.emptySet())) handler.asType(type);
+            relink(key, handler);
+        }
+    }
+
+    private static CallSite link(final String key, final MethodHandle handler, final MethodHandle fallback) {
+        synchronized (LOCK) {
+            Link link = new Link(handler, fallback);
+            Object state = STATES.get(key);
+            if (state != null) {
+                try {
+                    link.setTarget(link.getTarget(state));
+                } catch (IllegalStateException | WrongMethodTypeException e) {
+                    //The state does not fit this site, so the original handler is called instead
+                }
+            }
+            LINKS.computeIfAbsent(key, k -> new ArrayList<>()).add(new WeakReference<>(link));
+            TYPES.computeIfAbsent(key, k -> new HashSet<>()).add(link.type());
+            return link;
+        }
+    }
+
+    private static void relink(final String key, final Object state) {
+        synchronized (LOCK) {
+            List<Link> links = new ArrayList<>();
+            List<MethodHandle> targets = new ArrayList<>();
+            List<WeakReference<Link>> references = LINKS.getOrDefault(key, Collections.emptyList());
+            references.removeIf(reference -> reference.get() == null);
+            for (WeakReference<Link> reference : references) {
+                Link link = reference.get();
+                if (link == null) continue;
+                links.add(link);
+                targets.add(link.getTarget(state)); //Calculate all targets first to not partially relink the handler
+            }
+            for (int i = 0; i < links.size(); i++) links.get(i).setTarget(targets.get(i));
+            MutableCallSite.syncAll(links.toArray(new MutableCallSite[0]));
+            if (state == null) STATES.remove(key);
+            else STATES.put(key, state);
+        }
+    }
+
+    private static void noop() {
+    }
+
+
+    private static class Link extends MutableCallSite {
+
+        private final MethodHandle handler;
+        private final MethodHandle fallback;
+
+        private Link(final MethodHandle handler, final MethodHandle fallback) {
+            super(handler);
+            this.handler = handler;
+            this.fallback = fallback;
+        }
+
+        private MethodHandle getTarget(final Object state) {
+            if (state == null) return this.handler;
+            if (state instanceof MethodHandle) return ((MethodHandle) state).asType(this.type());
+            if (this.fallback != null) return this.fallback;
+            if (this.type().returnType() == void.class) return MethodHandles.dropArguments(NOOP, 0, this.type().parameterList());
+            throw new IllegalStateException("Handler has no original behaviour to fall back to");
+        }
+
+    }
+
+}
@@ -0,0 +1,142 @@
+package net.lenni0451.classtransform;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A file containing prepared transformers which can be loaded without mapping and validating them again<br>
+ * The file ends with a CRC32 of its content and is ignored if it is corrupted, has another version or was exported with another id<br>
+ * Use {@link TransformerManager#exportBundle(File, String)} and {@link TransformerManager#addTransformerBundle(File, String)} to create and load bundles
+ */
+public class TransformerBundle {
+
+    private static final int MAGIC = 0x43545442; //CTTB
+    private static final int VERSION = 1;
+
+    /**
+     * Write a bundle<br>
+     * The file is written to a temporary file first and then moved to the bundle file
+     *
+     * @param file    The bundle file
+     * @param id      The id of the transformer set and mappings
+     * @param entries The transformers to write
+     * @throws IOException If the bundle could not be written
+     */
+    public static void write(final File file, final String id, final List<Entry> entries) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(id);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            out.writeUTF(entry.transformer);
+            out.writeUTF(entry.target);
+            out.writeBoolean(entry.mapped);
+            out.writeInt(entry.bytecode.length);
+            out.write(entry.bytecode);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(baos.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) throw new IOException("Unable to create directory " + directory);
+        File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+        try {
+            Files.write(tempFile.toPath(), baos.toByteArray());
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Read a bundle
+     *
+     * @param file The bundle file
+     * @param id   The id the bundle has to be exported with
+     * @return The transformers or null if the file does not exist or is not a valid bundle for the id
+     * @throws IOException If the file could not be read
+     */
+    public static List<Entry> read(final File file, final String id) throws IOException {
+        if (!file.isFile()) return null;
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < 12) return null;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt()) return null;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION || !id.equals(in.readUTF())) return null;
+        int count = in.readInt();
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String transformer = in.readUTF();
+            String target = in.readUTF();
+            boolean mapped = in.readBoolean();
+            byte[] bytecode = new byte[in.readInt()];
+            in.readFully(bytecode);
+            entries.add(new Entry(transformer, target, mapped, bytecode));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+
+    public static class Entry {
+
+        private final String transformer;
+        private final String target;
+        private final boolean mapped;
+        private final byte[] bytecode;
+
+        /**
+         * @param transformer The name of the transformer class
+         * @param target      The name of the target class after mapping
+         * @param mapped      If the transformer has already been mapped for the target class
+         * @param bytecode    The bytecode of the transformer
+         */
+        public Entry(final String transformer, final String target, final boolean mapped, final byte[] bytecode) {
+            this.transformer = transformer;
+            this.target = target;
+            this.mapped = mapped;
+            this.bytecode = bytecode;
+        }
+
+        /**
+         * @return The name of the transformer class
+         */
+        public String getTransformer() {
+            return this.transformer;
+        }
+
+        /**
+         * @return The name of the target class after mapping
+         */
+        public String getTarget() {
+            return this.target;
+        }
+
+        /**
+         * @return If the transformer has already been mapped for the target class
+         */
+        public boolean isMapped() {
+            return this.mapped;
+        }
+
+        /**
+         * @return The bytecode of the transformer
+         */
+        public byte[] getBytecode() {
+            return this.bytecode;
+        }
+
+    }
+
+}
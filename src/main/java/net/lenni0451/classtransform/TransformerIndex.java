@@ -0,0 +1,72 @@
+package net.lenni0451.classtransform;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * The index of all transformer classes of a project generated by the ClassTransform annotation processor<br>
+ * Every line contains the name of a transformer class followed by the names of its target classes separated by tabs<br>
+ * Loading the index using {@link TransformerManager#addTransformerIndex(ClassLoader)} registers the transformers without reading their bytecode
+ */
+public class TransformerIndex {
+
+    /**
+     * The path of the index resource
+     */
+    public static final String RESOURCE = "META-INF/classtransform/transformers.idx";
+    /**
+     * The header of the index resource
+     */
+    public static final String HEADER = "#ClassTransform index 1";
+
+    /**
+     * Read all index resources of a class loader
+     *
+     * @param classLoader The class loader
+     * @return The index
+     * @throws IOException If an index resource could not be read or has an unsupported format
+     */
+    public static TransformerIndex load(final ClassLoader classLoader) throws IOException {
+        TransformerIndex index = new TransformerIndex();
+        Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+        while (resources.hasMoreElements()) {
+            try (InputStream is = resources.nextElement().openStream()) {
+                index.read(is);
+            }
+        }
+        return index;
+    }
+
+
+    private final Map<String, List<String>> transformers = new LinkedHashMap<>();
+
+    /**
+     * Read an index resource and add its transformers to this index
+     *
+     * @param is The input stream of the resource
+     * @throws IOException If the resource could not be read or has an unsupported format
+     */
+    public void read(final InputStream is) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (!HEADER.equals(line)) throw new IOException("Unsupported transformer index header: " + line);
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) continue;
+            String[] parts = line.split("\t");
+            List<String> targets = this.transformers.computeIfAbsent(parts[0], t -> new ArrayList<>());
+            for (int i = 1; i < parts.length; i++) {
+                if (!targets.contains(parts[i])) targets.add(parts[i]);
+            }
+        }
+    }
+
+    /**
+     * @return A map of all transformer class names to the names of their target classes
+     */
+    public Map<String, List<String>> getTransformers() {
+        return Collections.unmodifiableMap(this.transformers);
+    }
+
+}
@@ -1,6 +1,12 @@
 package net.lenni0451.classtransform;
 
 import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.budget.BudgetTracker;
+import net.lenni0451.classtransform.budget.IBudgetPolicy;
+import net.lenni0451.classtransform.budget.MethodGrowth;
+import net.lenni0451.classtransform.budget.MethodSizeLimit;
+import net.lenni0451.classtransform.events.TransformEvents;
 import net.lenni0451.classtransform.mappings.AMapper;
 import net.lenni0451.classtransform.mappings.impl.VoidMapper;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
@@ -9,19 +15,31 @@ import net.lenni0451.classtransform.transformer.ATransformer;
 import net.lenni0451.classtransform.transformer.IBytecodeTransformer;
 import net.lenni0451.classtransform.transformer.IPostTransformer;
 import net.lenni0451.classtransform.transformer.IRawTransformer;
+import net.lenni0451.classtransform.transformer.TransformerPlan;
 import net.lenni0451.classtransform.transformer.impl.*;
 import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.HandlerInliner;
+import net.lenni0451.classtransform.utils.TransformCache;
+import net.lenni0451.classtransform.utils.loader.InjectionClassLoader;
+import net.lenni0451.classtransform.utils.log.ILogger;
+import net.lenni0451.classtransform.utils.tree.ClassTree;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.lang.instrument.Instrumentation;
 import java.lang.instrument.UnmodifiableClassException;
 import java.security.ProtectionDomain;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
@@ -33,9 +51,22 @@ public class TransformerManager implements ClassFileTransformer {
     private final Map<String, IInjectionTarget> injectionTargets = new HashMap<>();
 
     private final List<IBytecodeTransformer> bytecodeTransformer = new ArrayList<>();
-    private final Map<String, List<IRawTransformer>> rawTransformer = new HashMap<>();
-    private final Map<String, List<ClassNode>> transformer = new HashMap<>();
+    private final Map<String, List<IRawTransformer>> rawTransformer = new ConcurrentHashMap<>();
+    //Transformers are registered and released while other classes are transformed
+    private final Map<String, List<TransformerPlan>> transformer = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> indexedTransformer = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<Void>> loadedIndexedTransformer = new HashMap<>();
+    private final ThreadLocal<Set<String>> loadingIndexedTransformer = ThreadLocal.withInitial(HashSet::new);
     private final List<IPostTransformer> postTransformConsumer = new ArrayList<>();
+    private CInject.CallbackMode callbackMode = CInject.CallbackMode.ALLOCATE;
+    private boolean inlineHandlers = false;
+    private boolean injectionCounters = false;
+    private boolean dynamicHandlers = false;
+    private IBudgetPolicy budgetPolicy;
+    private volatile boolean oneShot = false;
+    private volatile TransformCache transformCache;
+    private volatile boolean pinned = false;
+    private ILogger logger = ILogger.SYSERR;
 
     /**
      * @param classProvider The {@link ClassLoader} to use for transformer loading
@@ -87,6 +118,7 @@ public class TransformerManager implements ClassFileTransformer {
      */
     public void addBytecodeTransformer(final IBytecodeTransformer bytecodeTransformer) {
         this.bytecodeTransformer.add(bytecodeTransformer);
+        this.invalidateTransformCache();
     }
 
     /**
@@ -97,7 +129,8 @@ public class TransformerManager implements ClassFileTransformer {
      * @param rawTransformer The {@link IRawTransformer} instance
      */
     public void addRawTransformer(final String className, final IRawTransformer rawTransformer) {
-        this.rawTransformer.computeIfAbsent(className, n -> new ArrayList<>()).add(rawTransformer);
+        this.rawTransformer.computeIfAbsent(className, n -> new CopyOnWriteArrayList<>()).add(rawTransformer);
+        this.invalidateTransformCache();
     }
 
     /**
@@ -109,6 +142,10 @@ public class TransformerManager implements ClassFileTransformer {
      * @param transformer The name of transformer class to add
      */
     public void addTransformer(final String transformer) {
+        this.addTransformer(transformer, true);
+    }
+
+    private void addTransformer(final String transformer, final boolean invalidateCache) {
         List<byte[]> classes = new ArrayList<>();
         if (transformer.endsWith(".**")) {
             String packageName = transformer.substring(0, transformer.length() - 2);
@@ -131,7 +168,7 @@ public class TransformerManager implements ClassFileTransformer {
             try {
                 ClassNode classNode = ASMUtils.fromBytes(bytecode);
                 name = classNode.name;
-                this.addTransformer(classNode);
+                this.addTransformer(classNode, invalidateCache);
             } catch (Throwable e) {
                 if (name == null) throw new RuntimeException("Unable to parse transformer bytecode", e);
                 else throw new RuntimeException("Unable to load transformer '" + name + "'", e);
@@ -141,35 +178,180 @@ public class TransformerManager implements ClassFileTransformer {
 
     /**
      * Add a {@link ClassNode} directly to the transformer list<br>
-     * The class must still be annotated with {@link CTransformer}
+     * The class must still be annotated with {@link CTransformer}<br>
+     * The transformer is compiled into a {@link TransformerPlan} which throws all errors which don't depend on the transformed class
      *
      * @param classNode The {@link ClassNode} to add
      */
     public void addTransformer(final ClassNode classNode) {
-        List<Object> annotation;
-        if (classNode.invisibleAnnotations == null || (annotation = classNode.invisibleAnnotations.stream().filter(a -> a.desc.equals(Type.getDescriptor(CTransformer.class))).map(a -> a.values).findFirst().orElse(null)) == null) {
-            throw new IllegalStateException("Transformer does not have CTransformer annotation");
+        this.addTransformer(classNode, true);
+    }
+
+    private void addTransformer(final ClassNode classNode, final boolean invalidateCache) {
+        TransformerPlan plan = TransformerPlan.compile(classNode, this.classProvider, this.injectionTargets.keySet());
+        for (String target : plan.getTargets()) {
+            this.transformer
+                    .computeIfAbsent(this.mapper.mapClassName(target), n -> new CopyOnWriteArrayList<>())
+                    .add(plan);
+        }
+        if (invalidateCache) this.invalidateTransformCache();
+    }
+
+    /**
+     * Add all transformers listed in the {@link TransformerIndex} resources of a class loader<br>
+     * The index is generated by the ClassTransform annotation processor when compiling the transformers<br>
+     * The transformers are only loaded and compiled when one of their target classes is transformed
+     *
+     * @param classLoader The class loader to get the index resources from
+     * @throws IOException If an index resource could not be read
+     */
+    public void addTransformerIndex(final ClassLoader classLoader) throws IOException {
+        this.addTransformerIndex(TransformerIndex.load(classLoader));
+    }
+
+    /**
+     * Add all transformers listed in a {@link TransformerIndex}<br>
+     * The transformers are only loaded and compiled when one of their target classes is transformed
+     *
+     * @param index The index
+     */
+    public void addTransformerIndex(final TransformerIndex index) {
+        synchronized (this.indexedTransformer) {
+            for (Map.Entry<String, List<String>> entry : index.getTransformers().entrySet()) {
+                for (String target : entry.getValue()) {
+                    this.indexedTransformer
+                            .computeIfAbsent(this.mapper.mapClassName(target), n -> new ArrayList<>())
+                            .add(entry.getKey());
+                }
+            }
+        }
+        this.invalidateTransformCache();
+    }
+
+    /**
+     * Add all transformers of a {@link TransformerBundle} exported using {@link #exportBundle(File, String)}<br>
+     * The bundle is read at once and its transformers are neither validated nor mapped again<br>
+     * If the bundle does not exist, is corrupted or was exported with another id or mapper nothing is added and the transformers have to be added normally
+     *
+     * @param file The bundle file
+     * @param id   The id the bundle was exported with
+     * @return If the bundle was loaded
+     */
+    public boolean addTransformerBundle(final File file, final String id) {
+        List<TransformerBundle.Entry> entries;
+        try {
+            entries = TransformerBundle.read(file, this.getBundleId(id));
+        } catch (Throwable t) {
+            this.logger.error("Unable to read transformer bundle '" + file + "'", t);
+            return false;
+        }
+        if (entries == null) return false;
+        for (TransformerBundle.Entry entry : entries) {
+            this.transformer
+                    .computeIfAbsent(entry.getTarget(), n -> new CopyOnWriteArrayList<>())
+                    .add(TransformerPlan.prepared(entry.getTarget(), entry.isMapped(), entry.getBytecode()));
+        }
+        this.invalidateTransformCache();
+        return true;
+    }
+
+    /**
+     * Export all added transformers to a {@link TransformerBundle}<br>
+     * Every transformer is mapped for each of its target classes so the mapper is not needed when loading the bundle<br>
+     * Transformers whose target class can't be loaded by the class provider are exported unmapped and mapped when they are used<br>
+     * The id should change whenever the transformers or mappings change (e.g. the version of the application)
+     *
+     * @param file The bundle file
+     * @param id   The id of the transformer set
+     * @throws IOException If the bundle could not be written
+     */
+    public void exportBundle(final File file, final String id) throws IOException {
+        for (String target : new ArrayList<>(this.indexedTransformer.keySet())) this.loadIndexedTransformer(target);
+        List<TransformerBundle.Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, List<TransformerPlan>> entry : this.transformer.entrySet()) {
+            ClassNode target = null;
+            try {
+                target = ASMUtils.fromBytes(this.classProvider.getClass(entry.getKey()));
+            } catch (Throwable ignored) {
+            }
+            for (TransformerPlan plan : entry.getValue()) {
+                ClassNode transformer = plan.getTransformer();
+                boolean mapped = plan.isMapped();
+                if (!mapped && target != null) {
+                    try {
+                        transformer = this.mapper.mapClass(this.classProvider, target, ASMUtils.cloneClass(transformer));
+                        mapped = true;
+                    } catch (Throwable t) {
+                        transformer = plan.getTransformer();
+                    }
+                }
+                ClassWriter writer = new ClassWriter(0);
+                transformer.accept(writer);
+                entries.add(new TransformerBundle.Entry(transformer.name, entry.getKey(), mapped, writer.toByteArray()));
+            }
         }
-        for (int i = 0; i < annotation.size(); i += 2) {
-            String key = (String) annotation.get(i);
-            Object value = annotation.get(i + 1);
-
-            if (key.equals("value")) {
-                List<Type> classesList = (List<Type>) value;
-                for (Type type : classesList) {
-                    this.transformer
-                            .computeIfAbsent(this.mapper.mapClassName(type.getClassName()), n -> new ArrayList<>())
-                            .add(classNode);
+        TransformerBundle.write(file, this.getBundleId(id), entries);
+    }
+
+    private String getBundleId(final String id) {
+        return this.mapper.getClass().getName() + ":" + id;
+    }
+
+    private void loadIndexedTransformer(final String name) {
+        if (!this.indexedTransformer.containsKey(name)) return;
+        List<FutureTask<Void>> loads = new ArrayList<>();
+        List<FutureTask<Void>> ownLoads = new ArrayList<>();
+        synchronized (this.indexedTransformer) {
+            List<String> transformer = this.indexedTransformer.get(name);
+            if (transformer == null) return;
+            //A transformer with multiple targets is registered for all of them when it is first needed
+            for (String transformerName : transformer) {
+                //Compiling a transformer may transform one of its own targets
+                if (this.loadingIndexedTransformer.get().contains(transformerName)) continue;
+                FutureTask<Void> load = this.loadedIndexedTransformer.get(transformerName);
+                if (load == null) {
+                    load = new FutureTask<>(() -> this.loadIndexedTransformerClass(transformerName), null);
+                    this.loadedIndexedTransformer.put(transformerName, load);
+                    ownLoads.add(load);
                 }
-            } else if (key.equals("name")) {
-                List<String> classesList = (List<String>) value;
-                for (String className : classesList) {
-                    this.transformer
-                            .computeIfAbsent(this.mapper.mapClassName(className), n -> new ArrayList<>())
-                            .add(classNode);
+                loads.add(load);
+            }
+        }
+        //The transformers are compiled outside of the lock since compiling them may load and transform other classes
+        for (FutureTask<Void> load : ownLoads) load.run();
+        boolean interrupted = false;
+        for (FutureTask<Void> load : loads) {
+            while (true) {
+                try {
+                    load.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    break; //Errors are logged by the load itself
                 }
             }
         }
+        if (interrupted) Thread.currentThread().interrupt();
+        synchronized (this.indexedTransformer) {
+            //The class is removed after its transformers are registered so other threads wait for them
+            //Transformers indexed while loading are kept until the class is transformed again
+            List<String> transformer = this.indexedTransformer.get(name);
+            if (transformer != null && this.loadedIndexedTransformer.keySet().containsAll(transformer)) this.indexedTransformer.remove(name);
+        }
+    }
+
+    private void loadIndexedTransformerClass(final String transformerName) {
+        Set<String> loading = this.loadingIndexedTransformer.get();
+        loading.add(transformerName);
+        try {
+            //The classes of indexed transformers can't have been cached before their transformers are registered
+            this.addTransformer(transformerName, false);
+        } catch (Throwable t) {
+            this.logger.error("Unable to load indexed transformer '" + transformerName + "'", t);
+        } finally {
+            loading.remove(transformerName);
+        }
     }
 
     /**
@@ -182,6 +364,164 @@ public class TransformerManager implements ClassFileTransformer {
         this.postTransformConsumer.add(consumer);
     }
 
+    /**
+     * @return The {@link CInject.CallbackMode} used by injections which don't specify their own mode
+     */
+    public CInject.CallbackMode getCallbackMode() {
+        return this.callbackMode;
+    }
+
+    /**
+     * Set the {@link CInject.CallbackMode} used by injections which don't specify their own mode<br>
+     * The default is {@link CInject.CallbackMode#ALLOCATE} so handlers always get their own callback<br>
+     * This only affects transformations done after the mode has been changed
+     *
+     * @param callbackMode The new callback mode
+     */
+    public void setCallbackMode(final CInject.CallbackMode callbackMode) {
+        if (callbackMode == null || callbackMode == CInject.CallbackMode.DEFAULT) throw new IllegalArgumentException("The global callback mode must not be null or DEFAULT");
+        this.callbackMode = callbackMode;
+        this.invalidateTransformCache();
+    }
+
+    /**
+     * @return If handler methods are inlined into the injection sites
+     */
+    public boolean isInlineHandlers() {
+        return this.inlineHandlers;
+    }
+
+    /**
+     * Inline the handler methods of injections directly into the injection sites instead of calling them<br>
+     * This saves an invoke per injection but increases the size of the target methods<br>
+     * Handlers which can't be inlined (e.g. too large or recursive) are still called normally
+     *
+     * @param inlineHandlers If handlers should be inlined
+     */
+    public void setInlineHandlers(final boolean inlineHandlers) {
+        this.inlineHandlers = inlineHandlers;
+        this.invalidateTransformCache();
+    }
+
+    /**
+     * @return If injection sites increment their {@link InjectionCounters} counter
+     */
+    public boolean isInjectionCounters() {
+        return this.injectionCounters;
+    }
+
+    /**
+     * Let every injection site increment its {@link InjectionCounters} counter before calling the handler<br>
+     * To remove the counters from already transformed classes disable them and retransform the classes (e.g. using {@link #hookInstrumentation(Instrumentation)})
+     *
+     * @param injectionCounters If counters should be added
+     */
+    public void setInjectionCounters(final boolean injectionCounters) {
+        this.injectionCounters = injectionCounters;
+        this.invalidateTransformCache();
+    }
+
+    /**
+     * @return If handler calls are linked using invokedynamic
+     */
+    public boolean isDynamicHandlers() {
+        return this.dynamicHandlers;
+    }
+
+    /**
+     * Call the handlers of injections, redirects and constant modifications using invokedynamic linked by the {@link InjectionLinker}<br>
+     * This allows enabling, disabling and swapping handlers at runtime without retransforming the classes<br>
+     * Classes older than Java 7 don't support invokedynamic and still call the handlers directly<br>
+     * Dynamically linked handlers are not inlined by {@link #setInlineHandlers(boolean)}
+     *
+     * @param dynamicHandlers If handlers should be linked dynamically
+     */
+    public void setDynamicHandlers(final boolean dynamicHandlers) {
+        this.dynamicHandlers = dynamicHandlers;
+        this.invalidateTransformCache();
+    }
+
+    /**
+     * @return The logger used to report problems during the transformation
+     */
+    public ILogger getLogger() {
+        return this.logger;
+    }
+
+    /**
+     * Set the logger used to report problems during the transformation<br>
+     * By default all messages are printed to {@link System#err}
+     *
+     * @param logger The new logger
+     */
+    public void setLogger(final ILogger logger) {
+        if (logger == null) throw new IllegalArgumentException("The logger must not be null");
+        this.logger = logger;
+    }
+
+    /**
+     * @return The policy used when a transformed method crosses a {@link MethodSizeLimit} or null if method sizes are not tracked
+     */
+    public IBudgetPolicy getBudgetPolicy() {
+        return this.budgetPolicy;
+    }
+
+    /**
+     * Track the bytecode size of all transformed methods and call the policy if a method crosses a {@link MethodSizeLimit}<br>
+     * If the policy throws an exception the transformers which caused the growth are skipped and the class is transformed without them<br>
+     * Tracking the size requires writing every method of a transformed class after every transformer, so it is disabled by default
+     *
+     * @param budgetPolicy The policy to use or null to disable the tracking
+     */
+    public void setBudgetPolicy(final IBudgetPolicy budgetPolicy) {
+        this.budgetPolicy = budgetPolicy;
+        this.invalidateTransformCache();
+    }
+
+    /**
+     * @return If the transformers of a class are released after it has been transformed
+     */
+    public boolean isOneShot() {
+        return this.oneShot;
+    }
+
+    /**
+     * Release the transformers, raw transformers and {@link ClassTree} entries of a class after it has been transformed<br>
+     * Transformers with multiple targets are kept until all of their targets have been transformed<br>
+     * Only use this if every class is transformed exactly once (e.g. when using the {@link InjectionClassLoader})<br>
+     * Released classes are no longer returned by {@link #getTransformedClasses()} and can't be retransformed<br>
+     * Hooking an {@link Instrumentation} using {@link #hookInstrumentation(Instrumentation)} pins all remaining transformers
+     *
+     * @param oneShot If the transformers should be released
+     */
+    public void setOneShot(final boolean oneShot) {
+        this.oneShot = oneShot;
+    }
+
+    /**
+     * @return The maximum total size of the cached transformed classes in bytes or 0 if the cache is disabled
+     */
+    public long getTransformCacheSize() {
+        TransformCache transformCache = this.transformCache;
+        return transformCache == null ? 0 : transformCache.getMaxSize();
+    }
+
+    /**
+     * Cache the transformed bytecode of classes using a {@link TransformCache}<br>
+     * Classes with the same name and original bytecode are only transformed once, even if they are loaded by multiple class loaders<br>
+     * Cached classes are invalidated when transformers are added or the transformation options are changed
+     *
+     * @param maxSize The maximum total size of the cached classes in bytes or 0 to disable the cache
+     */
+    public void setTransformCacheSize(final long maxSize) {
+        this.transformCache = maxSize <= 0 ? null : new TransformCache(maxSize);
+    }
+
+    private void invalidateTransformCache() {
+        TransformCache transformCache = this.transformCache;
+        if (transformCache != null) transformCache.invalidate();
+    }
+
     /**
      * Transform the bytecode of a given class
      *
@@ -190,9 +530,34 @@ public class TransformerManager implements ClassFileTransformer {
      * @return The modified bytecode of the class (if there were transformer present)
      */
     public byte[] transform(final String name, byte[] bytecode) {
+        TransformEvents events = TransformEvents.get();
+        Object event = events.beginClassTransform();
+        long time = event == null ? 0 : System.nanoTime();
+
+        TransformCache transformCache = this.transformCache;
+        TransformCache.Key cacheKey = null;
+        long cacheGeneration = 0;
+        if (transformCache != null && (!this.bytecodeTransformer.isEmpty() || this.rawTransformer.containsKey(name) || this.transformer.containsKey(name) || this.indexedTransformer.containsKey(name))) {
+            //The generation is read before the transformers so results of outdated transformers are not cached
+            cacheGeneration = transformCache.getGeneration();
+            cacheKey = TransformCache.key(name, bytecode);
+            byte[] cached = transformCache.get(cacheKey);
+            if (cached != null) {
+                cached = cached.clone();
+                if (event != null) events.endClassTransform(event, name, 0, 0, 0, 0, 0, true);
+                for (IPostTransformer postTransformer : this.postTransformConsumer) postTransformer.transform(name, cached);
+                return cached;
+            }
+        }
         ClassNode clazz = null;
+        long bytecodeTime = 0;
+        long rawTime = 0;
+        long transformerTime = 0;
+        int appliedTransformers = 0;
 
+        byte[] originalBytecode = bytecode;
         for (IBytecodeTransformer transformer : this.bytecodeTransformer) bytecode = transformer.transform(name, bytecode);
+        if (event != null) bytecodeTime = System.nanoTime() - time;
 
         List<IRawTransformer> rawTransformer = this.rawTransformer.get(name);
         if (rawTransformer != null) {
@@ -202,33 +567,112 @@ public class TransformerManager implements ClassFileTransformer {
             }
         }
 
-        List<ClassNode> transformer = this.transformer.get(name);
+        this.loadIndexedTransformer(name);
+        List<TransformerPlan> transformer = this.transformer.get(name);
         if (transformer != null) {
             if (clazz == null) clazz = ASMUtils.fromBytes(bytecode);
-            for (ClassNode classNode : transformer) {
-                try {
-                    classNode = ASMUtils.cloneClass(classNode);
-                    classNode = this.mapper.mapClass(this.classProvider, clazz, classNode);
-                } catch (Throwable t) {
-                    t.printStackTrace();
+            if (event != null) rawTime = System.nanoTime() - time - bytecodeTime;
+            //The budget policy may reject transformers, so the class is restored and transformed again without them
+            ClassNode untransformed = this.budgetPolicy == null ? null : ASMUtils.cloneClass(clazz);
+            Set<String> rejected = new HashSet<>();
+            while (true) {
+                BudgetTracker budgetTracker = untransformed == null ? null : new BudgetTracker(clazz);
+                appliedTransformers = 0;
+                for (TransformerPlan plan : transformer) {
+                    if (rejected.contains(plan.getTransformer().name)) continue;
+                    this.applyTransformer(events, name, clazz, plan, budgetTracker);
+                    appliedTransformers++;
                 }
+                clazz = this.inlineHandlers(name, clazz, budgetTracker);
+                if (budgetTracker == null) break;
 
-                for (ATransformer aTransformer : this.internalTransformer) {
+                Set<String> newlyRejected = new HashSet<>();
+                boolean limitRejected = false;
+                for (MethodGrowth growth : budgetTracker.getCrossedLimits()) {
                     try {
-                        aTransformer.transform(this, this.classProvider, this.injectionTargets, clazz, classNode);
+                        this.budgetPolicy.limitCrossed(this.logger, growth);
                     } catch (Throwable t) {
-                        t.printStackTrace();
+                        this.logger.error("The budget policy rejected the transformers " + growth.getTransformers() + " of class '" + name + "'", t);
+                        newlyRejected.addAll(growth.getTransformers());
+                        limitRejected = true;
                     }
                 }
+                if (!limitRejected) break;
+                clazz = ASMUtils.cloneClass(untransformed);
+                if (!rejected.addAll(newlyRejected)) {
+                    //The growth could not be attributed to any remaining transformer
+                    appliedTransformers = 0;
+                    break;
+                }
             }
+            if (event != null) transformerTime = System.nanoTime() - time - bytecodeTime - rawTime;
+        } else if (event != null) {
+            rawTime = System.nanoTime() - time - bytecodeTime;
         }
 
-        if (clazz == null) return bytecode;
+        if (clazz == null) {
+            if (cacheKey != null && bytecode != originalBytecode) transformCache.put(cacheKey, cacheGeneration, bytecode.clone());
+            if (event != null && bytecode != originalBytecode) events.endClassTransform(event, name, bytecodeTime, 0, 0, 0, 0, false);
+            return bytecode;
+        }
+        long writeStart = event == null ? 0 : System.nanoTime();
         byte[] transformedBytecode = ASMUtils.toBytes(clazz, this.classProvider);
+        if (event != null) events.endClassTransform(event, name, bytecodeTime, rawTime, transformerTime, System.nanoTime() - writeStart, appliedTransformers, false);
+        if (cacheKey != null) transformCache.put(cacheKey, cacheGeneration, transformedBytecode.clone());
+        if (this.oneShot && !this.pinned) this.release(name);
         for (IPostTransformer postTransformer : this.postTransformConsumer) postTransformer.transform(name, transformedBytecode);
         return transformedBytecode;
     }
 
+    private void applyTransformer(final TransformEvents events, final String name, final ClassNode clazz, final TransformerPlan plan, final BudgetTracker budgetTracker) {
+        Object applyEvent = events.beginTransformerApply();
+        ClassNode classNode = plan.getTransformer();
+        try {
+            classNode = ASMUtils.cloneClass(classNode);
+            if (!plan.isMapped()) classNode = this.mapper.mapClass(this.classProvider, clazz, classNode);
+        } catch (Throwable t) {
+            this.logger.error("Unable to map transformer '" + classNode.name + "' for class '" + name + "'", t);
+        }
+
+        for (ATransformer aTransformer : this.internalTransformer) {
+            try {
+                aTransformer.transform(this, this.classProvider, this.injectionTargets, clazz, classNode);
+            } catch (Throwable t) {
+                this.logger.error("Unable to apply transformer '" + classNode.name + "' to class '" + name + "'", t);
+            }
+        }
+        if (budgetTracker != null) budgetTracker.transformed(classNode);
+        if (applyEvent != null) events.endTransformerApply(applyEvent, classNode.name, name);
+    }
+
+    private ClassNode inlineHandlers(final String name, final ClassNode clazz, final BudgetTracker budgetTracker) {
+        if (!this.inlineHandlers) return clazz;
+        //A failed inlining may have already modified some methods, so the handlers are inlined into a copy
+        ClassNode inlined = ASMUtils.cloneClass(clazz);
+        try {
+            HandlerInliner.inline(inlined);
+            if (budgetTracker != null) budgetTracker.replaceClass(inlined);
+            return inlined;
+        } catch (Throwable t) {
+            this.logger.error("Unable to inline the handlers of class '" + name + "'", t);
+            return clazz;
+        }
+    }
+
+    private void release(final String name) {
+        this.rawTransformer.remove(name);
+        ClassTree.remove(name);
+        List<TransformerPlan> transformer = this.transformer.remove(name);
+        if (transformer == null) return;
+        for (TransformerPlan plan : transformer) {
+            boolean released = true;
+            for (String target : plan.getTargets()) {
+                if (this.transformer.containsKey(plan.isPrepared() ? target : this.mapper.mapClassName(target))) released = false;
+            }
+            if (released) ClassTree.remove(plan.getTransformer().name);
+        }
+    }
+
     /**
      * Get a list of all transformed classes<br>
      * This is useful to redefine already loaded classes
@@ -237,18 +681,23 @@ public class TransformerManager implements ClassFileTransformer {
         List<String> transformedClasses = new ArrayList<>();
         transformedClasses.addAll(this.transformer.keySet());
         transformedClasses.addAll(this.rawTransformer.keySet());
+        synchronized (this.indexedTransformer) {
+            transformedClasses.addAll(this.indexedTransformer.keySet());
+        }
         return Collections.unmodifiableList(transformedClasses);
     }
 
     /**
      * Hook an {@link Instrumentation} instance to allow for transformation using it<br>
      * This can be used to transform classes already loaded by the JVM<br>
-     * You have to be careful with re-transforming classes since you can't modify the structure (e.g. adding a new method or modifying the signature of an existing one)
+     * You have to be careful with re-transforming classes since you can't modify the structure (e.g. adding a new method or modifying the signature of an existing one)<br>
+     * The transformers are no longer released in {@link #setOneShot(boolean) one-shot} mode so they can be used for retransformation
      *
      * @param instrumentation The instance of the {@link Instrumentation}
      * @throws UnmodifiableClassException If a class could not be redefined
      */
     public void hookInstrumentation(final Instrumentation instrumentation) throws UnmodifiableClassException {
+        this.pinned = true;
         instrumentation.addTransformer(this, instrumentation.isRetransformClassesSupported());
 
         List<String> transformedClasses = this.getTransformedClasses();
@@ -270,7 +719,7 @@ public class TransformerManager implements ClassFileTransformer {
             byte[] newBytes = transform(className.replace("/", "."), classfileBuffer);
             if (!Arrays.equals(newBytes, classfileBuffer)) return newBytes;
         } catch (Throwable t) {
-            t.printStackTrace();
+            this.logger.error("Unable to transform class '" + className + "'", t);
         }
         return null;
     }
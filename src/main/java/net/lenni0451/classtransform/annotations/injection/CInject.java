@@ -43,4 +43,31 @@ public @interface CInject {
      */
     boolean cancellable() default false;
 
+    /**
+     * How the {@link net.lenni0451.classtransform.InjectionCallback} should be created<br>
+     * By default the mode set in the {@link net.lenni0451.classtransform.TransformerManager} is used
+     */
+    CallbackMode callback() default CallbackMode.DEFAULT;
+
+    enum CallbackMode {
+        /**
+         * Use the mode set in the {@link net.lenni0451.classtransform.TransformerManager}
+         */
+        DEFAULT,
+        /**
+         * Create a new callback every time the injection is called
+         */
+        ALLOCATE,
+        /**
+         * Use the shared {@link net.lenni0451.classtransform.InjectionCallback#NON_CANCELLABLE} callback if the injection is not cancellable and has no return value<br>
+         * All other callbacks are created every time the injection is called
+         */
+        SHARED,
+        /**
+         * Like {@link #SHARED} but reuse a callback per thread instead of creating a new one<br>
+         * The handler must not keep a reference to the callback after it returned
+         */
+        REUSE
+    }
+
 }
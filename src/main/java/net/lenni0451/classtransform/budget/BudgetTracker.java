@@ -0,0 +1,169 @@
+package net.lenni0451.classtransform.budget;
+
+import net.lenni0451.classtransform.annotations.InjectionInfo;
+import net.lenni0451.classtransform.utils.annotations.AnnotationParser;
+import net.lenni0451.classtransform.utils.index.MethodIndex;
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Track the bytecode size of all methods of a class during its transformation<br>
+ * Growth is attributed to the transformers which modified a method and the handlers called by it
+ */
+public class BudgetTracker {
+
+    /**
+     * Calculate the bytecode size of a method<br>
+     * The size of constant pool references may differ slightly from the final class since the method is written into an empty class
+     *
+     * @param methodNode The method
+     * @return The size of the code in bytes
+     */
+    public static int getCodeSize(final MethodNode methodNode) {
+        if (methodNode.instructions.size() == 0) return 0;
+        Label end = new Label();
+        write(methodNode, end);
+        return end.getOffset();
+    }
+
+    private static long getChecksum(final MethodNode methodNode) {
+        if (methodNode.instructions.size() == 0) return 0;
+        CRC32 crc = new CRC32();
+        crc.update(write(methodNode, new Label()).toByteArray());
+        return crc.getValue();
+    }
+
+    private static ClassWriter write(final MethodNode methodNode, final Label end) {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Size", null, "java/lang/Object", null);
+        MethodVisitor methodVisitor = writer.visitMethod(methodNode.access, methodNode.name, methodNode.desc, null, null);
+        methodNode.accept(new MethodVisitor(Opcodes.ASM9, methodVisitor) {
+            @Override
+            public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+                //Frames are not part of the code and may be outdated
+            }
+
+            @Override
+            public void visitMaxs(int maxStack, int maxLocals) {
+                super.visitLabel(end);
+                super.visitMaxs(maxStack, maxLocals);
+            }
+        });
+        return writer;
+    }
+
+
+    private final Map<MethodNode, Snapshot> snapshots = new IdentityHashMap<>();
+    private ClassNode classNode;
+
+    public BudgetTracker(final ClassNode classNode) {
+        this.classNode = classNode;
+        for (MethodNode method : classNode.methods) this.snapshots.put(method, new Snapshot(method));
+    }
+
+    /**
+     * Attribute all modifications since the last call to the given transformer
+     *
+     * @param transformer The transformer which has been applied
+     */
+    public void transformed(final ClassNode transformer) {
+        for (Snapshot snapshot : this.snapshots.values()) {
+            if (!snapshot.isModified()) continue;
+            snapshot.update();
+            snapshot.transformers.add(transformer.name);
+            for (AbstractInsnNode instruction : snapshot.methodNode.instructions) {
+                if (!(instruction instanceof MethodInsnNode)) continue;
+                MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
+                if (!methodInsnNode.owner.equals(this.classNode.name)) continue;
+                MethodNode handler = MethodIndex.get(this.classNode).getMethod(methodInsnNode.name, methodInsnNode.desc);
+                String handlerName = handler == null ? null : this.getHandlerName(handler);
+                if (handlerName != null) snapshot.handlers.add(handlerName);
+            }
+        }
+    }
+
+    /**
+     * Track a copy of the class which replaces the tracked class<br>
+     * The methods are matched by their name and descriptor and removed methods are no longer tracked
+     *
+     * @param classNode The copy of the class
+     */
+    public void replaceClass(final ClassNode classNode) {
+        MethodIndex index = MethodIndex.get(classNode);
+        List<Snapshot> snapshots = new ArrayList<>(this.snapshots.values());
+        this.snapshots.clear();
+        for (Snapshot snapshot : snapshots) {
+            MethodNode method = index.getMethod(snapshot.methodNode.name, snapshot.methodNode.desc);
+            if (method == null) continue;
+            snapshot.methodNode = method;
+            this.snapshots.put(method, snapshot);
+        }
+        this.classNode = classNode;
+    }
+
+    /**
+     * Compare the current size of all methods with their original size
+     *
+     * @return All methods which crossed at least one {@link MethodSizeLimit}
+     */
+    public List<MethodGrowth> getCrossedLimits() {
+        List<MethodGrowth> growths = new ArrayList<>();
+        for (Snapshot snapshot : this.snapshots.values()) {
+            if (snapshot.transformers.isEmpty() && !snapshot.isModified()) continue;
+            int newSize = getCodeSize(snapshot.methodNode);
+            List<MethodSizeLimit> crossedLimits = new ArrayList<>();
+            for (MethodSizeLimit limit : MethodSizeLimit.values()) {
+                if (limit.isCrossed(snapshot.size, newSize)) crossedLimits.add(limit);
+            }
+            if (crossedLimits.isEmpty()) continue;
+            MethodNode method = snapshot.methodNode;
+            growths.add(new MethodGrowth(this.classNode.name, method.name, method.desc, snapshot.size, newSize, crossedLimits, snapshot.transformers, snapshot.handlers));
+        }
+        return growths;
+    }
+
+    private String getHandlerName(final MethodNode handler) {
+        if (handler.invisibleAnnotations == null) return null;
+        for (AnnotationNode annotation : handler.invisibleAnnotations) {
+            if (!annotation.desc.equals(Type.getDescriptor(InjectionInfo.class))) continue;
+            Map<String, Object> values = AnnotationParser.listToMap(annotation.values);
+            return values.get("transformer") + "#" + values.get("originalName");
+        }
+        return null;
+    }
+
+
+    private static class Snapshot {
+
+        private MethodNode methodNode;
+        private final int size;
+        private final Set<String> transformers = new LinkedHashSet<>();
+        private final Set<String> handlers = new LinkedHashSet<>();
+        private InsnList instructions;
+        private int instructionCount;
+        private long checksum;
+
+        private Snapshot(final MethodNode methodNode) {
+            this.methodNode = methodNode;
+            this.size = getCodeSize(methodNode);
+            this.update();
+        }
+
+        private boolean isModified() {
+            if (this.instructions != this.methodNode.instructions || this.instructionCount != this.methodNode.instructions.size()) return true;
+            //Instructions may be replaced or modified in place without changing the instruction count
+            return this.checksum != getChecksum(this.methodNode);
+        }
+
+        private void update() {
+            this.instructions = this.methodNode.instructions;
+            this.instructionCount = this.methodNode.instructions.size();
+            this.checksum = getChecksum(this.methodNode);
+        }
+
+    }
+
+}
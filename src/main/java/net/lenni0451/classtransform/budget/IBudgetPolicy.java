@@ -0,0 +1,31 @@
+package net.lenni0451.classtransform.budget;
+
+import net.lenni0451.classtransform.utils.log.ILogger;
+
+/**
+ * A policy which decides what happens when a transformed method crosses a {@link MethodSizeLimit}<br>
+ * Throwing an exception rejects the transformers which caused the growth and the class is transformed without them
+ */
+@FunctionalInterface
+public interface IBudgetPolicy {
+
+    /**
+     * Log all limit crossings as warnings
+     */
+    IBudgetPolicy LOG = (logger, growth) -> logger.warn(growth.toString());
+    /**
+     * Reject the transformers which caused the growth if a limit is crossed
+     */
+    IBudgetPolicy REJECT = (logger, growth) -> {
+        throw new IllegalStateException(growth.toString());
+    };
+
+    /**
+     * Handle a method which crossed at least one {@link MethodSizeLimit}
+     *
+     * @param logger The logger of the transformer manager
+     * @param growth The growth of the method
+     */
+    void limitCrossed(final ILogger logger, final MethodGrowth growth);
+
+}
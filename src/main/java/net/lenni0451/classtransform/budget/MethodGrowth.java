@@ -0,0 +1,99 @@
+package net.lenni0451.classtransform.budget;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The growth of a method caused by the transformation of its class
+ */
+public class MethodGrowth {
+
+    private final String className;
+    private final String methodName;
+    private final String methodDesc;
+    private final int oldSize;
+    private final int newSize;
+    private final List<MethodSizeLimit> crossedLimits;
+    private final Set<String> transformers;
+    private final Set<String> handlers;
+
+    public MethodGrowth(final String className, final String methodName, final String methodDesc, final int oldSize, final int newSize, final List<MethodSizeLimit> crossedLimits, final Set<String> transformers, final Set<String> handlers) {
+        this.className = className;
+        this.methodName = methodName;
+        this.methodDesc = methodDesc;
+        this.oldSize = oldSize;
+        this.newSize = newSize;
+        this.crossedLimits = Collections.unmodifiableList(crossedLimits);
+        this.transformers = Collections.unmodifiableSet(transformers);
+        this.handlers = Collections.unmodifiableSet(handlers);
+    }
+
+    /**
+     * @return The internal name of the transformed class
+     */
+    public String getClassName() {
+        return this.className;
+    }
+
+    /**
+     * @return The name of the method
+     */
+    public String getMethodName() {
+        return this.methodName;
+    }
+
+    /**
+     * @return The descriptor of the method
+     */
+    public String getMethodDesc() {
+        return this.methodDesc;
+    }
+
+    /**
+     * @return The bytecode size of the method before the transformation
+     */
+    public int getOldSize() {
+        return this.oldSize;
+    }
+
+    /**
+     * @return The bytecode size of the method after the transformation
+     */
+    public int getNewSize() {
+        return this.newSize;
+    }
+
+    /**
+     * @return The limits which have been crossed by the transformation
+     */
+    public List<MethodSizeLimit> getCrossedLimits() {
+        return this.crossedLimits;
+    }
+
+    /**
+     * @return The internal names of the transformers which modified the method
+     */
+    public Set<String> getTransformers() {
+        return this.transformers;
+    }
+
+    /**
+     * @return The handler methods called by the method in the format {@code transformer#name(desc)}
+     */
+    public Set<String> getHandlers() {
+        return this.handlers;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder limits = new StringBuilder();
+        for (MethodSizeLimit limit : this.crossedLimits) {
+            if (limits.length() != 0) limits.append(", ");
+            limits.append(limit.getFlag()).append(" (").append(limit.getSize()).append(")");
+        }
+        return "Method " + this.className + "." + this.methodName + this.methodDesc + " grew from " + this.oldSize + " to " + this.newSize + " bytes and crossed " + limits
+                + " [transformers: " + String.join(", ", this.transformers) + "; handlers: " + String.join(", ", this.handlers) + "]";
+    }
+
+}
@@ -0,0 +1,56 @@
+package net.lenni0451.classtransform.budget;
+
+/**
+ * The bytecode size limits used by HotSpot to decide if a method is compiled or inlined<br>
+ * The values are the defaults of the corresponding JVM flags
+ */
+public enum MethodSizeLimit {
+
+    /**
+     * Methods larger than this are only inlined if they are called frequently (-XX:MaxInlineSize)
+     */
+    MAX_INLINE_SIZE("MaxInlineSize", 35),
+    /**
+     * Frequently called methods larger than this are not inlined (-XX:FreqInlineSize)
+     */
+    FREQ_INLINE_SIZE("FreqInlineSize", 325),
+    /**
+     * Methods larger than this are not compiled at all (-XX:-DontCompileHugeMethods)
+     */
+    HUGE_METHOD_LIMIT("HugeMethodLimit", 8000);
+
+
+    private final String flag;
+    private final int size;
+
+    MethodSizeLimit(final String flag, final int size) {
+        this.flag = flag;
+        this.size = size;
+    }
+
+    /**
+     * @return The name of the JVM flag
+     */
+    public String getFlag() {
+        return this.flag;
+    }
+
+    /**
+     * @return The maximum size in bytes
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Check if a method growing from the old size to the new size crosses this limit
+     *
+     * @param oldSize The size before the transformation
+     * @param newSize The size after the transformation
+     * @return If the limit has been crossed
+     */
+    public boolean isCrossed(final int oldSize, final int newSize) {
+        return oldSize <= this.size && newSize > this.size;
+    }
+
+}
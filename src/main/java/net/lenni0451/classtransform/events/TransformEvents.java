@@ -0,0 +1,133 @@
+package net.lenni0451.classtransform.events;
+
+/**
+ * Hooks which are called during the transformation and loading of classes<br>
+ * The default implementation does nothing and returns null for all events<br>
+ * On Java 11+ the multi-release jar contains an implementation emitting Java Flight Recorder events in the ClassTransform category<br>
+ * Events are only created if they are enabled in the recording, the returned object has to be passed to the matching end method
+ */
+public class TransformEvents {
+
+    private static final TransformEvents INSTANCE = create();
+
+    private static TransformEvents create() {
+        try {
+            return (TransformEvents) Class.forName("net.lenni0451.classtransform.events.JfrTransformEvents").getDeclaredConstructor().newInstance();
+        } catch (Throwable t) {
+            //Java 8 or JFR is not available
+            return new TransformEvents();
+        }
+    }
+
+    /**
+     * @return The events implementation of the current JVM
+     */
+    public static TransformEvents get() {
+        return INSTANCE;
+    }
+
+
+    protected TransformEvents() {
+    }
+
+    /**
+     * Start the transformation of a class
+     *
+     * @return The event or null if it is disabled
+     */
+    public Object beginClassTransform() {
+        return null;
+    }
+
+    /**
+     * End the transformation of a class
+     *
+     * @param event               The event returned by {@link #beginClassTransform()}
+     * @param className           The name of the class
+     * @param bytecodeNanos       The time spent in bytecode transformers
+     * @param rawNanos            The time spent parsing the class and in raw transformers
+     * @param transformerNanos    The time spent applying transformers
+     * @param writeNanos          The time spent writing the class
+     * @param appliedTransformers The amount of applied transformers
+     * @param cached              If the class was loaded from the transform cache
+     */
+    public void endClassTransform(final Object event, final String className, final long bytecodeNanos, final long rawNanos, final long transformerNanos, final long writeNanos, final int appliedTransformers, final boolean cached) {
+    }
+
+    /**
+     * Start applying a transformer to a class
+     *
+     * @return The event or null if it is disabled
+     */
+    public Object beginTransformerApply() {
+        return null;
+    }
+
+    /**
+     * End applying a transformer to a class
+     *
+     * @param event       The event returned by {@link #beginTransformerApply()}
+     * @param transformer The name of the transformer
+     * @param className   The name of the transformed class
+     */
+    public void endTransformerApply(final Object event, final String transformer, final String className) {
+    }
+
+    /**
+     * Start resolving the hierarchy of a class
+     *
+     * @return The event or null if it is disabled
+     */
+    public Object beginHierarchyResolve() {
+        return null;
+    }
+
+    /**
+     * End resolving the hierarchy of a class
+     *
+     * @param event     The event returned by {@link #beginHierarchyResolve()}
+     * @param className The name of the class
+     * @param supers    The amount of super classes and interfaces
+     */
+    public void endHierarchyResolve(final Object event, final String className, final int supers) {
+    }
+
+    /**
+     * Start loading mappings
+     *
+     * @return The event or null if it is disabled
+     */
+    public Object beginMappingLoad() {
+        return null;
+    }
+
+    /**
+     * End loading mappings
+     *
+     * @param event  The event returned by {@link #beginMappingLoad()}
+     * @param mapper The name of the mapper class
+     * @param cached If the mappings were loaded from the mapping cache
+     */
+    public void endMappingLoad(final Object event, final String mapper, final boolean cached) {
+    }
+
+    /**
+     * Start defining a class
+     *
+     * @return The event or null if it is disabled
+     */
+    public Object beginClassDefine() {
+        return null;
+    }
+
+    /**
+     * End defining a class
+     *
+     * @param event     The event returned by {@link #beginClassDefine()}
+     * @param className The name of the class
+     * @param size      The size of the bytecode
+     */
+    public void endClassDefine(final Object event, final String className, final int size) {
+    }
+
+}
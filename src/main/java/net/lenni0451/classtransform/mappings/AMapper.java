@@ -1,6 +1,7 @@
 package net.lenni0451.classtransform.mappings;
 
 import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.events.TransformEvents;
 import net.lenni0451.classtransform.mappings.annotation.AnnotationRemap;
 import net.lenni0451.classtransform.mappings.annotation.RemapType;
 import net.lenni0451.classtransform.utils.ASMUtils;
@@ -16,20 +17,22 @@ import org.objectweb.asm.tree.ClassNode;
 import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.*;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 public abstract class AMapper {
 
     private static final String ANNOTATION_PACKAGE = CTransformer.class.getPackage().getName().replace(".", "/");
+    private static final int CHUNK_SIZE = 1 << 20;
 
     private final MapperConfig config;
-    protected final MapRemapper remapper;
+    protected MapRemapper remapper;
 
     public AMapper(final MapperConfig config) {
         this.config = config;
@@ -37,8 +40,31 @@ public abstract class AMapper {
     }
 
     public final void load() {
+        Object event = TransformEvents.get().beginMappingLoad();
+        boolean cached = this.loadMappings();
+        if (event != null) TransformEvents.get().endMappingLoad(event, this.getClass().getName(), cached);
+    }
+
+    private boolean loadMappings() {
         try {
+            File sourceFile = this.getSourceFile();
+            if (this.config.cacheFile == null || sourceFile == null) {
+                this.init();
+                return false;
+            }
+
+            MapRemapper cached = MappingCache.load(this.config.cacheFile, sourceFile, this.getCacheId());
+            if (cached != null) {
+                this.remapper = cached;
+                return true;
+            }
             this.init();
+            try {
+                MappingCache.save(this.remapper, this.config.cacheFile, sourceFile, this.getCacheId());
+            } catch (Throwable t) {
+                new Exception("Unable to save mapping cache '" + this.config.cacheFile + "'", t).printStackTrace();
+            }
+            return false;
         } catch (Throwable t) {
             throw new RuntimeException("Unable to initialize mappings", t);
         }
@@ -88,15 +114,117 @@ public abstract class AMapper {
 
     protected abstract void init() throws Throwable;
 
+    /**
+     * @return The file the mappings are loaded from or null if the mappings can't be cached
+     */
+    protected File getSourceFile() {
+        return null;
+    }
 
-    protected List<String> readLines(final File f) throws FileNotFoundException {
+    /**
+     * Get the id stored in the mapping cache<br>
+     * The cache is only used if the id matches, so it has to include all settings which change the loaded mappings
+     *
+     * @return The id of this mapper
+     */
+    protected String getCacheId() {
+        return this.getClass().getName();
+    }
+
+
+    protected List<String> readLines(final File f) throws IOException {
         List<String> out = new ArrayList<>();
-        try (Scanner s = new Scanner(f)) {
-            while (s.hasNextLine()) out.add(s.nextLine());
+        try (BufferedReader reader = this.openReader(f)) {
+            String line;
+            while ((line = reader.readLine()) != null) out.add(line);
         }
         return out;
     }
 
+    /**
+     * Open a buffered reader to stream the lines of a mapping file
+     *
+     * @param f The mapping file
+     * @return The reader
+     * @throws IOException If the file could not be opened
+     */
+    protected BufferedReader openReader(final File f) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    /**
+     * Parse the lines of a mapping file<br>
+     * If the file is larger than the parallel threshold it is split into chunks which start at a boundary line.
+     * The chunks are parsed in parallel on the common {@link ForkJoinPool}<br>
+     * The results are returned in the order of the chunks in the file
+     *
+     * @param f        The mapping file
+     * @param boundary If a chunk may start at the given line (e.g. the start of a class block)
+     * @param parser   The parser for the lines of a chunk
+     * @param <T>      The type of the parsed chunks
+     * @return The parsed chunks
+     * @throws IOException If the file could not be read
+     */
+    protected <T> List<T> parseChunks(final File f, final Predicate<String> boundary, final Function<Iterable<String>, T> parser) throws IOException {
+        try (BufferedReader reader = this.openReader(f)) {
+            if (!this.isParallel(f)) {
+                return Collections.singletonList(parser.apply(() -> new LineIterator(reader)));
+            }
+
+            List<ForkJoinTask<T>> tasks = new ArrayList<>();
+            List<String> chunk = new ArrayList<>();
+            int chunkSize = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (chunkSize >= CHUNK_SIZE && boundary.test(line)) {
+                    List<String> lines = chunk;
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> parser.apply(lines)));
+                    chunk = new ArrayList<>();
+                    chunkSize = 0;
+                }
+                chunk.add(line);
+                chunkSize += line.length();
+            }
+            List<String> lines = chunk;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> parser.apply(lines)));
+
+            List<T> results = new ArrayList<>();
+            for (ForkJoinTask<T> task : tasks) results.add(task.join());
+            return results;
+        }
+    }
+
+    /**
+     * @param f The mapping file
+     * @return If the file is parsed in parallel by {@link #parseChunks(File, Predicate, Function)}
+     */
+    protected boolean isParallel(final File f) {
+        return f.length() >= this.config.parallelThreshold;
+    }
+
+    /**
+     * Split a line at the given separator starting at the given index<br>
+     * This is used instead of a regex to parse mapping lines
+     *
+     * @param line      The line to split
+     * @param start     The index to start at
+     * @param separator The separator char
+     * @param count     The expected amount of parts
+     * @return The parts or null if the amount of parts does not match or a part is empty
+     */
+    protected String[] split(final String line, final int start, final char separator, final int count) {
+        String[] parts = new String[count];
+        int partStart = start;
+        for (int i = 0; i < count; i++) {
+            int partEnd = i == count - 1 ? line.length() : line.indexOf(separator, partStart);
+            if (partEnd == -1 || partEnd == partStart) return null;
+            parts[i] = line.substring(partStart, partEnd);
+            partStart = partEnd + 1;
+        }
+        if (parts[count - 1].indexOf(separator) != -1) return null;
+        return parts;
+    }
+
     protected String slash(final String s) {
         return s.replace('.', '/');
     }
@@ -190,6 +318,35 @@ public abstract class AMapper {
     }
 
 
+    private static class LineIterator implements Iterator<String> {
+        private final BufferedReader reader;
+        private String next;
+
+        private LineIterator(final BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null) {
+                try {
+                    this.next = this.reader.readLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!this.hasNext()) throw new NoSuchElementException();
+            String line = this.next;
+            this.next = null;
+            return line;
+        }
+    }
+
     private static class AnnotationHolder {
         private final Object holder;
         private final AnnotationNode annotation;
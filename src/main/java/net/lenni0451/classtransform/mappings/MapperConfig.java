@@ -1,5 +1,7 @@
 package net.lenni0451.classtransform.mappings;
 
+import java.io.File;
+
 public class MapperConfig {
 
     public static MapperConfig create() {
@@ -9,6 +11,8 @@ public class MapperConfig {
 
     protected boolean fillSuperMappings = false;
     protected boolean remapTransformer = false;
+    protected File cacheFile = null;
+    protected long parallelThreshold = 16 * 1024 * 1024;
 
     private MapperConfig() {
     }
@@ -23,4 +27,29 @@ public class MapperConfig {
         return this;
     }
 
+    /**
+     * Cache the loaded mappings in a binary file<br>
+     * If the mapping file has not changed the cache is memory mapped instead of parsing the mappings again<br>
+     * Only mappers which load their mappings from a file support caching
+     *
+     * @param cacheFile The cache file or null to disable caching
+     * @return The config
+     */
+    public MapperConfig cacheFile(final File cacheFile) {
+        this.cacheFile = cacheFile;
+        return this;
+    }
+
+    /**
+     * Set the file size from which mapping files are split into chunks and parsed in parallel<br>
+     * Smaller files are parsed on the calling thread
+     *
+     * @param parallelThreshold The file size in bytes or {@link Long#MAX_VALUE} to always parse on the calling thread
+     * @return The config
+     */
+    public MapperConfig parallelThreshold(final long parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
 }
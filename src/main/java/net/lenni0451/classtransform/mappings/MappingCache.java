@@ -0,0 +1,93 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.mappings.MappedRemapper;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A binary cache for loaded mappings<br>
+ * The cache file stores the length and CRC32 of the source file and is ignored if the source file has changed<br>
+ * Cached mappings are memory mapped and looked up using a {@link MappedRemapper}
+ */
+public class MappingCache {
+
+    private static final int MAGIC = 0x43544D43; //CTMC
+    private static final int VERSION = 1;
+
+    /**
+     * Load the cached mappings
+     *
+     * @param cacheFile  The cache file
+     * @param sourceFile The file the mappings were loaded from
+     * @param id         The id of the mapper and its settings
+     * @return The cached mappings or null if there is no valid cache for the source file
+     * @throws IOException If the source file could not be read
+     */
+    public static MapRemapper load(final File cacheFile, final File sourceFile, final String id) throws IOException {
+        if (!cacheFile.isFile()) return null;
+        long sourceLength = sourceFile.length();
+        int sourceCrc = crc(sourceFile);
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+            if (buffer.getLong() != sourceLength || buffer.getInt() != sourceCrc) return null;
+            byte[] cachedId = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(cachedId);
+            if (!id.equals(new String(cachedId, StandardCharsets.UTF_8))) return null;
+            return new MappedRemapper(buffer);
+        } catch (RuntimeException e) {
+            //The cache file is truncated or corrupted
+            return null;
+        }
+    }
+
+    /**
+     * Save mappings to a cache file<br>
+     * The file is written to a temporary file first and then moved to the cache file
+     *
+     * @param remapper   The mappings to save
+     * @param cacheFile  The cache file
+     * @param sourceFile The file the mappings were loaded from
+     * @param id         The id of the mapper and its settings
+     * @throws IOException If the cache file could not be written
+     */
+    public static void save(final MapRemapper remapper, final File cacheFile, final File sourceFile, final String id) throws IOException {
+        File directory = cacheFile.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) throw new IOException("Unable to create directory " + directory);
+        File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sourceFile.length());
+                out.writeInt(crc(sourceFile));
+                byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(idBytes.length);
+                out.write(idBytes);
+                MappedRemapper.write(remapper, out);
+            }
+            Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static int crc(final File file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream is = new FileInputStream(file)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) crc.update(buffer, 0, read);
+        }
+        return (int) crc.getValue();
+    }
+
+}
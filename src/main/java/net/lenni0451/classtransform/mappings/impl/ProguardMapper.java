@@ -4,15 +4,11 @@ import net.lenni0451.classtransform.mappings.AMapper;
 import net.lenni0451.classtransform.mappings.MapperConfig;
 
 import java.io.File;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ProguardMapper extends AMapper {
 
-    private static final String CLASS_LINE = "^([^ ]+) ?-> ?([^ ]+):$";
-    private static final String METHOD_LINE = "^ {4}(\\d+:|)+([^ ]+) ([^ ()]+)(\\([^ ()]*\\))(:\\d+|)+ ?-> ?(.+)$";
-    private static final String FIELD_LINE = "^ {4}([^ ]+) ([^ (]+) ?-> ?(.+)$";
-
     private final File mappingFile;
 
     public ProguardMapper(final MapperConfig config, final File mappingFile) {
@@ -20,55 +16,75 @@ public class ProguardMapper extends AMapper {
         this.mappingFile = mappingFile;
     }
 
+    @Override
+    protected File getSourceFile() {
+        return this.mappingFile;
+    }
+
     @Override
     protected void init() throws Throwable {
+        List<List<String[]>> chunks = this.parseChunks(this.mappingFile, line -> !line.isEmpty() && line.charAt(0) != ' ' && line.charAt(0) != '#', this::parseChunk);
+        for (List<String[]> mappings : chunks) {
+            for (String[] mapping : mappings) {
+                if (mapping.length == 2) this.remapper.addClassMapping(mapping[0], mapping[1]);
+                else if (mapping[2].startsWith("(")) this.remapper.addMethodMapping(mapping[0], mapping[1], mapping[2], mapping[3]);
+                else this.remapper.addFieldMapping(mapping[0], mapping[1], mapping[2], mapping[3]);
+            }
+        }
+    }
+
+    private List<String[]> parseChunk(final Iterable<String> lines) {
+        //Class mappings are stored as {name, new name} and member mappings as {owner, name, descriptor, new name}
+        List<String[]> mappings = new ArrayList<>();
         String currentClass = null;
-        for (String line : this.readLines(this.mappingFile)) {
+        for (String line : lines) {
             if (line.trim().isEmpty() || line.startsWith("#")) continue;
 
             String error = null;
-            if (line.matches(CLASS_LINE)) {
-                Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
-                if (m.find()) {
-                    currentClass = this.slash(m.group(1));
-                    String newName = this.slash(m.group(2));
+            int arrow = line.indexOf("->");
+            if (!line.startsWith(" ")) {
+                if (arrow != -1 && line.endsWith(":")) {
+                    currentClass = this.slash(line.substring(0, arrow).trim());
+                    String newName = this.slash(line.substring(arrow + 2, line.length() - 1).trim());
 
                     if (currentClass.equals(newName)) continue;
-                    this.remapper.addClassMapping(currentClass, newName);
+                    mappings.add(new String[]{currentClass, newName});
                 } else {
-                    error = "Could not parse class line: " + line;
+                    error = "Unknown line: " + line;
                 }
-            } else if (line.matches(METHOD_LINE)) {
-                if (currentClass == null) {
-                    error = "Method line without class: " + line;
-                } else {
-                    Matcher m = Pattern.compile(METHOD_LINE).matcher(line);
-                    if (m.find()) {
-                        String returnType = this.typeToInternal(m.group(2));
-                        String name = m.group(3);
-                        String descriptor = "(" + this.descriptorToInternal(m.group(4)) + ")";
-                        String newName = m.group(6);
+            } else if (line.startsWith("    ") && arrow != -1) {
+                String member = line.substring(4, arrow).trim();
+                String newName = line.substring(arrow + 2).trim();
+                int space = member.indexOf(' ');
+                int open = member.indexOf('(');
+                if (open != -1) {
+                    //Method lines may have line numbers before the return type and after the parameters
+                    int close = member.indexOf(')', open);
+                    int typeStart = this.skipLineNumbers(member, 0);
+                    space = member.indexOf(' ', typeStart);
+                    if (currentClass == null) {
+                        error = "Method line without class: " + line;
+                    } else if (close == -1 || space == -1 || space > open || space + 1 == open || newName.isEmpty()) {
+                        error = "Could not parse method line: " + line;
+                    } else {
+                        String returnType = this.typeToInternal(member.substring(typeStart, space));
+                        String name = member.substring(space + 1, open);
+                        String descriptor = "(" + this.descriptorToInternal(member.substring(open, close + 1)) + ")";
 
                         if (name.equals(newName)) continue;
-                        this.remapper.addMethodMapping(currentClass, name, descriptor + returnType, newName);
-                    } else {
-                        error = "Could not parse method line: " + line;
+                        mappings.add(new String[]{currentClass, name, descriptor + returnType, newName});
                     }
-                }
-            } else if (line.matches(FIELD_LINE)) {
-                if (currentClass == null) {
-                    error = "Field line without class: " + line;
                 } else {
-                    Matcher m = Pattern.compile(FIELD_LINE).matcher(line);
-                    if (m.find()) {
-                        String descriptor = this.typeToInternal(m.group(1));
-                        String name = m.group(2);
-                        String newName = m.group(3);
+                    if (currentClass == null) {
+                        error = "Field line without class: " + line;
+                    } else if (space <= 0 || space == member.length() - 1 || newName.isEmpty()) {
+                        error = "Could not parse field line: " + line;
+                    } else {
+                        String descriptor = this.typeToInternal(member.substring(0, space));
+                        String name = member.substring(space + 1);
 
                         if (name.equals(newName)) continue;
-                        this.remapper.addFieldMapping(currentClass, name, descriptor, newName);
-                    } else {
-                        error = "Could not parse field line: " + line;
+                        mappings.add(new String[]{currentClass, name, descriptor, newName});
                     }
                 }
             } else {
@@ -77,6 +93,16 @@ public class ProguardMapper extends AMapper {
 
             if (error != null) throw new IllegalStateException(error);
         }
+        return mappings;
+    }
+
+    private int skipLineNumbers(final String member, int index) {
+        while (true) {
+            int end = index;
+            while (end < member.length() && Character.isDigit(member.charAt(end))) end++;
+            if (end == index || end >= member.length() || member.charAt(end) != ':') return index;
+            index = end + 1;
+        }
     }
 
     private String typeToInternal(String type) {
@@ -108,6 +134,9 @@ public class ProguardMapper extends AMapper {
             case "byte":
                 return arrayCount + "B";
 
+            case "char":
+                return arrayCount + "C";
+
             case "void":
                 return arrayCount + "V";
 
@@ -118,10 +147,15 @@ public class ProguardMapper extends AMapper {
 
     private String descriptorToInternal(String descriptor) {
         descriptor = descriptor.substring(1, descriptor.length() - 1);
-        String[] parts = descriptor.split(",");
-        String out = "";
-        for (String part : parts) out += this.typeToInternal(part);
-        return out;
+        if (descriptor.isEmpty()) return "";
+        StringBuilder out = new StringBuilder();
+        int start = 0;
+        int end;
+        while ((end = descriptor.indexOf(',', start)) != -1) {
+            out.append(this.typeToInternal(descriptor.substring(start, end)));
+            start = end + 1;
+        }
+        return out.append(this.typeToInternal(descriptor.substring(start))).toString();
     }
 
 }
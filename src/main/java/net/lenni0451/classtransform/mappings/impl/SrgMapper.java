@@ -3,16 +3,11 @@ package net.lenni0451.classtransform.mappings.impl;
 import net.lenni0451.classtransform.mappings.AMapper;
 import net.lenni0451.classtransform.mappings.MapperConfig;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class SrgMapper extends AMapper {
 
-    private static final String CLASS_LINE = "^CL: (\\S+) (\\S+)$";
-    private static final String FIELD_LINE = "^FD: (\\S+)/(\\S+) (\\S+)/(\\S+)$";
-    private static final String METHOD_LINE = "^MD: (\\S+)/(\\S+) (\\(\\S*\\)\\S+) (\\S+)/(\\S+) (\\(\\S*\\)\\S+)$";
-
     private final File mappingFile;
 
     public SrgMapper(final MapperConfig config, final File mappingFile) {
@@ -21,50 +16,62 @@ public class SrgMapper extends AMapper {
         this.mappingFile = mappingFile;
     }
 
+    @Override
+    protected File getSourceFile() {
+        return this.mappingFile;
+    }
+
     @Override
     protected void init() throws Throwable {
-        for (String line : this.readLines(this.mappingFile)) {
-            if (line.trim().isEmpty()) continue;
+        try (BufferedReader reader = this.openReader(this.mappingFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
 
-            String error = null;
-            if (line.matches(CLASS_LINE)) {
-                Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
-                if (m.find()) {
-                    String obfName = m.group(1);
-                    String deobfName = m.group(2);
+                String error = null;
+                if (line.startsWith("CL: ")) {
+                    String[] parts = this.split(line, 4, ' ', 2);
+                    if (parts != null) {
+                        String obfName = parts[0];
+                        String deobfName = parts[1];
 
-                    this.remapper.addClassMapping(obfName, deobfName);
-                } else {
-                    error = "Could not parse class line: " + line;
-                }
-            } else if (line.matches(FIELD_LINE)) {
-                Matcher m = Pattern.compile(FIELD_LINE).matcher(line);
-                if (m.find()) {
-                    String obfOwner = m.group(1);
-                    String obfName = m.group(2);
-                    String deobfName = m.group(4);
+                        this.remapper.addClassMapping(obfName, deobfName);
+                    } else {
+                        error = "Could not parse class line: " + line;
+                    }
+                } else if (line.startsWith("FD: ")) {
+                    String[] parts = this.split(line, 4, ' ', 2);
+                    int obfSlash = parts == null ? -1 : parts[0].lastIndexOf('/');
+                    int deobfSlash = parts == null ? -1 : parts[1].lastIndexOf('/');
+                    if (obfSlash > 0 && obfSlash < parts[0].length() - 1 && deobfSlash > 0 && deobfSlash < parts[1].length() - 1) {
+                        String obfOwner = parts[0].substring(0, obfSlash);
+                        String obfName = parts[0].substring(obfSlash + 1);
+                        String deobfName = parts[1].substring(deobfSlash + 1);
 
-                    this.remapper.addFieldMapping(obfOwner, obfName, deobfName);
-                } else {
-                    error = "Could not parse field line: " + line;
-                }
-            } else if (line.matches(METHOD_LINE)) {
-                Matcher m = Pattern.compile(METHOD_LINE).matcher(line);
-                if (m.find()) {
-                    String obfOwner = m.group(1);
-                    String obfName = m.group(2);
-                    String obfDesc = m.group(3);
-                    String deobfName = m.group(5);
+                        this.remapper.addFieldMapping(obfOwner, obfName, deobfName);
+                    } else {
+                        error = "Could not parse field line: " + line;
+                    }
+                } else if (line.startsWith("MD: ")) {
+                    String[] parts = this.split(line, 4, ' ', 4);
+                    int obfSlash = parts == null ? -1 : parts[0].lastIndexOf('/');
+                    int deobfSlash = parts == null ? -1 : parts[2].lastIndexOf('/');
+                    if (obfSlash > 0 && obfSlash < parts[0].length() - 1 && deobfSlash > 0 && deobfSlash < parts[2].length() - 1 && parts[1].startsWith("(") && parts[3].startsWith("(")) {
+                        String obfOwner = parts[0].substring(0, obfSlash);
+                        String obfName = parts[0].substring(obfSlash + 1);
+                        String obfDesc = parts[1];
+                        String deobfName = parts[2].substring(deobfSlash + 1);
 
-                    this.remapper.addMethodMapping(obfOwner, obfName, obfDesc, deobfName);
+                        this.remapper.addMethodMapping(obfOwner, obfName, obfDesc, deobfName);
+                    } else {
+                        error = "Could not parse method line: " + line;
+                    }
                 } else {
-                    error = "Could not parse method line: " + line;
+                    error = "Unknown line: " + line;
                 }
-            } else {
-                error = "Unknown line: " + line;
-            }
 
-            if (error != null) throw new IllegalStateException(error);
+                if (error != null) throw new IllegalStateException(error);
+            }
         }
     }
 
@@ -5,19 +5,12 @@ import net.lenni0451.classtransform.mappings.MapperConfig;
 import net.lenni0451.classtransform.utils.mappings.MapRemapper;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class TinyV2Mapper extends AMapper {
 
-    private static final String HEADER_LINE = "tiny\\t(2)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
-    private static final String CLASS_LINE = "^c\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
-    private static final String METHOD_LINE = "^\\tm\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
-    private static final String FIELD_LINE = "^\\tf\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)\\t([^\\t]+)$";
-    private static final String PARAMETER_LINE = "^\\t{2}p\\t\\d+\\t+[^\\t]+$";
-    private static final String COMMENT_LINE = "^\\t+c.*$";
-
     private final File mappingFile;
     private final Type type;
 
@@ -28,74 +21,68 @@ public class TinyV2Mapper extends AMapper {
     }
 
     @Override
-    protected void init() throws Throwable {
-        MapRemapper descriptorRemapper = new MapRemapper();
-        List<String> lines = this.readLines(this.mappingFile);
-        for (String line : lines) {
-            if (this.skipLine(line)) continue;
+    protected File getSourceFile() {
+        return this.mappingFile;
+    }
+
+    @Override
+    protected String getCacheId() {
+        return super.getCacheId() + " " + this.type.name();
+    }
 
-            if (line.matches(CLASS_LINE)) {
-                Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
-                if (m.find()) {
-                    String obfuscated = m.group(1);
-                    String targetName = m.group(1 + this.type.getFromIndex());
+    @Override
+    protected void init() throws Throwable {
+        List<Chunk> chunks = this.parseChunks(this.mappingFile, line -> line.startsWith("c\t"), this::parseChunk);
 
-                    descriptorRemapper.addClassMapping(obfuscated, targetName);
-                } else {
-                    throw new IllegalStateException("Could not parse class line: " + line);
-                }
+        //Descriptors are in the first namespace. If it is not the source namespace they have to be remapped after all classes are known
+        if (this.type.getFromIndex() != 0) {
+            MapRemapper descriptorRemapper = new MapRemapper();
+            for (Chunk chunk : chunks) {
+                for (String[] classMapping : chunk.classes) descriptorRemapper.addClassMapping(classMapping[0], classMapping[1]);
             }
+            Stream<Chunk> stream = this.isParallel(this.mappingFile) ? chunks.parallelStream() : chunks.stream();
+            stream.forEach(chunk -> chunk.remapDescriptors(descriptorRemapper));
         }
+        for (Chunk chunk : chunks) {
+            for (String[] classMapping : chunk.classes) {
+                if (!classMapping[1].equals(classMapping[2])) this.remapper.addClassMapping(classMapping[1], classMapping[2]);
+            }
+            for (String[] member : chunk.members) {
+                if (member[2].startsWith("(")) this.remapper.addMethodMapping(member[0], member[1], member[2], member[3]);
+                else this.remapper.addFieldMapping(member[0], member[1], member[2], member[3]);
+            }
+        }
+    }
 
+    private Chunk parseChunk(final Iterable<String> lines) {
+        Chunk chunk = new Chunk();
         String currentClass = null;
         for (String line : lines) {
             if (this.skipLine(line)) continue;
 
             String error = null;
-            if (line.matches(CLASS_LINE)) {
-                Matcher m = Pattern.compile(CLASS_LINE).matcher(line);
-                if (m.find()) {
-                    currentClass = m.group(1 + this.type.getFromIndex());
-                    String newName = m.group(1 + this.type.getToIndex());
-
-                    if (currentClass.equals(newName)) continue;
-                    this.remapper.addClassMapping(currentClass, newName);
+            if (line.startsWith("c\t")) {
+                String[] parts = this.split(line, 2, '\t', 3);
+                if (parts != null) {
+                    currentClass = parts[this.type.getFromIndex()];
+                    chunk.classes.add(new String[]{parts[0], currentClass, parts[this.type.getToIndex()]});
                 } else {
                     error = "Could not parse class line: " + line;
                 }
-            } else if (line.matches(METHOD_LINE)) {
-                if (currentClass == null) {
-                    error = "Method line without class: " + line;
-                } else {
-                    Matcher m = Pattern.compile(METHOD_LINE).matcher(line);
-                    if (m.find()) {
-                        String descriptor = m.group(1);
-                        String name = m.group(2 + this.type.getFromIndex());
-                        String newName = m.group(2 + this.type.getToIndex());
-
-                        if (name.equals(newName)) continue;
-                        if (!descriptor.isEmpty()) descriptor = descriptorRemapper.mapMethodDesc(descriptor);
-                        this.remapper.addMethodMapping(currentClass, name, descriptor, newName);
-                    } else {
-                        error = "Could not parse method line: " + line;
-                    }
-                }
-            } else if (line.matches(FIELD_LINE)) {
+            } else if (line.startsWith("\tm\t") || line.startsWith("\tf\t")) {
+                boolean method = line.charAt(1) == 'm';
+                String[] parts = this.split(line, 3, '\t', 4);
                 if (currentClass == null) {
-                    error = "Field line without class: " + line;
+                    error = (method ? "Method" : "Field") + " line without class: " + line;
+                } else if (parts != null) {
+                    String descriptor = parts[0];
+                    String name = parts[1 + this.type.getFromIndex()];
+                    String newName = parts[1 + this.type.getToIndex()];
+
+                    if (name.equals(newName)) continue;
+                    chunk.members.add(new String[]{currentClass, name, descriptor, newName});
                 } else {
-                    Matcher m = Pattern.compile(FIELD_LINE).matcher(line);
-                    if (m.find()) {
-                        String descriptor = m.group(1);
-                        String name = m.group(2 + this.type.getFromIndex());
-                        String newName = m.group(2 + this.type.getToIndex());
-
-                        if (name.equals(newName)) continue;
-                        if (!descriptor.isEmpty()) descriptor = descriptorRemapper.mapDesc(descriptor);
-                        this.remapper.addFieldMapping(currentClass, name, descriptor, newName);
-                    } else {
-                        error = "Could not parse field line: " + line;
-                    }
+                    error = "Could not parse " + (method ? "method" : "field") + " line: " + line;
                 }
             } else {
                 error = "Unknown line: " + line;
@@ -103,13 +90,35 @@ public class TinyV2Mapper extends AMapper {
 
             if (error != null) throw new IllegalStateException(error);
         }
+        return chunk;
     }
 
     private boolean skipLine(final String line) {
-        return line.trim().isEmpty() || line.matches(HEADER_LINE) || line.matches(COMMENT_LINE) || line.matches(PARAMETER_LINE);
+        if (line.startsWith("tiny\t")) return true; //Header
+        int tabs = 0;
+        while (tabs < line.length() && line.charAt(tabs) == '\t') tabs++;
+        if (tabs == line.length()) return line.trim().isEmpty();
+        char c = line.charAt(tabs);
+        if (tabs >= 1 && c == 'c' && line.length() > tabs + 1 && line.charAt(tabs + 1) == '\t') return true; //Comment
+        if (tabs >= 2 && (c == 'p' || c == 'v') && line.length() > tabs + 1 && line.charAt(tabs + 1) == '\t') return true; //Parameter or local variable
+        return line.trim().isEmpty();
     }
 
 
+    private static class Chunk {
+        //obfuscated, from, to
+        private final List<String[]> classes = new ArrayList<>();
+        //owner, name, descriptor, new name
+        private final List<String[]> members = new ArrayList<>();
+
+        private void remapDescriptors(final MapRemapper descriptorRemapper) {
+            for (String[] member : this.members) {
+                if (member[2].startsWith("(")) member[2] = descriptorRemapper.mapMethodDesc(member[2]);
+                else member[2] = descriptorRemapper.mapDesc(member[2]);
+            }
+        }
+    }
+
     public enum Type {
         OBFUSCATED_TO_INTERMEDIARY(0, 1),
         OBFUSCATED_TO_CLEAN(0, 2),
@@ -2,10 +2,12 @@ package net.lenni0451.classtransform.targets;
 
 import net.lenni0451.classtransform.annotations.CSlice;
 import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
-import java.util.*;
+import java.util.List;
+import java.util.Map;
 
 public interface IInjectionTarget {
 
@@ -16,7 +18,22 @@ public interface IInjectionTarget {
     }
 
     default List<AbstractInsnNode> getSlice(final Map<String, IInjectionTarget> injectionTargets, final MethodNode method, final CSlice slice) {
-        if (slice == null) return Arrays.asList(method.instructions.toArray());
+        int[] range = this.getSliceRange(injectionTargets, method, slice);
+        return InstructionIndex.get(method).getInstructions(range[0], range[1]);
+    }
+
+    /**
+     * Get the positions of the first and last instruction (both inclusive) of a slice.<br>
+     * The positions are the ones of the {@link InstructionIndex} of the method.
+     *
+     * @param injectionTargets The available injection targets
+     * @param method           The method to get the slice from
+     * @param slice            The slice or null for the entire method
+     * @return An array containing the from and to position
+     */
+    default int[] getSliceRange(final Map<String, IInjectionTarget> injectionTargets, final MethodNode method, final CSlice slice) {
+        InstructionIndex index = InstructionIndex.get(method);
+        if (slice == null) return new int[]{0, index.size()};
 
         int from;
         int to;
@@ -27,28 +44,33 @@ public interface IInjectionTarget {
             if (target == null) throw new IllegalArgumentException("Unknown from target in slice: " + slice.from().value());
             List<AbstractInsnNode> targets = target.getTargets(injectionTargets, method, slice.from(), null);
             if (targets.size() != 1) throw new IllegalArgumentException("From target in slice has more than one match: " + slice.from().value());
-            from = method.instructions.indexOf(targets.get(0));
+            from = index.indexOf(targets.get(0));
         }
         if (slice.to().value().isEmpty()) {
-            to = method.instructions.size();
+            to = index.size();
         } else {
             IInjectionTarget target = injectionTargets.get(slice.to().value());
             if (target == null) throw new IllegalArgumentException("Unknown to target in slice: " + slice.to().value());
             List<AbstractInsnNode> targets = target.getTargets(injectionTargets, method, slice.to(), null);
             if (targets.size() != 1) throw new IllegalArgumentException("To target in slice has more than one match: " + slice.to().value());
-            to = method.instructions.indexOf(targets.get(0));
-        }
-
-        List<AbstractInsnNode> instructions = new ArrayList<>();
-        for (AbstractInsnNode instruction : method.instructions) instructions.add(instruction);
-        Iterator<AbstractInsnNode> it = instructions.iterator();
-        while (it.hasNext()) {
-            AbstractInsnNode instruction = it.next();
-            int index = method.instructions.indexOf(instruction);
-            if (index < from || index > to) it.remove();
+            to = index.indexOf(targets.get(0));
         }
+        return new int[]{from, to};
+    }
 
-        return instructions;
+    /**
+     * Filter the given instructions to only contain the ones inside the slice.
+     *
+     * @param injectionTargets The available injection targets
+     * @param method           The method to get the slice from
+     * @param slice            The slice or null for the entire method
+     * @param instructions     The instructions to filter
+     * @return The filtered instructions
+     */
+    default List<AbstractInsnNode> filterSlice(final Map<String, IInjectionTarget> injectionTargets, final MethodNode method, final CSlice slice, final List<AbstractInsnNode> instructions) {
+        if (slice == null || instructions.isEmpty()) return instructions;
+        int[] range = this.getSliceRange(injectionTargets, method, slice);
+        return InstructionIndex.get(method).filter(instructions, range[0], range[1]);
     }
 
 }
@@ -5,6 +5,7 @@ import net.lenni0451.classtransform.annotations.CTarget;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.MemberDeclaration;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -35,14 +36,11 @@ public class FieldTarget implements IInjectionTarget {
 
         boolean allAccess = this.nonStaticAccess == -1 && this.staticAccess == -1;
         int i = 0;
-        for (AbstractInsnNode instruction : this.getSlice(injectionTargets, method, slice)) {
+        for (AbstractInsnNode instruction : this.filterSlice(injectionTargets, method, slice, InstructionIndex.get(method).getMember(memberDeclaration))) {
             if (!(instruction instanceof FieldInsnNode)) continue;
             if (!allAccess && (this.nonStaticAccess != instruction.getOpcode() && this.staticAccess != instruction.getOpcode())) continue;
-            FieldInsnNode fieldInsnNode = (FieldInsnNode) instruction;
-            if (fieldInsnNode.owner.equals(memberDeclaration.getOwner()) && fieldInsnNode.name.equals(memberDeclaration.getName()) && fieldInsnNode.desc.equals(memberDeclaration.getDesc())) {
-                if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
-                i++;
-            }
+            if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
+            i++;
         }
         return targets;
     }
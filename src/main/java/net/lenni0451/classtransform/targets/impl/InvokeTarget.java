@@ -5,6 +5,7 @@ import net.lenni0451.classtransform.annotations.CTarget;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.MemberDeclaration;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -22,13 +23,10 @@ public class InvokeTarget implements IInjectionTarget {
         if (memberDeclaration == null) return null;
 
         int i = 0;
-        for (AbstractInsnNode instruction : this.getSlice(injectionTargets, method, slice)) {
+        for (AbstractInsnNode instruction : this.filterSlice(injectionTargets, method, slice, InstructionIndex.get(method).getMember(memberDeclaration))) {
             if (!(instruction instanceof MethodInsnNode)) continue;
-            MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
-            if (methodInsnNode.owner.equals(memberDeclaration.getOwner()) && methodInsnNode.name.equals(memberDeclaration.getName()) && methodInsnNode.desc.equals(memberDeclaration.getDesc())) {
-                if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
-                i++;
-            }
+            if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
+            i++;
         }
         return targets;
     }
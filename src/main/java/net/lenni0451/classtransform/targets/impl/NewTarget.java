@@ -3,6 +3,7 @@ package net.lenni0451.classtransform.targets.impl;
 import net.lenni0451.classtransform.annotations.CSlice;
 import net.lenni0451.classtransform.annotations.CTarget;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
@@ -18,8 +19,7 @@ public class NewTarget implements IInjectionTarget {
     public List<AbstractInsnNode> getTargets(Map<String, IInjectionTarget> injectionTargets, MethodNode method, CTarget target, CSlice slice) {
         List<AbstractInsnNode> targets = new ArrayList<>();
         int i = 0;
-        for (AbstractInsnNode instruction : this.getSlice(injectionTargets, method, slice)) {
-            if (instruction.getOpcode() != Opcodes.INVOKESPECIAL) continue;
+        for (AbstractInsnNode instruction : this.filterSlice(injectionTargets, method, slice, InstructionIndex.get(method).getOpcode(Opcodes.INVOKESPECIAL))) {
             MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
             if (!methodInsnNode.owner.equals(target.target())) continue;
             if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
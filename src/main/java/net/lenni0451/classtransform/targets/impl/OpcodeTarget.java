@@ -3,6 +3,7 @@ package net.lenni0451.classtransform.targets.impl;
 import net.lenni0451.classtransform.annotations.CSlice;
 import net.lenni0451.classtransform.annotations.CTarget;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -21,8 +22,7 @@ public class OpcodeTarget implements IInjectionTarget {
         if (opcode == -1) return null;
 
         int i = 0;
-        for (AbstractInsnNode instruction : this.getSlice(injectionTargets, method, slice)) {
-            if (instruction.getOpcode() != opcode) continue;
+        for (AbstractInsnNode instruction : this.filterSlice(injectionTargets, method, slice, InstructionIndex.get(method).getOpcode(opcode))) {
             if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
             i++;
         }
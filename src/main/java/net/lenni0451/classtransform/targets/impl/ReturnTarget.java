@@ -3,6 +3,7 @@ package net.lenni0451.classtransform.targets.impl;
 import net.lenni0451.classtransform.annotations.CSlice;
 import net.lenni0451.classtransform.annotations.CTarget;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -17,11 +18,9 @@ public class ReturnTarget implements IInjectionTarget {
     public List<AbstractInsnNode> getTargets(Map<String, IInjectionTarget> injectionTargets, MethodNode method, CTarget target, CSlice slice) {
         List<AbstractInsnNode> targets = new ArrayList<>();
         int i = 0;
-        for (AbstractInsnNode instruction : this.getSlice(injectionTargets, method, slice)) {
-            if (instruction.getOpcode() >= Opcodes.IRETURN && instruction.getOpcode() <= Opcodes.RETURN) {
-                if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
-                i++;
-            }
+        for (AbstractInsnNode instruction : this.filterSlice(injectionTargets, method, slice, InstructionIndex.get(method).getOpcodes(Opcodes.IRETURN, Opcodes.RETURN))) {
+            if (target.ordinal() == -1 || target.ordinal() == i) targets.add(instruction);
+            i++;
         }
         return targets;
     }
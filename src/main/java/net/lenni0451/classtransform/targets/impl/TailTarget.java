@@ -3,6 +3,7 @@ package net.lenni0451.classtransform.targets.impl;
 import net.lenni0451.classtransform.annotations.CSlice;
 import net.lenni0451.classtransform.annotations.CTarget;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -15,11 +16,9 @@ public class TailTarget implements IInjectionTarget {
 
     @Override
     public List<AbstractInsnNode> getTargets(Map<String, IInjectionTarget> injectionTargets, MethodNode method, CTarget target, CSlice slice) {
-        for (int i = method.instructions.size() - 1; i >= 0; i--) {
-            AbstractInsnNode instruction = method.instructions.get(i);
-            if (instruction.getOpcode() >= Opcodes.IRETURN && instruction.getOpcode() <= Opcodes.RETURN) return Collections.singletonList(instruction);
-        }
-        return Collections.emptyList();
+        List<AbstractInsnNode> returns = InstructionIndex.get(method).getOpcodes(Opcodes.IRETURN, Opcodes.RETURN);
+        if (returns.isEmpty()) return Collections.emptyList();
+        return Collections.singletonList(returns.get(returns.size() - 1));
     }
 
     @Override
@@ -1,28 +1,26 @@
 package net.lenni0451.classtransform.transformer;
 
+import net.lenni0451.classtransform.InjectionCounters;
+import net.lenni0451.classtransform.InjectionLinker;
 import net.lenni0451.classtransform.TransformerManager;
 import net.lenni0451.classtransform.annotations.InjectionInfo;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.utils.annotations.AnnotationParser;
+import net.lenni0451.classtransform.utils.index.MethodIndex;
 import net.lenni0451.classtransform.utils.mappings.Remapper;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
-import org.objectweb.asm.tree.AnnotationNode;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.FieldNode;
-import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.*;
 
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
 
 public abstract class ATransformer {
 
-    private final AtomicInteger id = new AtomicInteger();
-
     /**
      * Transform the target class using the given transformer class
      *
@@ -74,9 +72,158 @@ public abstract class ATransformer {
         method.invisibleAnnotations.add(injectionInfo);
     }
 
-    protected void renameAndCopy(final MethodNode injectionMethod, final MethodNode targetMethod, final ClassNode transformer, final ClassNode transformedClass, final String extra) {
-        this.prepareForCopy(transformer, injectionMethod);
-        injectionMethod.name = targetMethod.name.replace("<", "").replace(">", "") + "$" + extra + this.id.getAndIncrement();
+    /**
+     * Get the instructions which increment the {@link InjectionCounters} counter of an injection site<br>
+     * The instructions don't change the stack and can be inserted anywhere
+     *
+     * @param transformerManager The transformer manager
+     * @param transformer        The transformer {@link ClassNode}
+     * @param handler            The handler {@link MethodNode} called by the site
+     * @param transformedClass   The target {@link ClassNode}
+     * @param target             The target {@link MethodNode}
+     * @param injectionTarget    The description of the injection target
+     * @param index              The index of the site if the target matched multiple instructions
+     * @return The instructions or an empty list if counters are disabled
+     */
+    protected InsnList getCounterInstructions(final TransformerManager transformerManager, final ClassNode transformer, final MethodNode handler, final ClassNode transformedClass, final MethodNode target, final String injectionTarget, final int index) {
+        InsnList instructions = new InsnList();
+        if (!transformerManager.isInjectionCounters()) return instructions;
+
+        int id = InjectionCounters.register(transformer.name, this.getOriginalName(handler), transformedClass.name, target.name + target.desc, injectionTarget, index);
+        instructions.add(new LdcInsnNode(id));
+        instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(InjectionCounters.class), "increment", "(I)V", false));
+        return instructions;
+    }
+
+    /**
+     * Replace all calls to the handler in the target method with invokedynamic instructions linked by the {@link InjectionLinker}<br>
+     * Nothing is changed if dynamic handlers are disabled or the class version does not support invokedynamic
+     *
+     * @param transformerManager The transformer manager
+     * @param transformedClass   The target {@link ClassNode}
+     * @param transformer        The transformer {@link ClassNode}
+     * @param handler            The handler {@link MethodNode}
+     * @param target             The {@link MethodNode} containing the calls
+     * @param fallbacks          The original member for each call in instruction order which is called when the handler is disabled or null
+     */
+    protected void linkHandlerCalls(final TransformerManager transformerManager, final ClassNode transformedClass, final ClassNode transformer, final MethodNode handler, final MethodNode target, final List<Handle> fallbacks) {
+        if (!transformerManager.isDynamicHandlers() || (transformedClass.version & 0xFFFF) < Opcodes.V1_7) return;
+
+        List<MethodInsnNode> calls = new ArrayList<>();
+        for (AbstractInsnNode instruction : target.instructions) {
+            if (!(instruction instanceof MethodInsnNode)) continue;
+            MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
+            if (methodInsnNode.owner.equals(transformedClass.name) && methodInsnNode.name.equals(handler.name) && methodInsnNode.desc.equals(handler.desc)) calls.add(methodInsnNode);
+        }
+        String key = transformer.name + "#" + this.getOriginalName(handler);
+        for (int i = 0; i < calls.size(); i++) {
+            MethodInsnNode call = calls.get(i);
+            Handle fallback = fallbacks == null || fallbacks.size() != calls.size() ? null : fallbacks.get(i);
+            int tag;
+            String desc = call.desc;
+            if (call.getOpcode() == Opcodes.INVOKESTATIC) {
+                tag = Opcodes.H_INVOKESTATIC;
+            } else {
+                if (call.getOpcode() == Opcodes.INVOKEINTERFACE) tag = Opcodes.H_INVOKEINTERFACE;
+                else if (call.getOpcode() == Opcodes.INVOKESPECIAL) tag = Opcodes.H_INVOKESPECIAL;
+                else tag = Opcodes.H_INVOKEVIRTUAL;
+                //The instance the handler is called on is the first argument of the call site
+                desc = "(" + Type.getObjectType(call.owner).getDescriptor() + desc.substring(1);
+            }
+
+            Handle handlerHandle = new Handle(tag, call.owner, call.name, call.desc, call.itf);
+            InvokeDynamicInsnNode invokeDynamic;
+            if (fallback == null) invokeDynamic = new InvokeDynamicInsnNode(call.name, desc, this.getLinkerBootstrap(false), key, handlerHandle);
+            else invokeDynamic = new InvokeDynamicInsnNode(call.name, desc, this.getLinkerBootstrap(true), key, handlerHandle, fallback);
+            target.instructions.set(call, invokeDynamic);
+        }
+    }
+
+    private Handle getLinkerBootstrap(final boolean withFallback) {
+        String desc = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/String;Ljava/lang/invoke/MethodHandle;" + (withFallback ? "Ljava/lang/invoke/MethodHandle;" : "") + ")Ljava/lang/invoke/CallSite;";
+        return new Handle(Opcodes.H_INVOKESTATIC, Type.getInternalName(InjectionLinker.class), "bootstrap", desc, false);
+    }
+
+    private String getOriginalName(final MethodNode handler) {
+        if (handler.invisibleAnnotations != null) {
+            for (AnnotationNode annotation : handler.invisibleAnnotations) {
+                if (annotation.desc.equals(Type.getDescriptor(InjectionInfo.class))) return (String) AnnotationParser.listToMap(annotation.values).get("originalName");
+            }
+        }
+        return handler.name + handler.desc;
+    }
+
+    private boolean isCopyOf(final MethodNode method, final String transformerName, final String originalName) {
+        if (method.invisibleAnnotations == null) return false;
+        for (AnnotationNode annotation : method.invisibleAnnotations) {
+            if (!annotation.desc.equals(Type.getDescriptor(InjectionInfo.class))) continue;
+            Map<String, Object> values = AnnotationParser.listToMap(annotation.values);
+            return transformerName.equals(values.get("transformer")) && originalName.equals(values.get("originalName"));
+        }
+        return false;
+    }
+
+    private String getBaseHandlerName(final ClassNode transformer, final MethodNode handler, final String extra) {
+        String originalName = this.getOriginalName(handler);
+        CRC32 crc = new CRC32();
+        crc.update((transformer.name + "#" + originalName).getBytes(StandardCharsets.UTF_8));
+        return originalName.substring(0, originalName.indexOf('(')) + "$" + extra + "$" + String.format("%08x", crc.getValue());
+    }
+
+    /**
+     * Get the name of a handler copied into the transformed class<br>
+     * The name only depends on the transformer and the handler so the transformed class is the same regardless of the transformation order<br>
+     * If the name is already used in the transformed class a counter is appended
+     *
+     * @param transformer      The transformer {@link ClassNode}
+     * @param handler          The handler {@link MethodNode}
+     * @param transformedClass The target {@link ClassNode}
+     * @param extra            The name of the injection type
+     * @return The name of the copied handler
+     */
+    protected String getHandlerName(final ClassNode transformer, final MethodNode handler, final ClassNode transformedClass, final String extra) {
+        String name = this.getBaseHandlerName(transformer, handler, extra);
+        MethodIndex methodIndex = MethodIndex.get(transformedClass);
+        String uniqueName = name;
+        for (int i = 1; !methodIndex.getMethods(uniqueName).isEmpty(); i++) uniqueName = name + "$" + i;
+        return uniqueName;
+    }
+
+    /**
+     * Find a copy of the handler which was already added to the transformed class<br>
+     * Copies are identified by the name of the transformer and the original name and descriptor of the handler
+     *
+     * @param transformer      The transformer {@link ClassNode}
+     * @param handler          The handler {@link MethodNode}
+     * @param transformedClass The target {@link ClassNode}
+     * @param extra            The name of the injection type
+     * @return The copied handler or null if the handler was not copied yet
+     */
+    protected MethodNode getHandlerCopy(final ClassNode transformer, final MethodNode handler, final ClassNode transformedClass, final String extra) {
+        String originalName = this.getOriginalName(handler);
+        String name = this.getBaseHandlerName(transformer, handler, extra);
+        MethodIndex methodIndex = MethodIndex.get(transformedClass);
+        String candidate = name;
+        for (int i = 1; ; i++) {
+            List<MethodNode> methods = methodIndex.getMethods(candidate);
+            if (methods.isEmpty()) return null;
+            for (MethodNode method : methods) {
+                if (this.isCopyOf(method, transformer.name, originalName)) return method;
+            }
+            candidate = name + "$" + i;
+        }
+    }
+
+    protected void renameAndCopy(final MethodNode injectionMethod, final ClassNode transformer, final ClassNode transformedClass, final String extra) {
+        if (!this.isCopyOf(injectionMethod, transformer.name, this.getOriginalName(injectionMethod))) this.prepareForCopy(transformer, injectionMethod);
+        MethodNode copy = this.getHandlerCopy(transformer, injectionMethod, transformedClass, extra);
+        //If the handler is used for multiple targets all of them call the same copy
+        if (copy != null) {
+            injectionMethod.name = copy.name;
+            return;
+        }
+
+        injectionMethod.name = this.getHandlerName(transformer, injectionMethod, transformedClass, extra);
         Remapper.remapAndAdd(transformer, transformedClass, injectionMethod);
     }
 
@@ -0,0 +1,192 @@
+package net.lenni0451.classtransform.transformer;
+
+import net.lenni0451.classtransform.TransformerBundle;
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.annotations.CShadow;
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.CUpgrade;
+import net.lenni0451.classtransform.annotations.injection.*;
+import net.lenni0451.classtransform.exceptions.InvalidTargetException;
+import net.lenni0451.classtransform.exceptions.TransformerException;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.annotations.AnnotationParser;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AnnotationNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * A transformer class which has been checked and prepared when it was added to the {@link TransformerManager}<br>
+ * All transformer annotations are parsed once when compiling the plan and are then shared with the internal transformers through the {@link AnnotationParser} cache<br>
+ * Errors which don't depend on the transformed class (e.g. unknown injection targets) are thrown when compiling instead of every time a class is transformed
+ */
+public class TransformerPlan {
+
+    private static final Map<String, Class<? extends Annotation>> ANNOTATIONS = new HashMap<>();
+
+    static {
+        for (Class<? extends Annotation> annotation : Arrays.asList(CUpgrade.class, CShadow.class, CASM.class, COverride.class, CWrapCatch.class, CInject.class, CRedirect.class, CModifyConstant.class)) {
+            ANNOTATIONS.put(Type.getDescriptor(annotation), annotation);
+        }
+    }
+
+    /**
+     * Compile a transformer class
+     *
+     * @param transformer      The transformer {@link ClassNode}
+     * @param classProvider    The class provider
+     * @param injectionTargets The names of the available injection targets
+     * @return The compiled plan
+     * @throws IllegalStateException  If the transformer does not have the {@link CTransformer} annotation
+     * @throws InvalidTargetException If an injection uses an unknown injection target
+     * @throws TransformerException   If a handler is invalid regardless of the transformed class
+     */
+    public static TransformerPlan compile(final ClassNode transformer, final IClassProvider classProvider, final Set<String> injectionTargets) {
+        AnnotationNode transformerAnnotation = null;
+        if (transformer.invisibleAnnotations != null) {
+            for (AnnotationNode annotation : transformer.invisibleAnnotations) {
+                if (annotation.desc.equals(Type.getDescriptor(CTransformer.class))) transformerAnnotation = annotation;
+            }
+        }
+        if (transformerAnnotation == null) throw new IllegalStateException("Transformer does not have CTransformer annotation");
+
+        List<String> targets = new ArrayList<>();
+        Map<String, Object> values = AnnotationParser.listToMap(transformerAnnotation.values);
+        if (values.containsKey("value")) {
+            for (Type type : (List<Type>) values.get("value")) targets.add(type.getClassName());
+        }
+        if (values.containsKey("name")) targets.addAll((List<String>) values.get("name"));
+
+        TransformerPlan plan = new TransformerPlan(transformer, targets);
+        plan.parse(transformer.name, transformer.visibleAnnotations, classProvider);
+        plan.parse(transformer.name, transformer.invisibleAnnotations, classProvider);
+        for (FieldNode field : transformer.fields) {
+            plan.parse(field.name + ":" + field.desc, field.visibleAnnotations, classProvider);
+            plan.parse(field.name + ":" + field.desc, field.invisibleAnnotations, classProvider);
+        }
+        for (MethodNode method : transformer.methods) {
+            plan.parse(method.name + method.desc, method.visibleAnnotations, classProvider);
+            plan.parse(method.name + method.desc, method.invisibleAnnotations, classProvider);
+            plan.validate(method, injectionTargets);
+        }
+        return plan;
+    }
+
+    /**
+     * Create a plan for a transformer loaded from a {@link TransformerBundle}<br>
+     * The transformer has already been validated when the bundle was exported and is only parsed when it is used the first time<br>
+     * The annotations of prepared plans are not parsed ahead of time
+     *
+     * @param target   The name of the target class after mapping
+     * @param mapped   If the transformer has already been mapped for the target class
+     * @param bytecode The bytecode of the transformer
+     * @return The prepared plan
+     */
+    public static TransformerPlan prepared(final String target, final boolean mapped, final byte[] bytecode) {
+        return new TransformerPlan(null, Collections.singletonList(target), true, mapped, bytecode);
+    }
+
+
+    private volatile ClassNode transformer;
+    private final List<String> targets;
+    private final boolean prepared;
+    private final boolean mapped;
+    private byte[] bytecode;
+    private final Map<String, List<Annotation>> annotations = new HashMap<>();
+
+    private TransformerPlan(final ClassNode transformer, final List<String> targets) {
+        this(transformer, targets, false, false, null);
+    }
+
+    private TransformerPlan(final ClassNode transformer, final List<String> targets, final boolean prepared, final boolean mapped, final byte[] bytecode) {
+        this.transformer = transformer;
+        this.targets = Collections.unmodifiableList(targets);
+        this.prepared = prepared;
+        this.mapped = mapped;
+        this.bytecode = bytecode;
+    }
+
+    private void parse(final String member, final List<AnnotationNode> annotations, final IClassProvider classProvider) {
+        if (annotations == null) return;
+        for (AnnotationNode annotation : annotations) {
+            Class<? extends Annotation> annotationClass = ANNOTATIONS.get(annotation.desc);
+            if (annotationClass == null) continue;
+            this.annotations.computeIfAbsent(member, m -> new ArrayList<>()).add(AnnotationParser.parse(annotationClass, classProvider, AnnotationParser.listToMap(annotation.values)));
+        }
+    }
+
+    private void validate(final MethodNode method, final Set<String> injectionTargets) {
+        for (Annotation annotation : this.getAnnotations(method.name + method.desc)) {
+            if (annotation instanceof CInject) {
+                for (CTarget target : ((CInject) annotation).target()) this.validateTarget(method, target, injectionTargets);
+                if (!Type.getReturnType(method.desc).equals(Type.VOID_TYPE)) {
+                    throw new TransformerException(method, this.transformer, "must have void return type")
+                            .help(Codifier.of(method).returnType(Type.VOID_TYPE));
+                }
+            } else if (annotation instanceof CRedirect) {
+                this.validateTarget(method, ((CRedirect) annotation).target(), injectionTargets);
+            }
+        }
+    }
+
+    private void validateTarget(final MethodNode method, final CTarget target, final Set<String> injectionTargets) {
+        if (!injectionTargets.contains(target.value().toUpperCase(Locale.ROOT))) {
+            throw new InvalidTargetException(method, this.transformer, target.value(), injectionTargets);
+        }
+    }
+
+    /**
+     * @return The transformer {@link ClassNode}
+     */
+    public ClassNode getTransformer() {
+        if (this.transformer == null) {
+            synchronized (this) {
+                if (this.transformer == null) {
+                    this.transformer = ASMUtils.fromBytes(this.bytecode);
+                    this.bytecode = null;
+                }
+            }
+        }
+        return this.transformer;
+    }
+
+    /**
+     * @return If the plan has been loaded from a {@link TransformerBundle}
+     */
+    public boolean isPrepared() {
+        return this.prepared;
+    }
+
+    /**
+     * @return If the transformer has already been mapped for its target class and must not be passed to the mapper again
+     */
+    public boolean isMapped() {
+        return this.mapped;
+    }
+
+    /**
+     * @return The names of the classes the transformer is applied to (before mapping, prepared plans contain the mapped name)
+     */
+    public List<String> getTargets() {
+        return this.targets;
+    }
+
+    /**
+     * Get the parsed transformer annotations of a member<br>
+     * Methods are identified by their name and descriptor, fields by {@code name:desc} and the class by its internal name
+     *
+     * @param member The member
+     * @return The parsed annotations or an empty list
+     */
+    public List<Annotation> getAnnotations(final String member) {
+        return Collections.unmodifiableList(this.annotations.getOrDefault(member, Collections.emptyList()));
+    }
+
+}
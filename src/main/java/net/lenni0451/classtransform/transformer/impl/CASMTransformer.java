@@ -8,7 +8,10 @@ import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.transformer.types.ARemovingTransformer;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.SlotAllocator;
 import net.lenni0451.classtransform.utils.annotations.ClassDefiner;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
+import net.lenni0451.classtransform.utils.index.MethodIndex;
 import net.lenni0451.classtransform.utils.mappings.Remapper;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import org.objectweb.asm.Handle;
@@ -57,6 +60,9 @@ public class CASMTransformer extends ARemovingTransformer<CASM> {
             } catch (Throwable t) {
                 throw new IllegalStateException("Failed to call isolated method '" + transformerMethod.name + "' of transformer '" + transformer.name + "'", t);
             }
+            InstructionIndex.invalidate(transformedClass);
+            MethodIndex.invalidate(transformedClass);
+            SlotAllocator.invalidate(transformedClass);
         } else {
             if (args.length != 1 || !Type.getType(MethodNode.class).equals(args[0])) {
                 throw new TransformerException(transformerMethod, transformer, "must have one argument (MethodNode)")
@@ -76,6 +82,8 @@ public class CASMTransformer extends ARemovingTransformer<CASM> {
                     } catch (Throwable t) {
                         throw new IllegalStateException("Failed to call isolated method '" + transformerMethod.name + "' of transformer '" + transformer.name + "'", t);
                     }
+                    InstructionIndex.invalidate(target);
+                    SlotAllocator.invalidate(target);
                 }
             }
         }
@@ -10,6 +10,8 @@ import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.transformer.types.ARemovingTargetTransformer;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.SlotAllocator;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -58,7 +60,10 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
                     .help(Codifier.of(target).returnType(Type.VOID_TYPE));
         }
 
-        this.renameAndCopy(transformerMethod, target, transformer, transformedClass, "CInject");
+        CInject.CallbackMode callbackMode = annotation.callback();
+        if (callbackMode == null || callbackMode == CInject.CallbackMode.DEFAULT) callbackMode = transformerManager.getCallbackMode();
+
+        this.renameAndCopy(transformerMethod, transformer, transformedClass, "CInject");
         for (CTarget injectTarget : annotation.target()) {
             IInjectionTarget injectionTarget = injectionTargets.get(injectTarget.value().toUpperCase(Locale.ROOT));
             if (injectionTarget == null) throw new InvalidTargetException(transformerMethod, transformer, injectTarget.target(), injectionTargets.keySet());
@@ -73,32 +78,36 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
                 throw new TransformerException(transformerMethod, transformer, "target '" + injectTarget.value() + "' could not be found")
                         .help("e.g. Ljava/lang/String;toString()V, Ljava/lang/Integer;MAX_VALUE:I");
             }
-            for (AbstractInsnNode instruction : targetInstructions) {
-                InsnList instructions;
+            String targetDescription = injectTarget.target().isEmpty() ? injectTarget.value() : injectTarget.value() + " " + injectTarget.target();
+            for (int i = 0; i < targetInstructions.size(); i++) {
+                AbstractInsnNode instruction = targetInstructions.get(i);
+                InsnList instructions = this.getCounterInstructions(transformerManager, transformer, transformerMethod, transformedClass, target, targetDescription, i);
                 if (this.captureTargets.contains(injectTarget.value().toUpperCase(Locale.ROOT))) {
-                    instructions = this.getReturnInstructions(transformedClass, target, transformerMethod, annotation.cancellable(), !hasCallback);
+                    instructions.add(this.getReturnInstructions(transformedClass, target, transformerMethod, annotation.cancellable(), !hasCallback, callbackMode));
                 } else {
-                    instructions = this.getCallInstructions(transformedClass, target, transformerMethod, annotation.cancellable(), !hasCallback);
+                    instructions.add(this.getCallInstructions(transformedClass, target, transformerMethod, annotation.cancellable(), !hasCallback, callbackMode));
                 }
 
                 if (shift == CTarget.Shift.BEFORE) target.instructions.insertBefore(instruction, instructions);
                 else target.instructions.insert(instruction, instructions);
             }
+            InstructionIndex.invalidate(target);
         }
+        this.linkHandlerCalls(transformerManager, transformedClass, transformer, transformerMethod, target, null);
     }
 
-    private InsnList getCallInstructions(final ClassNode classNode, final MethodNode target, final MethodNode source, final boolean cancellable, final boolean noCallback) {
+    private InsnList getCallInstructions(final ClassNode classNode, final MethodNode target, final MethodNode source, final boolean cancellable, final boolean noCallback, final CInject.CallbackMode callbackMode) {
         boolean isVoid = Type.getReturnType(target.desc).equals(Type.VOID_TYPE);
         boolean isInterface = Modifier.isInterface(classNode.access);
-        int callbackVar = ASMUtils.getFreeVarIndex(target);
+        int callbackVar = SlotAllocator.get(target).scope().allocate(Type.getType(InjectionCallback.class));
 
         InsnList instructions = this.getLoadInstructions(target);
+        boolean reused = this.isReused(callbackMode, cancellable, false);
+        LabelNode callStart = new LabelNode();
         if (!noCallback) { //Create callback instance with cancellable set to the annotation value
-            instructions.add(new TypeInsnNode(Opcodes.NEW, Type.getInternalName(InjectionCallback.class)));
-            instructions.add(new InsnNode(Opcodes.DUP));
-            instructions.add(new InsnNode(cancellable ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
-            instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Type.getInternalName(InjectionCallback.class), "<init>", "(Z)V"));
+            instructions.add(this.getCallbackInstructions(callbackMode, cancellable, null, null));
             instructions.add(new VarInsnNode(Opcodes.ASTORE, callbackVar));
+            instructions.add(callStart);
             instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
         }
         { //Call the actual injection method
@@ -109,6 +118,7 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
                 instructions.add(new MethodInsnNode(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, classNode.name, source.name, source.desc, isInterface));
             }
         }
+        if (reused && !noCallback) instructions.add(this.getReleaseOnThrowInstructions(target, callStart, callbackVar));
         if (cancellable && !noCallback) { //If the callback is cancellable
             //Get isCancelled boolean
             instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
@@ -119,25 +129,28 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
             if (!isVoid) {
                 //If the method has a return value, take the value from the callback
                 instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
-                instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, Type.getInternalName(InjectionCallback.class), "getReturnValue", "()Ljava/lang/Object;"));
-                instructions.add(ASMUtils.getCast(Type.getReturnType(target.desc)));
+                instructions.add(this.getReturnValueInstructions(Type.getReturnType(target.desc)));
+                if (reused) instructions.add(this.getReleaseInstructions(callbackVar));
                 instructions.add(new InsnNode(ASMUtils.getReturnOpcode(Type.getReturnType(target.desc))));
             } else {
                 //If the method is void, simply return
+                if (reused) instructions.add(this.getReleaseInstructions(callbackVar));
                 instructions.add(new InsnNode(Opcodes.RETURN));
             }
             instructions.add(jump);
         }
+        if (reused && !noCallback) instructions.add(this.getReleaseInstructions(callbackVar));
         return instructions;
     }
 
-    private InsnList getReturnInstructions(final ClassNode classNode, final MethodNode target, final MethodNode source, final boolean cancellable, final boolean noCallback) {
+    private InsnList getReturnInstructions(final ClassNode classNode, final MethodNode target, final MethodNode source, final boolean cancellable, final boolean noCallback, final CInject.CallbackMode callbackMode) {
         Type returnType = Type.getReturnType(target.desc);
         boolean isVoid = returnType.equals(Type.VOID_TYPE);
         boolean isInterface = Modifier.isInterface(classNode.access);
-        int callbackVar = ASMUtils.getFreeVarIndex(target);
-        //The return value has to be stored locally. We just take the callbackVar + 1 since callbackVar is the last element on the variable table
-        int returnVar = callbackVar + 2;
+        //The return value has to be stored locally. Both slots are only used by the injected instructions and can be reused by other injections
+        SlotAllocator.Scope scope = SlotAllocator.get(target).scope();
+        int callbackVar = scope.allocate(Type.getType(InjectionCallback.class));
+        int returnVar = isVoid ? -1 : scope.allocate(returnType);
         int returnTypeStoreOpcode = ASMUtils.getStoreOpcode(returnType);
         int returnTypeLoadOpcode = ASMUtils.getLoadOpcode(returnType);
 
@@ -145,19 +158,18 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
         if (!isVoid && !noCallback) { //If the method is not a void, store the return value
             instructions.insert(new VarInsnNode(returnTypeStoreOpcode, returnVar));
         }
+        boolean reused = this.isReused(callbackMode, cancellable, !isVoid);
+        LabelNode callStart = new LabelNode();
         if (!noCallback) { //Create the callback instance
-            instructions.add(new TypeInsnNode(Opcodes.NEW, Type.getInternalName(InjectionCallback.class)));
-            instructions.add(new InsnNode(Opcodes.DUP));
-            instructions.add(new InsnNode(cancellable ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
+            InsnList returnValue = null;
             if (!isVoid) {
-                instructions.add(new VarInsnNode(returnTypeLoadOpcode, returnVar));
-                AbstractInsnNode convertOpcode = ASMUtils.getPrimitiveToObject(returnType);
-                if (convertOpcode != null) instructions.add(convertOpcode);
-                instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Type.getInternalName(InjectionCallback.class), "<init>", "(ZLjava/lang/Object;)V"));
-            } else {
-                instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Type.getInternalName(InjectionCallback.class), "<init>", "(Z)V"));
+                //Primitive return values are passed without boxing them
+                returnValue = new InsnList();
+                returnValue.add(new VarInsnNode(returnTypeLoadOpcode, returnVar));
             }
+            instructions.add(this.getCallbackInstructions(callbackMode, cancellable, returnType, returnValue));
             instructions.add(new VarInsnNode(Opcodes.ASTORE, callbackVar));
+            instructions.add(callStart);
             instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
         }
         { //Call the callback
@@ -169,6 +181,7 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
                 instructions.add(new MethodInsnNode(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, classNode.name, source.name, source.desc, isInterface));
             }
         }
+        if (reused && !noCallback) instructions.add(this.getReleaseOnThrowInstructions(target, callStart, callbackVar));
         if (cancellable && !noCallback) { //If the method is cancellable, check if the callback has been cancelled
             //Get if the callback is cancelled
             instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
@@ -178,18 +191,95 @@ public class CInjectTransformer extends ARemovingTargetTransformer<CInject> {
             if (!isVoid) {
                 //If the method has a return value, take the value from the callback
                 instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
-                instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, Type.getInternalName(InjectionCallback.class), "getReturnValue", "()Ljava/lang/Object;"));
-                instructions.add(ASMUtils.getCast(returnType));
+                instructions.add(this.getReturnValueInstructions(returnType));
+                if (reused) instructions.add(this.getReleaseInstructions(callbackVar));
                 instructions.add(new InsnNode(ASMUtils.getReturnOpcode(Type.getReturnType(target.desc))));
             } else { //If the method is void, simply return
+                if (reused) instructions.add(this.getReleaseInstructions(callbackVar));
                 instructions.add(new InsnNode(Opcodes.RETURN));
             }
             instructions.add(jump);
         }
+        if (reused && !noCallback) instructions.add(this.getReleaseInstructions(callbackVar));
         if (!isVoid && !noCallback) instructions.add(new VarInsnNode(returnTypeLoadOpcode, returnVar));
         return instructions;
     }
 
+    private boolean isReused(final CInject.CallbackMode callbackMode, final boolean cancellable, final boolean hasReturnValue) {
+        return callbackMode == CInject.CallbackMode.REUSE && (cancellable || hasReturnValue);
+    }
+
+    private boolean isPrimitive(final Type type) {
+        return type.getSort() >= Type.BOOLEAN && type.getSort() <= Type.DOUBLE;
+    }
+
+    private InsnList getCallbackInstructions(final CInject.CallbackMode callbackMode, final boolean cancellable, final Type returnType, final InsnList returnValue) {
+        InsnList instructions = new InsnList();
+        String returnValueDesc = returnType == null || !this.isPrimitive(returnType) ? "Ljava/lang/Object;" : returnType.getDescriptor();
+        if (callbackMode != CInject.CallbackMode.ALLOCATE && !cancellable && returnValue == null) {
+            //The callback can't be modified by the handler so the shared instance can be used
+            instructions.add(new FieldInsnNode(Opcodes.GETSTATIC, Type.getInternalName(InjectionCallback.class), "NON_CANCELLABLE", Type.getDescriptor(InjectionCallback.class)));
+        } else if (callbackMode == CInject.CallbackMode.REUSE) {
+            //Get the reusable callback of the current thread
+            instructions.add(new InsnNode(cancellable ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
+            if (returnValue != null) {
+                instructions.add(returnValue);
+                instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(InjectionCallback.class), "acquire", "(Z" + returnValueDesc + ")" + Type.getDescriptor(InjectionCallback.class)));
+            } else {
+                instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, Type.getInternalName(InjectionCallback.class), "acquire", "(Z)" + Type.getDescriptor(InjectionCallback.class)));
+            }
+        } else {
+            instructions.add(new TypeInsnNode(Opcodes.NEW, Type.getInternalName(InjectionCallback.class)));
+            instructions.add(new InsnNode(Opcodes.DUP));
+            instructions.add(new InsnNode(cancellable ? Opcodes.ICONST_1 : Opcodes.ICONST_0));
+            if (returnValue != null) {
+                instructions.add(returnValue);
+                instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Type.getInternalName(InjectionCallback.class), "<init>", "(Z" + returnValueDesc + ")V"));
+            } else {
+                instructions.add(new MethodInsnNode(Opcodes.INVOKESPECIAL, Type.getInternalName(InjectionCallback.class), "<init>", "(Z)V"));
+            }
+        }
+        return instructions;
+    }
+
+    private InsnList getReturnValueInstructions(final Type returnType) {
+        InsnList instructions = new InsnList();
+        if (this.isPrimitive(returnType)) {
+            //Use the typed getter to avoid boxing the return value
+            String name = returnType.getClassName();
+            String getter = "getReturnValue" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, Type.getInternalName(InjectionCallback.class), getter, "()" + returnType.getDescriptor()));
+        } else {
+            instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, Type.getInternalName(InjectionCallback.class), "getReturnValue", "()Ljava/lang/Object;"));
+            instructions.add(ASMUtils.getCast(returnType));
+        }
+        return instructions;
+    }
+
+    private InsnList getReleaseInstructions(final int callbackVar) {
+        InsnList instructions = new InsnList();
+        instructions.add(new VarInsnNode(Opcodes.ALOAD, callbackVar));
+        instructions.add(new MethodInsnNode(Opcodes.INVOKEVIRTUAL, Type.getInternalName(InjectionCallback.class), "release", "()V"));
+        return instructions;
+    }
+
+    private InsnList getReleaseOnThrowInstructions(final MethodNode target, final LabelNode callStart, final int callbackVar) {
+        //Release the reused callback if the handler throws, otherwise the thread would never reuse it again
+        LabelNode callEnd = new LabelNode();
+        LabelNode handler = new LabelNode();
+        LabelNode after = new LabelNode();
+        InsnList instructions = new InsnList();
+        instructions.add(callEnd);
+        instructions.add(new JumpInsnNode(Opcodes.GOTO, after));
+        instructions.add(handler);
+        instructions.add(this.getReleaseInstructions(callbackVar));
+        instructions.add(new InsnNode(Opcodes.ATHROW));
+        instructions.add(after);
+        //The handler has to be checked before the try catch blocks of the target method which may surround the injection
+        target.tryCatchBlocks.add(0, new TryCatchBlockNode(callStart, callEnd, handler, null));
+        return instructions;
+    }
+
     private InsnList getLoadInstructions(final MethodNode methodNode) {
         InsnList instructions = new InsnList();
         Type[] parameter = Type.getArgumentTypes(methodNode.desc);
@@ -11,6 +11,7 @@ import net.lenni0451.classtransform.transformer.types.ARemovingTransformer;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
 import net.lenni0451.classtransform.utils.annotations.IParsedAnnotation;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -76,7 +77,7 @@ public class CModifyConstantTransformer extends ARemovingTransformer<CModifyCons
                     }
                 }
 
-                this.renameAndCopy(transformerMethod, target, transformer, transformedClass, "CModifyConstant");
+                this.renameAndCopy(transformerMethod, transformer, transformedClass, "CModifyConstant");
                 List<AbstractInsnNode> toReplace = new ArrayList<>();
                 for (AbstractInsnNode instruction : this.getSlice(injectionTargets, target, annotation.slice())) {
                     if (hasNullValue) {
@@ -113,6 +114,7 @@ public class CModifyConstantTransformer extends ARemovingTransformer<CModifyCons
                 for (int i = 0; i < toReplace.size(); i++) {
                     AbstractInsnNode instruction = toReplace.get(i);
                     if (annotation.ordinal() != -1 && i != annotation.ordinal()) continue;
+                    target.instructions.insertBefore(instruction, this.getCounterInstructions(transformerManager, transformer, transformerMethod, transformedClass, target, "CONSTANT", i));
 
                     if (!Modifier.isStatic(transformerMethod.access)) {
                         target.instructions.insertBefore(instruction, new VarInsnNode(Opcodes.ALOAD, 0));
@@ -121,6 +123,8 @@ public class CModifyConstantTransformer extends ARemovingTransformer<CModifyCons
                         target.instructions.set(instruction, new MethodInsnNode(Opcodes.INVOKESTATIC, transformedClass.name, transformerMethod.name, transformerMethod.desc, Modifier.isInterface(transformedClass.access)));
                     }
                 }
+                this.linkHandlerCalls(transformerManager, transformedClass, transformer, transformerMethod, target, null);
+                InstructionIndex.invalidate(target);
             }
         }
     }
@@ -10,12 +10,14 @@ import net.lenni0451.classtransform.transformer.impl.credirect.*;
 import net.lenni0451.classtransform.transformer.types.ARemovingTransformer;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
-import org.objectweb.asm.tree.AbstractInsnNode;
-import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -62,10 +64,44 @@ public class CRedirectTransformer extends ARemovingTransformer<CRedirect> {
                             .help("e.g. Ljava/lang/String;toString()V, Ljava/lang/Integer;MAX_VALUE:I");
                 }
 
-                this.renameAndCopy(transformerMethod, target, transformer, transformedClass, "CRedirect");
+                this.renameAndCopy(transformerMethod, transformer, transformedClass, "CRedirect");
+                String targetDescription = annotation.target().value() + " " + annotation.target().target();
+                for (int i = 0; i < injectionInstructions.size(); i++) {
+                    target.instructions.insertBefore(injectionInstructions.get(i), this.getCounterInstructions(transformerManager, transformer, transformerMethod, transformedClass, target, targetDescription, i));
+                }
+                List<Handle> fallbacks = this.getFallbacks(injectionInstructions);
                 iRedirectTarget.inject(transformedClass, target, transformer, transformerMethod, injectionInstructions);
+                this.linkHandlerCalls(transformerManager, transformedClass, transformer, transformerMethod, target, fallbacks);
+                InstructionIndex.invalidate(target);
+            }
+        }
+    }
+
+    private List<Handle> getFallbacks(final List<AbstractInsnNode> injectionInstructions) {
+        //The original members are called when a dynamically linked redirect is disabled
+        List<Handle> fallbacks = new ArrayList<>();
+        for (AbstractInsnNode instruction : injectionInstructions) {
+            if (instruction instanceof MethodInsnNode) {
+                MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
+                int tag;
+                if (methodInsnNode.getOpcode() == Opcodes.INVOKESTATIC) tag = Opcodes.H_INVOKESTATIC;
+                else if (methodInsnNode.getOpcode() == Opcodes.INVOKEVIRTUAL) tag = Opcodes.H_INVOKEVIRTUAL;
+                else if (methodInsnNode.getOpcode() == Opcodes.INVOKEINTERFACE) tag = Opcodes.H_INVOKEINTERFACE;
+                else return null; //Super calls and constructors can't be called from a method handle
+                fallbacks.add(new Handle(tag, methodInsnNode.owner, methodInsnNode.name, methodInsnNode.desc, methodInsnNode.itf));
+            } else if (instruction instanceof FieldInsnNode) {
+                FieldInsnNode fieldInsnNode = (FieldInsnNode) instruction;
+                int tag;
+                if (fieldInsnNode.getOpcode() == Opcodes.GETFIELD) tag = Opcodes.H_GETFIELD;
+                else if (fieldInsnNode.getOpcode() == Opcodes.GETSTATIC) tag = Opcodes.H_GETSTATIC;
+                else if (fieldInsnNode.getOpcode() == Opcodes.PUTFIELD) tag = Opcodes.H_PUTFIELD;
+                else tag = Opcodes.H_PUTSTATIC;
+                fallbacks.add(new Handle(tag, fieldInsnNode.owner, fieldInsnNode.name, fieldInsnNode.desc, false));
+            } else {
+                return null;
             }
         }
+        return fallbacks;
     }
 
 }
@@ -22,13 +22,10 @@ public class CShadowTransformer extends ATransformer {
 
     @Override
     public void transform(TransformerManager transformerManager, IClassProvider classProvider, Map<String, IInjectionTarget> injectionTargets, ClassNode transformedClass, ClassNode transformer) {
-        MapRemapper remapper = new MapRemapper();
+        //The shadowed members are remapped when the members of the transformer are copied into the transformed class
+        MapRemapper remapper = Remapper.getCopyRemapper(transformer, transformedClass);
         this.checkFields(transformedClass, transformer, classProvider, remapper);
         this.checkMethods(transformedClass, transformer, classProvider, remapper);
-
-        if (remapper.isEmpty()) return;
-        ClassNode mappedNode = Remapper.remap(transformer, remapper);
-        Remapper.merge(transformer, mappedNode);
     }
 
     private void checkFields(final ClassNode target, final ClassNode transformer, final IClassProvider classProvider, final MapRemapper remapper) {
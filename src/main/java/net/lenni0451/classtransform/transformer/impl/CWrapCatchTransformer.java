@@ -8,6 +8,7 @@ import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.transformer.types.ARemovingTargetTransformer;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
@@ -45,12 +46,13 @@ public class CWrapCatchTransformer extends ARemovingTargetTransformer<CWrapCatch
             }
             boolean cast = !targetReturnType.equals(returnType);
             Type exceptionType = args[0];
-            this.renameAndCopy(transformerMethod, target, transformer, transformedClass, "CWrapCatch");
+            this.renameAndCopy(transformerMethod, transformer, transformedClass, "CWrapCatch");
 
             LabelNode start = new LabelNode();
             LabelNode end_handler = new LabelNode();
             target.instructions.insertBefore(target.instructions.getFirst(), start);
             target.instructions.add(end_handler);
+            target.instructions.add(this.getCounterInstructions(transformerManager, transformer, transformerMethod, transformedClass, target, "CATCH " + exceptionType.getInternalName(), 0));
             if (Modifier.isStatic(target.access)) {
                 target.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, transformedClass.name, transformerMethod.name, transformerMethod.desc, Modifier.isInterface(transformedClass.access)));
             } else {
@@ -65,7 +67,8 @@ public class CWrapCatchTransformer extends ARemovingTargetTransformer<CWrapCatch
         } else {
             List<AbstractInsnNode> targetInstructions = injectionTargets.get("INVOKE").getTargets(injectionTargets, target, new MethodCTarget(annotation.target(), annotation.ordinal()), annotation.slice());
             boolean copied = false;
-            for (AbstractInsnNode instruction : targetInstructions) {
+            for (int i = 0; i < targetInstructions.size(); i++) {
+                AbstractInsnNode instruction = targetInstructions.get(i);
                 Type instructionReturnType = Type.getReturnType(((MethodInsnNode) instruction).desc);
                 if (!ASMUtils.compareType(instructionReturnType, returnType)) {
                     throw new TransformerException(transformerMethod, transformer, "must have the same return type as the target instruction")
@@ -74,7 +77,7 @@ public class CWrapCatchTransformer extends ARemovingTargetTransformer<CWrapCatch
                 boolean cast = !instructionReturnType.equals(returnType);
                 Type exceptionType = args[0];
                 if (!copied) {
-                    this.renameAndCopy(transformerMethod, target, transformer, transformedClass, "CWrapCatch");
+                    this.renameAndCopy(transformerMethod, transformer, transformedClass, "CWrapCatch");
                     copied = true;
                 }
 
@@ -85,6 +88,7 @@ public class CWrapCatchTransformer extends ARemovingTargetTransformer<CWrapCatch
                 target.instructions.insertBefore(instruction, start);
                 insertAfter.add(new JumpInsnNode(Opcodes.GOTO, jumpAfter));
                 insertAfter.add(end_handler);
+                insertAfter.add(this.getCounterInstructions(transformerManager, transformer, transformerMethod, transformedClass, target, "CATCH " + exceptionType.getInternalName() + " " + annotation.target(), i));
                 if (Modifier.isStatic(target.access)) {
                     insertAfter.add(new MethodInsnNode(Opcodes.INVOKESTATIC, transformedClass.name, transformerMethod.name, transformerMethod.desc, Modifier.isInterface(transformedClass.access)));
                 } else {
@@ -100,6 +104,7 @@ public class CWrapCatchTransformer extends ARemovingTargetTransformer<CWrapCatch
                 target.tryCatchBlocks.add(new TryCatchBlockNode(start, end_handler, end_handler, exceptionType.getInternalName()));
             }
         }
+        InstructionIndex.invalidate(target);
     }
 
 
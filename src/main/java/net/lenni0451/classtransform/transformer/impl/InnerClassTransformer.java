@@ -26,7 +26,7 @@ public class InnerClassTransformer extends ATransformer {
                 for (FieldNode field : transformedClass.fields) field.access = ASMUtils.setAccess(field.access, Opcodes.ACC_PUBLIC);
                 transformedClass.access = ASMUtils.setAccess(transformedClass.access, Opcodes.ACC_PUBLIC);
 
-                return Remapper.remap(transformer.name, injectedClass.name, transformedClass);
+                return Remapper.remap(transformedClass, Remapper.getCopyRemapper(transformer, injectedClass));
             });
         }
     }
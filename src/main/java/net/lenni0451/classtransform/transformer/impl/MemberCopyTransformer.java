@@ -4,6 +4,8 @@ import net.lenni0451.classtransform.TransformerManager;
 import net.lenni0451.classtransform.targets.IInjectionTarget;
 import net.lenni0451.classtransform.transformer.ATransformer;
 import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.SlotAllocator;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
 import net.lenni0451.classtransform.utils.mappings.Remapper;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import org.objectweb.asm.MethodVisitor;
@@ -93,25 +95,27 @@ public class MemberCopyTransformer extends ATransformer {
                     InsnList insns = fieldInitializers.remove(fieldInsn.owner + ":" + fieldInsn.name + fieldInsn.desc);
                     if (insns == null) continue;
 
-                    to.instructions.insert(instruction, this.remapInstructions(insns, fromClass.name, toClass.name));
+                    to.instructions.insert(instruction, this.remapInstructions(insns, fromClass, toClass));
                 }
             }
             for (AbstractInsnNode instruction : to.instructions.toArray()) {
                 if (instruction.getOpcode() == Opcodes.RETURN) {
                     for (InsnList instructions : fieldInitializers.values()) {
-                        to.instructions.insertBefore(instruction, this.remapInstructions(instructions, fromClass.name, toClass.name));
+                        to.instructions.insertBefore(instruction, this.remapInstructions(instructions, fromClass, toClass));
                     }
                 }
             }
         }
+        InstructionIndex.invalidate(to);
+        SlotAllocator.invalidate(to);
     }
 
-    private InsnList remapInstructions(final InsnList instructions, final String fromName, final String toName) {
+    private InsnList remapInstructions(final InsnList instructions, final ClassNode fromClass, final ClassNode toClass) {
         ClassNode tempClassHolder = new ClassNode();
         tempClassHolder.visit(0, 0, "temp", null, "java/lang/Object", null);
         MethodNode tempMethodHolder = new MethodNode(0, "temp", "()V", null, null);
         tempMethodHolder.instructions = instructions;
-        Remapper.remapAndAdd(fromName, toName, tempClassHolder, tempMethodHolder);
+        Remapper.remapAndAdd(fromClass.name, Remapper.getCopyRemapper(fromClass, toClass), tempClassHolder, tempMethodHolder);
         return tempClassHolder.methods.get(0).instructions;
     }
 
@@ -3,6 +3,8 @@ package net.lenni0451.classtransform.transformer.impl.credirect;
 import net.lenni0451.classtransform.exceptions.TransformerException;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.SlotAllocator;
+import net.lenni0451.classtransform.utils.StackAnalyzer;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
@@ -14,6 +16,7 @@ public class CRedirectInvoke implements IRedirectTarget {
 
     @Override
     public void inject(ClassNode targetClass, MethodNode targetMethod, ClassNode transformer, MethodNode transformerMethod, List<AbstractInsnNode> targetNodes) {
+        StackAnalyzer stackAnalyzer = Modifier.isStatic(transformerMethod.access) ? null : StackAnalyzer.analyze(targetClass, targetMethod);
         for (AbstractInsnNode instruction : targetNodes) {
             MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
 
@@ -41,16 +44,20 @@ public class CRedirectInvoke implements IRedirectTarget {
                 }
             }
 
-            int freeVarIndex = ASMUtils.getFreeVarIndex(targetMethod);
-            InsnList[] loadStoreOpcodes = getLoadStoreOpcodes(methodInsnNode.getOpcode() == Opcodes.INVOKESTATIC ? null : methodInsnNode.owner, methodInsnNode.desc, freeVarIndex);
-            InsnList storeOpcodes = loadStoreOpcodes[0];
-            InsnList loadOpcodes = loadStoreOpcodes[1];
-
             if (cast) targetMethod.instructions.insert(methodInsnNode, new TypeInsnNode(Opcodes.CHECKCAST, Type.getReturnType(methodInsnNode.desc).getInternalName()));
             if (!Modifier.isStatic(transformerMethod.access)) {
-                targetMethod.instructions.insertBefore(methodInsnNode, storeOpcodes);
-                targetMethod.instructions.insertBefore(methodInsnNode, new VarInsnNode(Opcodes.ALOAD, 0));
-                targetMethod.instructions.insertBefore(methodInsnNode, loadOpcodes);
+                String owner = methodInsnNode.getOpcode() == Opcodes.INVOKESTATIC ? null : methodInsnNode.owner;
+                AbstractInsnNode argumentStart = stackAnalyzer == null ? null : stackAnalyzer.getArgumentStart(methodInsnNode, this.getStackCount(owner, methodInsnNode.desc));
+                if (argumentStart != null) {
+                    targetMethod.instructions.insertBefore(argumentStart, new VarInsnNode(Opcodes.ALOAD, 0));
+                } else {
+                    //Store the arguments in locals if the instance can't be pushed before them
+                    int freeVarIndex = SlotAllocator.get(targetMethod).scope().allocate(this.getStoreSize(owner, methodInsnNode.desc));
+                    InsnList[] loadStoreOpcodes = getLoadStoreOpcodes(owner, methodInsnNode.desc, freeVarIndex);
+                    targetMethod.instructions.insertBefore(methodInsnNode, loadStoreOpcodes[0]);
+                    targetMethod.instructions.insertBefore(methodInsnNode, new VarInsnNode(Opcodes.ALOAD, 0));
+                    targetMethod.instructions.insertBefore(methodInsnNode, loadStoreOpcodes[1]);
+                }
                 targetMethod.instructions.set(methodInsnNode, new MethodInsnNode(Modifier.isInterface(targetClass.access) ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, targetClass.name, transformerMethod.name, transformerMethod.desc));
             } else {
                 targetMethod.instructions.set(methodInsnNode, new MethodInsnNode(Opcodes.INVOKESTATIC, targetClass.name, transformerMethod.name, transformerMethod.desc, Modifier.isInterface(targetClass.access)));
@@ -3,6 +3,8 @@ package net.lenni0451.classtransform.transformer.impl.credirect;
 import net.lenni0451.classtransform.exceptions.TransformerException;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.SlotAllocator;
+import net.lenni0451.classtransform.utils.StackAnalyzer;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
@@ -14,6 +16,7 @@ public class CRedirectNew implements IRedirectTarget {
 
     @Override
     public void inject(ClassNode targetClass, MethodNode targetMethod, ClassNode transformer, MethodNode transformerMethod, List<AbstractInsnNode> targetNodes) {
+        StackAnalyzer stackAnalyzer = StackAnalyzer.analyze(targetClass, targetMethod);
         for (AbstractInsnNode instruction : targetNodes) {
             MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
 
@@ -34,20 +37,25 @@ public class CRedirectNew implements IRedirectTarget {
                 }
             }
 
-            int freeVarIndex = ASMUtils.getFreeVarIndex(targetMethod);
-            InsnList[] loadStoreOpcodes = getLoadStoreOpcodes(null, methodInsnNode.desc, freeVarIndex);
-            InsnList storeOpcodes = loadStoreOpcodes[0];
-            InsnList loadOpcodes = loadStoreOpcodes[1];
-
-            targetMethod.instructions.insertBefore(methodInsnNode, storeOpcodes);
-            targetMethod.instructions.insertBefore(methodInsnNode, new InsnNode(Opcodes.POP2));
             if (cast) targetMethod.instructions.insert(methodInsnNode, new TypeInsnNode(Opcodes.CHECKCAST, Type.getReturnType(methodInsnNode.desc).getInternalName()));
+            //The uninitialized object and its copy are below the arguments
+            AbstractInsnNode newInsn = stackAnalyzer == null ? null : stackAnalyzer.getArgumentStart(methodInsnNode, this.getStackCount(null, methodInsnNode.desc) + 2);
+            if (newInsn != null && newInsn.getOpcode() == Opcodes.NEW && newInsn.getNext() != null && newInsn.getNext().getOpcode() == Opcodes.DUP) {
+                if (!Modifier.isStatic(transformerMethod.access)) targetMethod.instructions.insertBefore(newInsn, new VarInsnNode(Opcodes.ALOAD, 0));
+                targetMethod.instructions.remove(newInsn.getNext());
+                targetMethod.instructions.remove(newInsn);
+            } else {
+                //Store the arguments in locals and pop the uninitialized object if the instructions creating it can't be removed
+                int freeVarIndex = SlotAllocator.get(targetMethod).scope().allocate(this.getStoreSize(null, methodInsnNode.desc));
+                InsnList[] loadStoreOpcodes = getLoadStoreOpcodes(null, methodInsnNode.desc, freeVarIndex);
+                targetMethod.instructions.insertBefore(methodInsnNode, loadStoreOpcodes[0]);
+                targetMethod.instructions.insertBefore(methodInsnNode, new InsnNode(Opcodes.POP2));
+                if (!Modifier.isStatic(transformerMethod.access)) targetMethod.instructions.insertBefore(methodInsnNode, new VarInsnNode(Opcodes.ALOAD, 0));
+                targetMethod.instructions.insertBefore(methodInsnNode, loadStoreOpcodes[1]);
+            }
             if (!Modifier.isStatic(transformerMethod.access)) {
-                targetMethod.instructions.insertBefore(methodInsnNode, new VarInsnNode(Opcodes.ALOAD, 0));
-                targetMethod.instructions.insertBefore(methodInsnNode, loadOpcodes);
                 targetMethod.instructions.set(methodInsnNode, new MethodInsnNode(Modifier.isInterface(targetClass.access) ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, targetClass.name, transformerMethod.name, transformerMethod.desc));
             } else {
-                targetMethod.instructions.insertBefore(methodInsnNode, loadOpcodes);
                 targetMethod.instructions.set(methodInsnNode, new MethodInsnNode(Opcodes.INVOKESTATIC, targetClass.name, transformerMethod.name, transformerMethod.desc, Modifier.isInterface(targetClass.access)));
             }
         }
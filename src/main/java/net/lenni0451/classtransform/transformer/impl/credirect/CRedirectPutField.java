@@ -3,6 +3,8 @@ package net.lenni0451.classtransform.transformer.impl.credirect;
 import net.lenni0451.classtransform.exceptions.TransformerException;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import net.lenni0451.classtransform.utils.Codifier;
+import net.lenni0451.classtransform.utils.SlotAllocator;
+import net.lenni0451.classtransform.utils.StackAnalyzer;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
@@ -14,6 +16,7 @@ public class CRedirectPutField implements IRedirectTarget {
 
     @Override
     public void inject(ClassNode targetClass, MethodNode targetMethod, ClassNode transformer, MethodNode transformerMethod, List<AbstractInsnNode> targetNodes) {
+        StackAnalyzer stackAnalyzer = Modifier.isStatic(transformerMethod.access) ? null : StackAnalyzer.analyze(targetClass, targetMethod);
         for (AbstractInsnNode instruction : targetNodes) {
             FieldInsnNode fieldInsnNode = (FieldInsnNode) instruction;
 
@@ -37,22 +40,27 @@ public class CRedirectPutField implements IRedirectTarget {
                 }
             }
 
-            int ownerStore = ASMUtils.getFreeVarIndex(targetMethod);
-            int valueStore = ownerStore + 1;
-
-            if (fieldInsnNode.getOpcode() == Opcodes.PUTFIELD) {
-                targetMethod.instructions.insertBefore(instruction, new VarInsnNode(ASMUtils.getStoreOpcode(originalType), valueStore));
-                targetMethod.instructions.insertBefore(instruction, new VarInsnNode(ASMUtils.getStoreOpcode(originalOwnerType), ownerStore));
-            } else {
-                targetMethod.instructions.insertBefore(instruction, new VarInsnNode(ASMUtils.getStoreOpcode(originalType), valueStore));
-            }
             if (!Modifier.isStatic(transformerMethod.access)) {
-                targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(Opcodes.ALOAD, 0));
-            }
-            if (fieldInsnNode.getOpcode() == Opcodes.PUTFIELD) {
-                targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(ASMUtils.getLoadOpcode(originalOwnerType), ownerStore));
+                AbstractInsnNode argumentStart = stackAnalyzer == null ? null : stackAnalyzer.getArgumentStart(fieldInsnNode, fieldInsnNode.getOpcode() == Opcodes.PUTFIELD ? 2 : 1);
+                if (argumentStart != null) {
+                    targetMethod.instructions.insertBefore(argumentStart, new VarInsnNode(Opcodes.ALOAD, 0));
+                } else {
+                    //Store the owner and value in locals if the instance can't be pushed before them
+                    SlotAllocator.Scope scope = SlotAllocator.get(targetMethod).scope();
+                    int ownerStore = scope.allocate(originalOwnerType);
+                    int valueStore = scope.allocate(originalType);
+
+                    targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(ASMUtils.getStoreOpcode(originalType), valueStore));
+                    if (fieldInsnNode.getOpcode() == Opcodes.PUTFIELD) {
+                        targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(ASMUtils.getStoreOpcode(originalOwnerType), ownerStore));
+                    }
+                    targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(Opcodes.ALOAD, 0));
+                    if (fieldInsnNode.getOpcode() == Opcodes.PUTFIELD) {
+                        targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(ASMUtils.getLoadOpcode(originalOwnerType), ownerStore));
+                    }
+                    targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(ASMUtils.getLoadOpcode(originalType), valueStore));
+                }
             }
-            targetMethod.instructions.insertBefore(fieldInsnNode, new VarInsnNode(ASMUtils.getLoadOpcode(originalType), valueStore));
             if (Modifier.isStatic(transformerMethod.access)) {
                 targetMethod.instructions.set(fieldInsnNode, new MethodInsnNode(Opcodes.INVOKESTATIC, targetClass.name, transformerMethod.name, transformerMethod.desc, Modifier.isInterface(targetClass.access)));
             } else {
@@ -10,6 +10,16 @@ public interface IRedirectTarget {
 
     void inject(final ClassNode targetClass, final MethodNode targetMethod, final ClassNode transformer, final MethodNode transformerMethod, final List<AbstractInsnNode> targetNodes);
 
+    default int getStoreSize(final String owner, final String desc) {
+        int size = owner == null ? 0 : 1;
+        for (Type argumentType : Type.getArgumentTypes(desc)) size += argumentType.getSize();
+        return size;
+    }
+
+    default int getStackCount(final String owner, final String desc) {
+        return (owner == null ? 0 : 1) + Type.getArgumentTypes(desc).length;
+    }
+
     default InsnList[] getLoadStoreOpcodes(final String owner, final String desc, int freeVarIndex) {
         InsnList storeOpcodes = new InsnList();
         InsnList loadOpcodes = new InsnList();
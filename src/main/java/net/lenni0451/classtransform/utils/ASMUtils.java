@@ -1,20 +1,31 @@
 package net.lenni0451.classtransform.utils;
 
+import net.lenni0451.classtransform.utils.index.MethodIndex;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 import net.lenni0451.classtransform.utils.tree.TreeClassWriter;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ASMUtils {
 
+    private static final Pattern MEMBER_DECLARATION_PATTERN = Pattern.compile("^L([^;]+);([^(:]+):?(\\(?[^\\n]+)$");
+    //The caches are shared by all transformer managers and bounded so they don't grow with every loaded transformer
+    private static final Map<String, MemberDeclaration> MEMBER_DECLARATIONS = lruCache(4096);
+    private static final Map<String, Pattern> COMBI_PATTERNS = lruCache(4096);
+
     /**
      * Get a {@link ClassNode} from the raw bytecode of a class
      *
@@ -87,13 +98,12 @@ public class ASMUtils {
         if (combi.contains("(")) {
             String name = combi.substring(0, combi.indexOf("("));
             String desc = combi.substring(combi.indexOf("("));
-            MethodNode method = getMethod(classNode, name, desc);
+            MethodNode method = MethodIndex.get(classNode).getMethod(name, desc);
             if (method != null) methods.add(method);
+        } else if (!combi.contains("*")) {
+            methods.addAll(MethodIndex.get(classNode).getMethods(combi));
         } else {
-            String regex = combiToRegex(combi);
-            for (MethodNode method : classNode.methods) {
-                if (method.name.matches(regex)) methods.add(method);
-            }
+            methods.addAll(MethodIndex.get(classNode).getMethods(getCombiPattern(combi)));
         }
         return methods;
     }
@@ -116,9 +126,9 @@ public class ASMUtils {
             FieldNode field = getField(classNode, name, desc);
             if (field != null) fields.add(field);
         } else {
-            String regex = combiToRegex(combi);
+            Pattern pattern = getCombiPattern(combi);
             for (FieldNode field : classNode.fields) {
-                if (field.name.matches(regex)) fields.add(field);
+                if (pattern.matcher(field.name).matches()) fields.add(field);
             }
         }
         return fields;
@@ -152,6 +162,18 @@ public class ASMUtils {
         return Pattern.quote(combi);
     }
 
+    /**
+     * Get the compiled pattern of a field or method name matching name and descriptor<br>
+     * The most recently used patterns are cached
+     *
+     * @param combi The name of a field or method
+     * @return The compiled pattern
+     * @see #combiToRegex(String)
+     */
+    public static Pattern getCombiPattern(final String combi) {
+        return COMBI_PATTERNS.computeIfAbsent(combi, c -> Pattern.compile(combiToRegex(c)));
+    }
+
     /**
      * Check if the access is lower than another
      *
@@ -362,15 +384,18 @@ public class ASMUtils {
     }
 
     /**
-     * Split an injection declaration into owner, name and desc
+     * Split an injection declaration into owner, name and desc<br>
+     * The most recently parsed declarations are cached
      *
      * @param injectDeclaration The injection declaration
      * @return The owner, name and desc
      */
     public static MemberDeclaration splitMemberDeclaration(final String injectDeclaration) {
-        Matcher matcher = Pattern.compile("^L([^;]+);([^(:]+):?(\\(?[^\\n]+)$").matcher(injectDeclaration);
-        if (matcher.find()) return new MemberDeclaration(matcher.group(1), matcher.group(2), matcher.group(3));
-        return null;
+        return MEMBER_DECLARATIONS.computeIfAbsent(injectDeclaration, declaration -> {
+            Matcher matcher = MEMBER_DECLARATION_PATTERN.matcher(declaration);
+            if (matcher.find()) return new MemberDeclaration(matcher.group(1), matcher.group(2), matcher.group(3));
+            return null;
+        });
     }
 
     /**
@@ -499,4 +524,38 @@ public class ASMUtils {
         return clonedMethod;
     }
 
+    /**
+     * Update the max stack and max locals of a modified method<br>
+     * The max values are otherwise only updated when writing the class, but analyzers need them
+     *
+     * @param owner  The class containing the method
+     * @param method The method to update
+     */
+    public static void computeMaxs(final ClassNode owner, final MethodNode method) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(owner.version, owner.access, owner.name, null, owner.superName, null);
+        MethodVisitor methodVisitor = writer.visitMethod(method.access, method.name, method.desc, null, null);
+        method.accept(new MethodVisitor(Opcodes.ASM9, methodVisitor) {
+            @Override
+            public void visitFrame(int type, int numLocal, Object[] local, int numStack, Object[] stack) {
+            }
+        });
+        writer.visitEnd();
+
+        ClassNode classNode = new ClassNode();
+        new ClassReader(writer.toByteArray()).accept(classNode, ClassReader.SKIP_DEBUG);
+        MethodNode computed = classNode.methods.get(0);
+        method.maxStack = computed.maxStack;
+        method.maxLocals = Math.max(method.maxLocals, computed.maxLocals);
+    }
+
+    private static <V> Map<String, V> lruCache(final int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<String, V>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+                return this.size() > maxSize;
+            }
+        });
+    }
+
 }
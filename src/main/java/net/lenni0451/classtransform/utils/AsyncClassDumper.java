@@ -0,0 +1,258 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.transformer.IPostTransformer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A post transformer which dumps the transformed classes to a directory or zip file on a background thread<br>
+ * The classes are queued in a bounded queue and written in batches so no file I/O is done by the transforming thread<br>
+ * The {@link OverflowPolicy} decides what happens if the queue is full<br>
+ * All queued classes are written when the dumper is closed or the JVM shuts down<br>
+ * Add the dumper using {@link TransformerManager#addPostTransformConsumer(IPostTransformer)}
+ */
+public class AsyncClassDumper implements IPostTransformer, AutoCloseable {
+
+    /**
+     * Create a dumper writing the classes to a directory<br>
+     * Classes which are transformed multiple times are overwritten
+     *
+     * @param directory The output directory
+     * @param capacity  The maximum amount of queued classes
+     * @param policy    The policy used when the queue is full
+     * @return The dumper
+     */
+    public static AsyncClassDumper toDirectory(final File directory, final int capacity, final OverflowPolicy policy) {
+        return new AsyncClassDumper(directory, null, capacity, policy);
+    }
+
+    /**
+     * Create a dumper writing the classes to a zip file<br>
+     * Only the first version of classes which are transformed multiple times is written
+     *
+     * @param file     The output zip file
+     * @param capacity The maximum amount of queued classes
+     * @param policy   The policy used when the queue is full
+     * @return The dumper
+     * @throws IOException If the zip file could not be created
+     */
+    public static AsyncClassDumper toZip(final File file, final int capacity, final OverflowPolicy policy) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) Files.createDirectories(directory.toPath());
+        return new AsyncClassDumper(null, new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()))), capacity, policy);
+    }
+
+
+    private final File directory;
+    private final ZipOutputStream zip;
+    private final Set<String> zipEntries = new HashSet<>();
+    private final OverflowPolicy policy;
+    private final Semaphore capacity;
+    private final Queue<DumpedClass> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    private AsyncClassDumper(final File directory, final ZipOutputStream zip, final int capacity, final OverflowPolicy policy) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity must be positive");
+        this.directory = directory;
+        this.zip = zip;
+        this.policy = policy;
+        this.capacity = new Semaphore(capacity);
+
+        this.writer = new Thread(this::run, "ClassTransform class dumper");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        this.shutdownHook = new Thread(this::close, "ClassTransform class dumper shutdown");
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    @Override
+    public void transform(final String className, final byte[] bytecode) {
+        if (this.closed || !this.acquire()) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        this.queued.incrementAndGet();
+        DumpedClass dumpedClass = new DumpedClass(className, bytecode);
+        this.queue.offer(dumpedClass);
+        if (this.closed && this.queue.remove(dumpedClass)) {
+            //The dumper has been closed while the class was queued and the writer thread may have already stopped
+            this.drop();
+            return;
+        }
+        LockSupport.unpark(this.writer);
+    }
+
+    private boolean acquire() {
+        switch (this.policy) {
+            case BLOCK:
+                this.capacity.acquireUninterruptibly();
+                return true;
+            case DROP_OLDEST:
+                while (!this.capacity.tryAcquire()) {
+                    //The permit of the removed class is used for the new one
+                    if (this.queue.poll() != null) {
+                        this.dropped.incrementAndGet();
+                        this.processed.incrementAndGet();
+                        return true;
+                    }
+                }
+                return true;
+            case DROP_NEWEST:
+            default:
+                return this.capacity.tryAcquire();
+        }
+    }
+
+    private void drop() {
+        this.capacity.release();
+        this.dropped.incrementAndGet();
+        this.processed.incrementAndGet();
+    }
+
+    private void run() {
+        while (true) {
+            DumpedClass dumpedClass = this.queue.poll();
+            if (dumpedClass == null) {
+                this.flushZip();
+                if (this.closed && this.queue.isEmpty()) break;
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            this.capacity.release();
+            try {
+                this.write(dumpedClass);
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+            this.processed.incrementAndGet();
+        }
+        if (this.zip != null) {
+            try {
+                this.zip.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void write(final DumpedClass dumpedClass) throws IOException {
+        String path = dumpedClass.name.replace('.', '/') + ".class";
+        if (this.zip != null) {
+            if (!this.zipEntries.add(path)) return;
+            this.zip.putNextEntry(new ZipEntry(path));
+            this.zip.write(dumpedClass.bytecode);
+            this.zip.closeEntry();
+        } else {
+            Path file = this.directory.toPath().resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, dumpedClass.bytecode);
+        }
+    }
+
+    private void flushZip() {
+        if (this.zip == null) return;
+        try {
+            this.zip.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Wait until all classes queued before calling this method have been written
+     */
+    public void flush() {
+        long target = this.queued.get();
+        while (this.processed.get() < target && this.writer.isAlive()) {
+            LockSupport.unpark(this.writer);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Write all queued classes and stop the writer thread<br>
+     * Classes passed to the dumper after it has been closed are dropped
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.writer);
+        boolean interrupted = false;
+        while (this.writer.isAlive()) {
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        //Classes queued after the writer thread has stopped are dropped and their permits are released for blocked threads
+        while (this.queue.poll() != null) this.drop();
+        if (Thread.currentThread() != this.shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            } catch (IllegalStateException ignored) {
+                //The JVM is already shutting down
+            }
+        }
+    }
+
+    /**
+     * @return The amount of classes which have been dropped because the queue was full or the dumper was closed
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+
+    /**
+     * The behavior when a class is dumped while the queue is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the writer thread has made space in the queue
+         */
+        BLOCK,
+        /**
+         * Drop the new class
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued class to make space for the new one
+         */
+        DROP_OLDEST
+    }
+
+    private static class DumpedClass {
+
+        private final String name;
+        private final byte[] bytecode;
+
+        private DumpedClass(final String name, final byte[] bytecode) {
+            this.name = name;
+            this.bytecode = bytecode;
+        }
+
+    }
+
+}
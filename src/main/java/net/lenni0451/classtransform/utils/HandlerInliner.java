@@ -0,0 +1,209 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.annotations.InjectionInfo;
+import net.lenni0451.classtransform.utils.annotations.AnnotationParser;
+import net.lenni0451.classtransform.utils.index.InstructionIndex;
+import net.lenni0451.classtransform.utils.index.MethodIndex;
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.*;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicInterpreter;
+import org.objectweb.asm.tree.analysis.BasicValue;
+import org.objectweb.asm.tree.analysis.Frame;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Inline the handler methods copied into a class by the injection transformers into their call sites<br>
+ * Handlers which are too large, recursive, synchronized or use subroutines are still called normally<br>
+ * A handler is removed from the class if all calls to it have been inlined
+ */
+public class HandlerInliner {
+
+    /**
+     * The maximum amount of instructions a handler may have to be inlined
+     */
+    public static final int MAX_INSTRUCTIONS = 128;
+
+    /**
+     * Inline all handlers of the given class
+     *
+     * @param classNode The class to inline the handlers in
+     */
+    public static void inline(final ClassNode classNode) {
+        Map<String, MethodNode> handlers = new HashMap<>();
+        for (MethodNode method : classNode.methods) {
+            if (isHandler(method) && canInline(classNode, method)) handlers.put(method.name + method.desc, method);
+        }
+        if (handlers.isEmpty()) return;
+
+        for (MethodNode method : classNode.methods) {
+            Map<MethodInsnNode, MethodNode> sites = new LinkedHashMap<>();
+            boolean needsFrames = false;
+            for (AbstractInsnNode instruction : method.instructions) {
+                MethodNode handler = getCalledHandler(classNode, handlers, instruction);
+                if (handler == null || handler == method) continue;
+                sites.put((MethodInsnNode) instruction, handler);
+                if (!handler.tryCatchBlocks.isEmpty()) needsFrames = true;
+            }
+            if (sites.isEmpty()) continue;
+
+            //Exception handlers clear the stack, so handlers with try/catch blocks can only be inlined if nothing else is on the stack
+            Map<MethodInsnNode, Integer> stackSizes = new HashMap<>();
+            if (needsFrames) {
+                Frame<BasicValue>[] frames = analyze(classNode, method);
+                for (Map.Entry<MethodInsnNode, MethodNode> entry : sites.entrySet()) {
+                    Frame<BasicValue> frame = frames == null ? null : frames[method.instructions.indexOf(entry.getKey())];
+                    if (frame != null) stackSizes.put(entry.getKey(), frame.getStackSize() - getArgumentCount(entry.getValue()));
+                }
+            }
+            //The inlined handlers are never live at the same time, so all of them can share the same locals above the ones used by the target
+            int locals = 1;
+            for (MethodNode handler : sites.values()) locals = Math.max(locals, handler.maxLocals);
+            int base = SlotAllocator.get(method).exclusiveScope().allocate(locals);
+            for (Map.Entry<MethodInsnNode, MethodNode> entry : sites.entrySet()) {
+                MethodNode handler = entry.getValue();
+                if (!handler.tryCatchBlocks.isEmpty()) {
+                    Integer stackSize = stackSizes.get(entry.getKey());
+                    if (stackSize == null || stackSize != 0) continue;
+                }
+                inline(method, entry.getKey(), handler, base);
+            }
+            InstructionIndex.invalidate(method);
+        }
+
+        //Remove all handlers which are not called anymore
+        Set<MethodNode> called = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MethodNode method : classNode.methods) {
+            for (AbstractInsnNode instruction : method.instructions) {
+                MethodNode handler = getCalledHandler(classNode, handlers, instruction);
+                if (handler != null && handler != method) called.add(handler);
+                if (instruction instanceof InvokeDynamicInsnNode) {
+                    //Dynamically linked handlers are referenced by a handle and can't be inlined
+                    for (Object bsmArg : ((InvokeDynamicInsnNode) instruction).bsmArgs) {
+                        if (!(bsmArg instanceof Handle)) continue;
+                        Handle handle = (Handle) bsmArg;
+                        if (handle.getOwner().equals(classNode.name) && handlers.containsKey(handle.getName() + handle.getDesc())) called.add(handlers.get(handle.getName() + handle.getDesc()));
+                    }
+                }
+            }
+        }
+        if (classNode.methods.removeIf(method -> handlers.get(method.name + method.desc) == method && !called.contains(method))) MethodIndex.invalidate(classNode);
+    }
+
+    private static boolean isHandler(final MethodNode method) {
+        if (method.invisibleAnnotations == null) return false;
+        for (AnnotationNode annotation : method.invisibleAnnotations) {
+            if (!annotation.desc.equals(Type.getDescriptor(InjectionInfo.class))) continue;
+            Object originalName = AnnotationParser.listToMap(annotation.values).get("originalName");
+            //Only methods which have been renamed are handlers. Overridden methods keep their name and may be called from anywhere
+            return originalName instanceof String && !originalName.equals(method.name + method.desc);
+        }
+        return false;
+    }
+
+    private static boolean canInline(final ClassNode classNode, final MethodNode method) {
+        if ((method.access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE | Opcodes.ACC_SYNCHRONIZED)) != 0) return false;
+        if (method.instructions.size() == 0) return false;
+
+        int instructions = 0;
+        for (AbstractInsnNode instruction : method.instructions) {
+            if (instruction.getOpcode() == -1) continue;
+            if (instruction.getOpcode() == Opcodes.JSR || instruction.getOpcode() == Opcodes.RET) return false;
+            if (instruction instanceof MethodInsnNode) {
+                MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
+                if (methodInsnNode.owner.equals(classNode.name) && methodInsnNode.name.equals(method.name) && methodInsnNode.desc.equals(method.desc)) return false;
+            }
+            instructions++;
+        }
+        if (instructions > MAX_INSTRUCTIONS) return false;
+
+        //Returns are replaced with jumps, so the stack has to be empty except for the return value
+        Frame<BasicValue>[] frames = analyze(classNode, method);
+        if (frames == null) return false;
+        int returnSize = Type.getReturnType(method.desc).equals(Type.VOID_TYPE) ? 0 : 1;
+        for (int i = 0; i < frames.length; i++) {
+            int opcode = method.instructions.get(i).getOpcode();
+            if (opcode < Opcodes.IRETURN || opcode > Opcodes.RETURN || frames[i] == null) continue;
+            if (frames[i].getStackSize() != returnSize) return false;
+        }
+        return true;
+    }
+
+    private static MethodNode getCalledHandler(final ClassNode classNode, final Map<String, MethodNode> handlers, final AbstractInsnNode instruction) {
+        if (!(instruction instanceof MethodInsnNode)) return null;
+        MethodInsnNode methodInsnNode = (MethodInsnNode) instruction;
+        if (!methodInsnNode.owner.equals(classNode.name)) return null;
+        MethodNode handler = handlers.get(methodInsnNode.name + methodInsnNode.desc);
+        if (handler == null) return null;
+        if (Modifier.isStatic(handler.access) != (methodInsnNode.getOpcode() == Opcodes.INVOKESTATIC)) return null;
+        return handler;
+    }
+
+    private static int getArgumentCount(final MethodNode handler) {
+        int count = Type.getArgumentTypes(handler.desc).length;
+        if (!Modifier.isStatic(handler.access)) count++;
+        return count;
+    }
+
+    private static void inline(final MethodNode target, final MethodInsnNode site, final MethodNode handler, final int base) {
+        InsnList instructions = new InsnList();
+
+        //Store the arguments into the locals of the inlined handler
+        Type[] arguments = Type.getArgumentTypes(handler.desc);
+        int[] slots = new int[arguments.length];
+        int slot = Modifier.isStatic(handler.access) ? 0 : 1;
+        for (int i = 0; i < arguments.length; i++) {
+            slots[i] = slot;
+            slot += arguments[i].getSize();
+        }
+        for (int i = arguments.length - 1; i >= 0; i--) instructions.add(new VarInsnNode(ASMUtils.getStoreOpcode(arguments[i]), base + slots[i]));
+        if (!Modifier.isStatic(handler.access)) instructions.add(new VarInsnNode(Opcodes.ASTORE, base));
+
+        Map<LabelNode, LabelNode> labels = new HashMap<>();
+        AbstractInsnNode last = null;
+        for (AbstractInsnNode instruction : handler.instructions) {
+            if (instruction instanceof LabelNode) labels.put((LabelNode) instruction, new LabelNode());
+            else if (instruction.getOpcode() != -1) last = instruction;
+        }
+        LabelNode end = new LabelNode();
+        for (AbstractInsnNode instruction : handler.instructions) {
+            //Frames are recalculated when writing the class and line numbers would point to the source of the handler
+            if (instruction instanceof FrameNode || instruction instanceof LineNumberNode) continue;
+            int opcode = instruction.getOpcode();
+            if (opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) {
+                //The return value stays on the stack
+                if (instruction != last) instructions.add(new JumpInsnNode(Opcodes.GOTO, end));
+                continue;
+            }
+
+            AbstractInsnNode copy = instruction.clone(labels);
+            if (copy instanceof VarInsnNode) ((VarInsnNode) copy).var += base;
+            else if (copy instanceof IincInsnNode) ((IincInsnNode) copy).var += base;
+            instructions.add(copy);
+        }
+        instructions.add(end);
+
+        //The try/catch blocks of the handler are more specific than the ones of the target and have to be checked first
+        List<TryCatchBlockNode> tryCatchBlocks = new ArrayList<>();
+        for (TryCatchBlockNode tryCatchBlock : handler.tryCatchBlocks) {
+            tryCatchBlocks.add(new TryCatchBlockNode(labels.get(tryCatchBlock.start), labels.get(tryCatchBlock.end), labels.get(tryCatchBlock.handler), tryCatchBlock.type));
+        }
+        target.tryCatchBlocks.addAll(0, tryCatchBlocks);
+
+        target.instructions.insert(site, instructions);
+        target.instructions.remove(site);
+    }
+
+    private static Frame<BasicValue>[] analyze(final ClassNode owner, final MethodNode method) {
+        ASMUtils.computeMaxs(owner, method);
+        try {
+            return new Analyzer<>(new BasicInterpreter()).analyze(owner.name, method);
+        } catch (AnalyzerException e) {
+            return null;
+        }
+    }
+
+}
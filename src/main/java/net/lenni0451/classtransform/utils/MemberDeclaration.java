@@ -3,6 +3,8 @@ package net.lenni0451.classtransform.utils;
 import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 
+import java.util.Objects;
+
 public class MemberDeclaration {
 
     private final String owner;
@@ -40,4 +42,17 @@ public class MemberDeclaration {
         return !this.desc.startsWith("(");
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || this.getClass() != o.getClass()) return false;
+        MemberDeclaration that = (MemberDeclaration) o;
+        return this.owner.equals(that.owner) && this.name.equals(that.name) && this.desc.equals(that.desc);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.owner, this.name, this.desc);
+    }
+
 }
@@ -0,0 +1,160 @@
+package net.lenni0451.classtransform.utils;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Allocates local variable slots for injected code.<br>
+ * The first free slot of a method is only calculated once. Every injection site opens its own {@link Scope} which starts at this slot again.<br>
+ * Because the locals used by injected code are only live inside the injected instructions, the slots can be reused by all injection sites of a method.<br>
+ * The allocator is cached per {@link MethodNode} and has to be invalidated using {@link #invalidate(MethodNode)} if new local variables are added to the method by other means.
+ */
+public class SlotAllocator {
+
+    private static final Map<MethodNode, SlotAllocator> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Get the allocator of the given method or create it if it doesn't exist.
+     *
+     * @param methodNode The method to get the allocator for
+     * @return The slot allocator
+     */
+    public static SlotAllocator get(final MethodNode methodNode) {
+        SlotAllocator allocator = CACHE.get(methodNode);
+        if (allocator == null || allocator.instructions != methodNode.instructions) {
+            allocator = new SlotAllocator(methodNode);
+            CACHE.put(methodNode, allocator);
+        }
+        return allocator;
+    }
+
+    /**
+     * Invalidate the allocator of the given method.<br>
+     * This needs to be called if local variables have been added to the method without using the allocator.
+     *
+     * @param methodNode The modified method
+     */
+    public static void invalidate(final MethodNode methodNode) {
+        CACHE.remove(methodNode);
+    }
+
+    /**
+     * Invalidate the allocators of all methods of the given class.
+     *
+     * @param classNode The modified class
+     */
+    public static void invalidate(final ClassNode classNode) {
+        for (MethodNode methodNode : classNode.methods) invalidate(methodNode);
+    }
+
+
+    private final WeakReference<MethodNode> methodNode;
+    private final InsnList instructions;
+    private final int firstFree;
+    private int maxLocals;
+
+    private SlotAllocator(final MethodNode methodNode) {
+        this.methodNode = new WeakReference<>(methodNode);
+        this.instructions = methodNode.instructions;
+
+        int firstFree = Modifier.isStatic(methodNode.access) ? 0 : 1;
+        for (Type arg : Type.getArgumentTypes(methodNode.desc)) firstFree += arg.getSize();
+        for (AbstractInsnNode instruction : methodNode.instructions) {
+            if (instruction instanceof VarInsnNode) {
+                VarInsnNode varInsnNode = (VarInsnNode) instruction;
+                int size = varInsnNode.getOpcode() == Opcodes.LLOAD || varInsnNode.getOpcode() == Opcodes.DLOAD || varInsnNode.getOpcode() == Opcodes.LSTORE || varInsnNode.getOpcode() == Opcodes.DSTORE ? 2 : 1;
+                firstFree = Math.max(firstFree, varInsnNode.var + size);
+            } else if (instruction instanceof IincInsnNode) {
+                firstFree = Math.max(firstFree, ((IincInsnNode) instruction).var + 1);
+            }
+        }
+        if (methodNode.localVariables != null) {
+            for (LocalVariableNode localVariable : methodNode.localVariables) firstFree = Math.max(firstFree, localVariable.index + Type.getType(localVariable.desc).getSize());
+        }
+        this.firstFree = firstFree;
+        this.maxLocals = Math.max(firstFree, methodNode.maxLocals);
+    }
+
+    /**
+     * @return The first slot which is not used by the original method
+     */
+    public int getFirstFree() {
+        return this.firstFree;
+    }
+
+    /**
+     * @return The highest amount of locals used by the method and all allocated slots
+     */
+    public int getMaxLocals() {
+        return this.maxLocals;
+    }
+
+    /**
+     * Open a new scope for an injection site.<br>
+     * All slots allocated in the scope must only be used by the instructions injected at this site.
+     *
+     * @return The new scope
+     */
+    public Scope scope() {
+        return new Scope(this.firstFree);
+    }
+
+    /**
+     * Open a new scope above all slots which have been allocated so far.<br>
+     * This is required if the slots are used while slots of other scopes are still live.
+     *
+     * @return The new scope
+     */
+    public Scope exclusiveScope() {
+        return new Scope(this.maxLocals);
+    }
+
+    private void use(final int maxLocals) {
+        if (maxLocals <= this.maxLocals) return;
+        this.maxLocals = maxLocals;
+        MethodNode methodNode = this.methodNode.get();
+        if (methodNode != null && methodNode.maxLocals < maxLocals) methodNode.maxLocals = maxLocals;
+    }
+
+
+    public class Scope {
+
+        private int next;
+
+        private Scope(final int next) {
+            this.next = next;
+        }
+
+        /**
+         * Allocate a slot for a value of the given type.
+         *
+         * @param type The type of the value
+         * @return The allocated slot
+         */
+        public int allocate(final Type type) {
+            return this.allocate(type.getSize());
+        }
+
+        /**
+         * Allocate the given amount of consecutive slots.
+         *
+         * @param size The amount of slots
+         * @return The first allocated slot
+         */
+        public int allocate(final int size) {
+            int slot = this.next;
+            this.next += size;
+            SlotAllocator.this.use(this.next);
+            return slot;
+        }
+
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.lenni0451.classtransform.utils;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.Frame;
+import org.objectweb.asm.tree.analysis.SourceInterpreter;
+import org.objectweb.asm.tree.analysis.SourceValue;
+
+import java.util.*;
+
+/**
+ * Find the instructions which push the stack values consumed by an instruction<br>
+ * This is used to insert values below the arguments of a call without storing the arguments in local variables<br>
+ * The analysis is done once and only valid for the instructions of the method at that time
+ */
+public class StackAnalyzer {
+
+    /**
+     * Analyze a method
+     *
+     * @param owner  The class containing the method
+     * @param method The method to analyze
+     * @return The analyzer or null if the method could not be analyzed
+     */
+    public static StackAnalyzer analyze(final ClassNode owner, final MethodNode method) {
+        ASMUtils.computeMaxs(owner, method);
+        try {
+            return new StackAnalyzer(method, new Analyzer<>(new SourceInterpreter()).analyze(owner.name, method));
+        } catch (AnalyzerException e) {
+            return null;
+        }
+    }
+
+
+    private final AbstractInsnNode[] instructions;
+    private final Frame<SourceValue>[] frames;
+    private final Map<AbstractInsnNode, Integer> indices = new IdentityHashMap<>();
+    private final Set<LabelNode> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private StackAnalyzer(final MethodNode method, final Frame<SourceValue>[] frames) {
+        this.instructions = method.instructions.toArray();
+        this.frames = frames;
+        for (int i = 0; i < this.instructions.length; i++) {
+            AbstractInsnNode instruction = this.instructions[i];
+            this.indices.put(instruction, i);
+            if (instruction instanceof JumpInsnNode) {
+                this.targets.add(((JumpInsnNode) instruction).label);
+            } else if (instruction instanceof TableSwitchInsnNode) {
+                this.targets.add(((TableSwitchInsnNode) instruction).dflt);
+                this.targets.addAll(((TableSwitchInsnNode) instruction).labels);
+            } else if (instruction instanceof LookupSwitchInsnNode) {
+                this.targets.add(((LookupSwitchInsnNode) instruction).dflt);
+                this.targets.addAll(((LookupSwitchInsnNode) instruction).labels);
+            }
+        }
+        for (TryCatchBlockNode tryCatchBlock : method.tryCatchBlocks) this.targets.add(tryCatchBlock.handler);
+    }
+
+    /**
+     * Get the first instruction pushing the values consumed by an instruction<br>
+     * Values inserted before the returned instruction are below the consumed values when the instruction is executed<br>
+     * The instructions in between must not branch, be branched to or access the stack below the consumed values
+     *
+     * @param instruction The instruction consuming the values
+     * @param count       The amount of consumed values (not slots)
+     * @return The first instruction or null if there is no such instruction
+     */
+    public AbstractInsnNode getArgumentStart(final AbstractInsnNode instruction, final int count) {
+        Integer index = this.indices.get(instruction);
+        if (index == null || this.frames[index] == null) return null;
+        if (count == 0) return instruction;
+        int depth = this.frames[index].getStackSize() - count;
+        if (depth < 0) return null;
+        for (int i = index - 1; i >= 0; i--) {
+            AbstractInsnNode current = this.instructions[i];
+            Frame<SourceValue> frame = this.frames[i];
+            if (frame == null || current instanceof FrameNode || this.isBranch(current)) return null;
+
+            int stackSize = frame.getStackSize();
+            if (stackSize < depth) return null;
+            else if (stackSize == depth) return this.getStackAccessDepth(current) == 0 ? current : null;
+            else if (stackSize < depth + this.getStackAccessDepth(current)) return null;
+        }
+        return null;
+    }
+
+    private boolean isBranch(final AbstractInsnNode instruction) {
+        if (instruction instanceof LabelNode) return this.targets.contains(instruction);
+        return instruction instanceof JumpInsnNode || instruction instanceof TableSwitchInsnNode || instruction instanceof LookupSwitchInsnNode;
+    }
+
+    /**
+     * Get the amount of values on the stack an instruction accesses without consuming them<br>
+     * For two slot values this is more than needed, which is fine for this check
+     */
+    private int getStackAccessDepth(final AbstractInsnNode instruction) {
+        switch (instruction.getOpcode()) {
+            case Opcodes.DUP:
+                return 1;
+            case Opcodes.DUP_X1:
+            case Opcodes.DUP2:
+            case Opcodes.SWAP:
+                return 2;
+            case Opcodes.DUP_X2:
+            case Opcodes.DUP2_X1:
+                return 3;
+            case Opcodes.DUP2_X2:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+package net.lenni0451.classtransform.utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of transformed classes addressed by the SHA-256 hash of the class name and the original bytecode<br>
+ * The total size of all cached classes is limited and the least recently used classes are removed first<br>
+ * The bytecode is only softly referenced so it can be collected if the memory is needed<br>
+ * Every class is stamped with the generation it was transformed in and {@link #invalidate()} starts a new generation when the transformers change
+ */
+public class TransformCache {
+
+    /**
+     * Get the key of a class
+     *
+     * @param name     The name of the class
+     * @param bytecode The original bytecode of the class
+     * @return The key
+     */
+    public static Key key(final String name, final byte[] bytecode) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(bytecode);
+            return new Key(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+
+    private final long maxSize;
+    private final ReferenceQueue<byte[]> queue = new ReferenceQueue<>();
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+    private long size;
+    private long generation;
+
+    /**
+     * @param maxSize The maximum total size of all cached classes in bytes
+     */
+    public TransformCache(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The maximum total size of all cached classes in bytes
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * @return The current generation which has to be passed to {@link #put(Key, long, byte[])}
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Start a new generation<br>
+     * All cached classes and classes which are being transformed in the current generation are no longer used<br>
+     * Outdated classes are removed when they are accessed or evicted
+     */
+    public synchronized void invalidate() {
+        this.generation++;
+    }
+
+    /**
+     * Get the transformed bytecode of a class
+     *
+     * @param key The key of the class
+     * @return The transformed bytecode or null if it is not cached in the current generation
+     */
+    public synchronized byte[] get(final Key key) {
+        this.purge();
+        Entry entry = this.entries.get(key);
+        if (entry == null) return null;
+        byte[] bytecode = entry.generation == this.generation ? entry.get() : null;
+        if (bytecode == null) this.remove(key);
+        return bytecode;
+    }
+
+    /**
+     * Add the transformed bytecode of a class<br>
+     * Classes larger than the maximum size or transformed in an outdated generation are not cached
+     *
+     * @param key        The key of the class
+     * @param generation The generation read before the class was transformed
+     * @param bytecode   The transformed bytecode
+     */
+    public synchronized void put(final Key key, final long generation, final byte[] bytecode) {
+        this.purge();
+        if (bytecode.length > this.maxSize || generation != this.generation) return;
+        this.remove(key);
+        this.entries.put(key, new Entry(key, generation, bytecode, this.queue));
+        this.size += bytecode.length;
+
+        Iterator<Entry> it = this.entries.values().iterator();
+        while (this.size > this.maxSize && it.hasNext()) {
+            this.size -= it.next().size;
+            it.remove();
+        }
+    }
+
+    /**
+     * Remove all cached classes
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+        while (this.queue.poll() != null) ;
+    }
+
+    /**
+     * @return The total size of all cached classes in bytes
+     */
+    public synchronized long getSize() {
+        this.purge();
+        return this.size;
+    }
+
+    private void remove(final Key key) {
+        Entry entry = this.entries.remove(key);
+        if (entry != null) this.size -= entry.size;
+    }
+
+    private void purge() {
+        Entry entry;
+        while ((entry = (Entry) this.queue.poll()) != null) {
+            if (this.entries.get(entry.key) == entry) this.remove(entry.key);
+        }
+    }
+
+
+    public static final class Key {
+
+        private final byte[] hash;
+        private final int hashCode;
+
+        private Key(final byte[] hash) {
+            this.hash = hash;
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return Arrays.equals(this.hash, ((Key) o).hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+    }
+
+    private static class Entry extends SoftReference<byte[]> {
+
+        private final Key key;
+        private final long generation;
+        private final int size;
+
+        private Entry(final Key key, final long generation, final byte[] bytecode, final ReferenceQueue<byte[]> queue) {
+            super(bytecode, queue);
+            this.key = key;
+            this.generation = generation;
+            this.size = bytecode.length;
+        }
+
+    }
+
+}
@@ -10,17 +10,36 @@ import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.ClassNode;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AnnotationParser<T extends Annotation> {
 
+    private static final Map<IClassProvider, Map<Object, Annotation>> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Parse the values of an annotation<br>
+     * Annotations with the same values are only parsed once per class provider and share the same instance
+     *
+     * @param type          The class of the annotation
+     * @param classProvider The class provider
+     * @param values        The values of the annotation
+     * @param <T>           The type of the annotation
+     * @return The parsed annotation
+     */
     public static <T extends Annotation> T parse(final Class<T> type, final IClassProvider classProvider, final Map<String, Object> values) {
-        return new AnnotationParser<>(type, classProvider).parse(values);
+        Map<Object, Annotation> cache = CACHE.computeIfAbsent(classProvider, p -> new ConcurrentHashMap<>());
+        Object key = Arrays.asList(type, getKey(values));
+        Annotation annotation = cache.get(key);
+        if (annotation == null) {
+            annotation = new AnnotationParser<>(type, classProvider).parse(values);
+            Annotation cached = cache.putIfAbsent(key, annotation);
+            if (cached != null) annotation = cached;
+        }
+        return (T) annotation;
     }
 
     public static Map<String, Object> listToMap(final List<Object> list) {
@@ -38,6 +57,25 @@ public class AnnotationParser<T extends Annotation> {
         return list;
     }
 
+    private static Object getKey(final Object value) {
+        //AnnotationNodes and arrays don't implement equals, so they are converted to lists
+        if (value instanceof AnnotationNode) {
+            AnnotationNode annotation = (AnnotationNode) value;
+            return Arrays.asList(annotation.desc, getKey(listToMap(annotation.values)));
+        } else if (value instanceof Map) {
+            Map<Object, Object> key = new HashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) key.put(entry.getKey(), getKey(entry.getValue()));
+            return key;
+        } else if (value instanceof List) {
+            List<Object> key = new ArrayList<>();
+            for (Object element : (List<?>) value) key.add(getKey(element));
+            return key;
+        } else if (value instanceof Object[]) {
+            return getKey(Arrays.asList((Object[]) value));
+        }
+        return value;
+    }
+
 
     private final Class<T> type;
     private final IClassProvider classProvider;
@@ -81,8 +119,9 @@ public class AnnotationParser<T extends Annotation> {
         this.node = new ClassNode();
         this.node.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, ClassDefiner.generateClassName("AnnotationWrapper"), null, "java/lang/Object", new String[]{Type.getInternalName(this.type), Type.getInternalName(IParsedAnnotation.class)});
 
-        { //IClassProvider classProvider
-            this.node.visitField(Opcodes.ACC_PRIVATE, "classProvider", Type.getDescriptor(IClassProvider.class), null, null).visitEnd();
+        { //WeakReference<IClassProvider> classProvider
+            //The parsed annotations are cached per class provider, so they must not keep it alive
+            this.node.visitField(Opcodes.ACC_PRIVATE, "classProvider", Type.getDescriptor(WeakReference.class), null, null).visitEnd();
         }
 
         { //<init>
@@ -90,8 +129,11 @@ public class AnnotationParser<T extends Annotation> {
             constructor.visitVarInsn(Opcodes.ALOAD, 0);
             constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
             constructor.visitVarInsn(Opcodes.ALOAD, 0);
+            constructor.visitTypeInsn(Opcodes.NEW, Type.getInternalName(WeakReference.class));
+            constructor.visitInsn(Opcodes.DUP);
             constructor.visitVarInsn(Opcodes.ALOAD, 1);
-            constructor.visitFieldInsn(Opcodes.PUTFIELD, this.node.name, "classProvider", Type.getDescriptor(IClassProvider.class));
+            constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, Type.getInternalName(WeakReference.class), "<init>", "(Ljava/lang/Object;)V", false);
+            constructor.visitFieldInsn(Opcodes.PUTFIELD, this.node.name, "classProvider", Type.getDescriptor(WeakReference.class));
             constructor.visitInsn(Opcodes.RETURN);
             constructor.visitEnd();
         }
@@ -243,7 +285,9 @@ public class AnnotationParser<T extends Annotation> {
 
         methodVisitor.visitLdcInsn(annotationType);
         methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
-        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, this.node.name, "classProvider", Type.getDescriptor(IClassProvider.class));
+        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, this.node.name, "classProvider", Type.getDescriptor(WeakReference.class));
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(WeakReference.class), "get", "()Ljava/lang/Object;", false);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(IClassProvider.class));
         methodVisitor.visitTypeInsn(Opcodes.NEW, Type.getInternalName(HashMap.class));
         methodVisitor.visitInsn(Opcodes.DUP);
         methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, Type.getInternalName(HashMap.class), "<init>", "()V", false);
@@ -0,0 +1,189 @@
+package net.lenni0451.classtransform.utils.index;
+
+import net.lenni0451.classtransform.utils.MemberDeclaration;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+
+/**
+ * A lazily built index of all instructions of a method.<br>
+ * The index is built in a single pass over the instructions and groups them by opcode and by member reference.<br>
+ * It is cached per {@link MethodNode} and has to be invalidated using {@link #invalidate(MethodNode)} after the instructions have been modified.<br>
+ * As a safety net the index is also rebuilt if the {@link InsnList} or any of its instructions changed, only modified operands can't be detected.
+ */
+public class InstructionIndex {
+
+    private static final Map<MethodNode, InstructionIndex> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Get the index of the given method or build it if it doesn't exist or is outdated.
+     *
+     * @param methodNode The method to get the index for
+     * @return The instruction index
+     */
+    public static InstructionIndex get(final MethodNode methodNode) {
+        InstructionIndex index = CACHE.get(methodNode);
+        if (index == null || !index.isValid(methodNode)) {
+            index = new InstructionIndex(methodNode.instructions);
+            CACHE.put(methodNode, index);
+        }
+        return index;
+    }
+
+    /**
+     * Invalidate the index of the given method.<br>
+     * This needs to be called after the instructions of the method have been modified.
+     *
+     * @param methodNode The modified method
+     */
+    public static void invalidate(final MethodNode methodNode) {
+        CACHE.remove(methodNode);
+    }
+
+    /**
+     * Invalidate the indices of all methods of the given class.
+     *
+     * @param classNode The modified class
+     */
+    public static void invalidate(final ClassNode classNode) {
+        for (MethodNode methodNode : classNode.methods) invalidate(methodNode);
+    }
+
+
+    private final InsnList instructions;
+    private final AbstractInsnNode[] nodes;
+    private final Map<AbstractInsnNode, Integer> positions;
+    private final List<AbstractInsnNode>[] opcodes;
+    private final Map<MemberDeclaration, List<AbstractInsnNode>> members;
+
+    private InstructionIndex(final InsnList instructions) {
+        this.instructions = instructions;
+        this.nodes = instructions.toArray();
+        this.positions = new IdentityHashMap<>(this.nodes.length);
+        this.opcodes = newLists(256);
+        this.members = new HashMap<>();
+
+        for (int i = 0; i < this.nodes.length; i++) {
+            AbstractInsnNode node = this.nodes[i];
+            this.positions.put(node, i);
+            if (node.getOpcode() >= 0) this.add(this.opcodes, node.getOpcode(), node);
+            if (node instanceof MethodInsnNode) {
+                MethodInsnNode methodInsnNode = (MethodInsnNode) node;
+                this.members.computeIfAbsent(new MemberDeclaration(methodInsnNode.owner, methodInsnNode.name, methodInsnNode.desc), k -> new ArrayList<>()).add(node);
+            } else if (node instanceof FieldInsnNode) {
+                FieldInsnNode fieldInsnNode = (FieldInsnNode) node;
+                this.members.computeIfAbsent(new MemberDeclaration(fieldInsnNode.owner, fieldInsnNode.name, fieldInsnNode.desc), k -> new ArrayList<>()).add(node);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<AbstractInsnNode>[] newLists(final int size) {
+        return new List[size];
+    }
+
+    private void add(final List<AbstractInsnNode>[] lists, final int index, final AbstractInsnNode node) {
+        if (lists[index] == null) lists[index] = new ArrayList<>();
+        lists[index].add(node);
+    }
+
+    private boolean isValid(final MethodNode methodNode) {
+        if (this.instructions != methodNode.instructions || this.nodes.length != methodNode.instructions.size()) return false;
+        //Replaced instructions don't change the size of the list
+        AbstractInsnNode node = this.instructions.getFirst();
+        for (AbstractInsnNode indexed : this.nodes) {
+            if (indexed != node) return false;
+            node = node.getNext();
+        }
+        return true;
+    }
+
+    /**
+     * @return The amount of indexed instructions
+     */
+    public int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * Get the position of an instruction.
+     *
+     * @param node The instruction
+     * @return The position or -1 if the instruction is not indexed
+     */
+    public int indexOf(final AbstractInsnNode node) {
+        Integer position = this.positions.get(node);
+        if (position == null) return -1;
+        return position;
+    }
+
+    /**
+     * Get all instructions between the given positions.
+     *
+     * @param from The first position (inclusive)
+     * @param to   The last position (inclusive)
+     * @return An unmodifiable list of the instructions
+     */
+    public List<AbstractInsnNode> getInstructions(final int from, final int to) {
+        int start = Math.max(0, from);
+        int end = Math.min(this.nodes.length - 1, to);
+        if (start > end) return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(this.nodes).subList(start, end + 1));
+    }
+
+    /**
+     * Get all instructions with the given opcode in the order they appear in the method.
+     *
+     * @param opcode The opcode
+     * @return An unmodifiable list of the instructions
+     */
+    public List<AbstractInsnNode> getOpcode(final int opcode) {
+        if (opcode < 0 || opcode >= this.opcodes.length || this.opcodes[opcode] == null) return Collections.emptyList();
+        return Collections.unmodifiableList(this.opcodes[opcode]);
+    }
+
+    /**
+     * Get all instructions with an opcode in the given range in the order they appear in the method.
+     *
+     * @param minOpcode The lowest opcode (inclusive)
+     * @param maxOpcode The highest opcode (inclusive)
+     * @return A list of the instructions
+     */
+    public List<AbstractInsnNode> getOpcodes(final int minOpcode, final int maxOpcode) {
+        List<AbstractInsnNode> instructions = new ArrayList<>();
+        for (int opcode = minOpcode; opcode <= maxOpcode; opcode++) instructions.addAll(this.getOpcode(opcode));
+        if (minOpcode != maxOpcode) instructions.sort(Comparator.comparingInt(this::indexOf));
+        return instructions;
+    }
+
+    /**
+     * Get all method and field instructions referencing the given member in the order they appear in the method.
+     *
+     * @param member The referenced member
+     * @return An unmodifiable list of the instructions
+     */
+    public List<AbstractInsnNode> getMember(final MemberDeclaration member) {
+        List<AbstractInsnNode> instructions = this.members.get(member);
+        if (instructions == null) return Collections.emptyList();
+        return Collections.unmodifiableList(instructions);
+    }
+
+    /**
+     * Filter the given instructions to only contain the ones between the given positions.
+     *
+     * @param instructions The instructions to filter
+     * @param from         The first position (inclusive)
+     * @param to           The last position (inclusive)
+     * @return The filtered instructions
+     */
+    public List<AbstractInsnNode> filter(final List<AbstractInsnNode> instructions, final int from, final int to) {
+        if (from <= 0 && to >= this.nodes.length - 1) return instructions;
+        List<AbstractInsnNode> filtered = new ArrayList<>();
+        for (AbstractInsnNode instruction : instructions) {
+            int index = this.indexOf(instruction);
+            if (index >= from && index <= to) filtered.add(instruction);
+        }
+        return filtered;
+    }
+
+}
@@ -0,0 +1,107 @@
+package net.lenni0451.classtransform.utils.index;
+
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A lazily built index of all methods of a class grouped by their name.<br>
+ * The index is cached per {@link ClassNode} and has to be invalidated using {@link #invalidate(ClassNode)} after methods have been added, removed or renamed.<br>
+ * As a safety net the index is also rebuilt if the method list or any of its elements changed, only renamed methods can't be detected.
+ */
+public class MethodIndex {
+
+    private static final Map<ClassNode, MethodIndex> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Get the index of the given class or build it if it doesn't exist or is outdated.
+     *
+     * @param classNode The class to get the index for
+     * @return The method index
+     */
+    public static MethodIndex get(final ClassNode classNode) {
+        MethodIndex index = CACHE.get(classNode);
+        if (index == null || !index.isValid(classNode)) {
+            index = new MethodIndex(classNode.methods);
+            CACHE.put(classNode, index);
+        }
+        return index;
+    }
+
+    /**
+     * Invalidate the index of the given class.<br>
+     * This needs to be called after methods of the class have been added, removed or renamed.
+     *
+     * @param classNode The modified class
+     */
+    public static void invalidate(final ClassNode classNode) {
+        CACHE.remove(classNode);
+    }
+
+
+    private final List<MethodNode> methodList;
+    private final MethodNode[] methods;
+    private final Map<String, List<MethodNode>> names;
+
+    private MethodIndex(final List<MethodNode> methods) {
+        this.methodList = methods;
+        this.methods = methods.toArray(new MethodNode[0]);
+        this.names = new HashMap<>();
+
+        for (MethodNode method : this.methods) this.names.computeIfAbsent(method.name, k -> new ArrayList<>(1)).add(method);
+    }
+
+    private boolean isValid(final ClassNode classNode) {
+        if (this.methodList != classNode.methods || this.methods.length != classNode.methods.size()) return false;
+        //Replaced methods don't change the size of the list
+        for (int i = 0; i < this.methods.length; i++) {
+            if (this.methods[i] != this.methodList.get(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get a method by its name and descriptor.
+     *
+     * @param name The name of the method
+     * @param desc The descriptor of the method
+     * @return The method or null if it doesn't exist
+     */
+    public MethodNode getMethod(final String name, final String desc) {
+        List<MethodNode> methods = this.names.get(name);
+        if (methods == null) return null;
+        for (MethodNode method : methods) {
+            if (method.desc.equals(desc)) return method;
+        }
+        return null;
+    }
+
+    /**
+     * Get all methods with the given name.
+     *
+     * @param name The name of the methods
+     * @return An unmodifiable list of the methods
+     */
+    public List<MethodNode> getMethods(final String name) {
+        List<MethodNode> methods = this.names.get(name);
+        if (methods == null) return Collections.emptyList();
+        return Collections.unmodifiableList(methods);
+    }
+
+    /**
+     * Get all methods with a name matching the given pattern in the order they are declared.
+     *
+     * @param pattern The pattern to match the names against
+     * @return A list of the methods
+     */
+    public List<MethodNode> getMethods(final Pattern pattern) {
+        List<MethodNode> methods = new ArrayList<>();
+        for (MethodNode method : this.methods) {
+            if (pattern.matcher(method.name).matches()) methods.add(method);
+        }
+        return methods;
+    }
+
+}
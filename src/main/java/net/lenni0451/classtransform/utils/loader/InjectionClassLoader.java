@@ -1,6 +1,7 @@
 package net.lenni0451.classtransform.utils.loader;
 
 import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.events.TransformEvents;
 import net.lenni0451.classtransform.utils.tree.IClassProvider;
 
 import java.io.ByteArrayOutputStream;
@@ -114,7 +115,10 @@ public class InjectionClassLoader extends URLClassLoader {
 
             CodeSource codeSource = null;
             if (connection != null) codeSource = new CodeSource(connection.getURL(), codeSigner);
-            return this.defineClass(name, classBytes, 0, classBytes.length, codeSource);
+            Object event = TransformEvents.get().beginClassDefine();
+            Class<?> definedClass = this.defineClass(name, classBytes, 0, classBytes.length, codeSource);
+            if (event != null) TransformEvents.get().endClassDefine(event, name, classBytes.length);
+            return definedClass;
         } catch (IndexOutOfBoundsException | ClassNotFoundException | SecurityException | ClassFormatError e) {
             throw e;
         } catch (Throwable t) {
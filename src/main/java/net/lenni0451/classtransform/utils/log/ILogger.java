@@ -0,0 +1,40 @@
+package net.lenni0451.classtransform.utils.log;
+
+/**
+ * A logger for problems which don't stop the transformation of a class<br>
+ * Set it using {@link net.lenni0451.classtransform.TransformerManager#setLogger(ILogger)} to redirect the messages to the logging framework of the application
+ */
+public interface ILogger {
+
+    /**
+     * Print all messages to {@link System#err}
+     */
+    ILogger SYSERR = new ILogger() {
+        @Override
+        public void warn(final String message) {
+            System.err.println(message);
+        }
+
+        @Override
+        public void error(final String message, final Throwable throwable) {
+            System.err.println(message);
+            throwable.printStackTrace();
+        }
+    };
+
+    /**
+     * Log a warning
+     *
+     * @param message The message
+     */
+    void warn(final String message);
+
+    /**
+     * Log an error
+     *
+     * @param message   The message
+     * @param throwable The cause of the error
+     */
+    void error(final String message, final Throwable throwable);
+
+}
@@ -7,6 +7,13 @@ import java.util.*;
 public class MapRemapper extends Remapper {
 
     private final Map<String, String> mappings;
+    //owner -> name -> descriptor -> mapped name. Lookups don't have to build the concatenated key of the flat map
+    private final Map<String, Map<String, Map<String, String>>> methodMappings = new HashMap<>();
+    private final Map<String, Map<String, Map<String, String>>> fieldMappings = new HashMap<>();
+    private final Map<String, Map<String, String>> attributeMappings = new HashMap<>();
+    //mapped class name -> class name, updated with every added class mapping
+    private final Map<String, String> reverseClassMappings = new HashMap<>();
+    private MapRemapper reverseRemapper;
 
     public MapRemapper() {
         this(new HashMap<>());
@@ -18,6 +25,10 @@ public class MapRemapper extends Remapper {
 
     public MapRemapper(final Map<String, String> mappings) {
         this.mappings = mappings;
+        for (Map.Entry<String, String> entry : mappings.entrySet()) {
+            this.index(entry.getKey(), entry.getValue());
+            if (!entry.getKey().contains(".")) this.reverseClassMappings.put(entry.getValue(), entry.getKey());
+        }
     }
 
     public Map<String, String> getMappings() {
@@ -29,8 +40,21 @@ public class MapRemapper extends Remapper {
     }
 
     public void addClassMapping(final String from, final String to, final boolean skipIfExists) {
-        if (skipIfExists && this.mappings.containsKey(from)) return;
-        this.mappings.put(from, to);
+        if (skipIfExists && this.map(from) != null) return;
+        String old = this.mappings.put(from, to);
+        if (old != null && from.equals(this.reverseClassMappings.get(old))) {
+            this.reverseClassMappings.remove(old);
+            //Another class may still be mapped to the old name
+            for (Map.Entry<String, String> entry : this.mappings.entrySet()) {
+                if (!entry.getKey().contains(".") && entry.getValue().equals(old)) {
+                    this.reverseClassMappings.put(old, entry.getKey());
+                    break;
+                }
+            }
+        }
+        this.reverseClassMappings.put(to, from);
+        //The reversed member mappings depend on the class mappings
+        if (!to.equals(old)) this.reverseRemapper = null;
     }
 
     public void addMethodMapping(final String owner, final String name, final String desc, final String target) {
@@ -38,9 +62,12 @@ public class MapRemapper extends Remapper {
     }
 
     public void addMethodMapping(final String owner, final String name, final String desc, final String target, final boolean skipIfExists) {
+        String old = this.lookupMethod(owner, name, desc);
+        if (skipIfExists && old != null) return;
         String key = owner + "." + name + desc;
-        if (skipIfExists && this.mappings.containsKey(key)) return;
         this.mappings.put(key, target);
+        this.updateReverseMember(key, old, target);
+        put(this.methodMappings, owner, name, desc, target);
     }
 
     public void addFieldMapping(final String owner, final String name, final String target) {
@@ -56,9 +83,12 @@ public class MapRemapper extends Remapper {
     }
 
     public void addFieldMapping(final String owner, final String name, final String desc, final String target, final boolean skipIfExists) {
+        String old = this.lookupField(owner, name, desc);
+        if (skipIfExists && old != null) return;
         String key = owner + "." + name + ":" + desc;
-        if (skipIfExists && this.mappings.containsKey(key)) return;
         this.mappings.put(key, target);
+        this.updateReverseMember(key, old, target);
+        put(this.fieldMappings, owner, name, desc, target);
     }
 
     public List<String> getStartingMappings(final String... starts) {
@@ -76,32 +106,123 @@ public class MapRemapper extends Remapper {
     }
 
     public void copy(final MapRemapper remapper) {
-        this.mappings.putAll(remapper.mappings);
+        Map<String, String> mappings = remapper.getMappings();
+        this.mappings.putAll(mappings);
+        for (Map.Entry<String, String> entry : mappings.entrySet()) {
+            this.index(entry.getKey(), entry.getValue());
+            if (!entry.getKey().contains(".")) this.reverseClassMappings.put(entry.getValue(), entry.getKey());
+        }
+        this.reverseRemapper = null;
+    }
+
+    private void updateReverseMember(final String key, final String old, final String target) {
+        if (this.reverseRemapper == null) return;
+        if (old != null && !old.equals(target)) this.removeReverseMember(this.reverseRemapper, key, old);
+        this.addReverseMember(this.reverseRemapper, key, target);
+    }
+
+    private void remove(final String key) {
+        this.mappings.remove(key);
+        int dot = key.indexOf('.');
+        String owner = key.substring(0, dot);
+        int colon = key.indexOf(':', dot);
+        int bracket = key.indexOf('(', dot);
+        if (colon != -1) remove(this.fieldMappings, owner, key.substring(dot + 1, colon), key.substring(colon + 1));
+        else if (bracket != -1) remove(this.methodMappings, owner, key.substring(dot + 1, bracket), key.substring(bracket));
+    }
+
+    private void index(final String key, final String target) {
+        int dot = key.indexOf('.');
+        if (dot == -1) return; //Class mappings are looked up in the flat map
+        String owner = key.substring(0, dot);
+        int colon = key.indexOf(':', dot);
+        int bracket = key.indexOf('(', dot);
+        if (colon != -1) put(this.fieldMappings, owner, key.substring(dot + 1, colon), key.substring(colon + 1), target);
+        else if (bracket != -1) put(this.methodMappings, owner, key.substring(dot + 1, bracket), key.substring(bracket), target);
+        else this.attributeMappings.computeIfAbsent(owner, k -> new HashMap<>()).put(key.substring(dot + 1), target);
+    }
+
+    private static void put(final Map<String, Map<String, Map<String, String>>> mappings, final String owner, final String name, final String desc, final String target) {
+        mappings.computeIfAbsent(owner, k -> new HashMap<>()).computeIfAbsent(name, k -> new HashMap<>()).put(desc, target);
+    }
+
+    private static void remove(final Map<String, Map<String, Map<String, String>>> mappings, final String owner, final String name, final String desc) {
+        Map<String, Map<String, String>> names = mappings.get(owner);
+        if (names == null) return;
+        Map<String, String> descs = names.get(name);
+        if (descs == null) return;
+        descs.remove(desc);
+        if (descs.isEmpty()) names.remove(name);
+        if (names.isEmpty()) mappings.remove(owner);
+    }
+
+    private static String get(final Map<String, Map<String, Map<String, String>>> mappings, final String owner, final String name, final String desc) {
+        Map<String, Map<String, String>> names = mappings.get(owner);
+        if (names == null) return null;
+        Map<String, String> descs = names.get(name);
+        if (descs == null) return null;
+        return descs.get(desc);
+    }
+
+    /**
+     * Get the mapped name of a method
+     *
+     * @param owner The owner of the method or an empty string for invokedynamic call sites
+     * @param name  The name of the method
+     * @param desc  The descriptor of the method
+     * @return The mapped name or null if there is no mapping
+     */
+    protected String lookupMethod(final String owner, final String name, final String desc) {
+        return get(this.methodMappings, owner, name, desc);
+    }
+
+    /**
+     * Get the mapped name of a field
+     *
+     * @param owner The owner of the field
+     * @param name  The name of the field
+     * @param desc  The descriptor of the field or an empty string for mappings without a descriptor
+     * @return The mapped name or null if there is no mapping
+     */
+    protected String lookupField(final String owner, final String name, final String desc) {
+        return get(this.fieldMappings, owner, name, desc);
+    }
+
+    /**
+     * Get the mapped name of an annotation attribute
+     *
+     * @param descriptor The descriptor of the annotation
+     * @param name       The name of the attribute
+     * @return The mapped name or null if there is no mapping
+     */
+    protected String lookupAnnotationAttribute(final String descriptor, final String name) {
+        Map<String, String> names = this.attributeMappings.get(descriptor);
+        return names == null ? null : names.get(name);
     }
 
 
     @Override
     public String mapMethodName(final String owner, final String name, final String descriptor) {
-        String remappedName = map(owner + '.' + name + descriptor);
+        String remappedName = this.lookupMethod(owner, name, descriptor);
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     public String mapInvokeDynamicMethodName(final String name, final String descriptor) {
-        String remappedName = map('.' + name + descriptor);
+        String remappedName = this.lookupMethod("", name, descriptor);
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     public String mapAnnotationAttributeName(final String descriptor, final String name) {
-        String remappedName = map(descriptor + '.' + name);
+        String remappedName = this.lookupAnnotationAttribute(descriptor, name);
         return remappedName == null ? name : remappedName;
     }
 
     @Override
     public String mapFieldName(final String owner, final String name, final String descriptor) {
-        String remappedName = map(owner + '.' + name + ':' + descriptor);
-        if (remappedName == null) remappedName = map(owner + '.' + name + ":");
+        String remappedName = this.lookupField(owner, name, descriptor);
+        if (remappedName == null) remappedName = this.lookupField(owner, name, "");
         return remappedName == null ? name : remappedName;
     }
 
@@ -111,42 +232,77 @@ public class MapRemapper extends Remapper {
     }
 
     public String mapSafe(final String key) {
-        return this.mappings.getOrDefault(key, key);
+        String mapped = this.map(key);
+        return mapped == null ? key : mapped;
     }
 
+    /**
+     * Get the original name of a mapped class<br>
+     * If multiple classes are mapped to the same name, the last added mapping is used
+     *
+     * @param mapping The mapped class name
+     * @return The original class name or null if no class is mapped to the name
+     */
     public String mapReverse(final String mapping) {
-        return this.mappings.entrySet().stream().filter(e -> e.getValue().equals(mapping)).map(Map.Entry::getKey).findFirst().orElse(null);
+        return this.reverseClassMappings.get(mapping);
     }
 
 
+    /**
+     * Get a remapper with all mappings reversed<br>
+     * The reversed remapper is cached and kept up to date when member mappings are added<br>
+     * The returned instance is shared and should not be modified
+     *
+     * @return The reversed remapper
+     */
     public MapRemapper reverse() {
+        if (this.reverseRemapper != null) return this.reverseRemapper;
+        Map<String, String> mappings = this.getMappings();
         MapRemapper reverseRemapper = new MapRemapper();
-        for (Map.Entry<String, String> entry : this.mappings.entrySet()) {
+        for (Map.Entry<String, String> entry : mappings.entrySet()) {
             if (entry.getKey().contains(".")) continue;
             reverseRemapper.addClassMapping(entry.getValue(), entry.getKey());
         }
-        for (Map.Entry<String, String> entry : this.mappings.entrySet()) {
+        for (Map.Entry<String, String> entry : mappings.entrySet()) {
             if (!entry.getKey().contains(".")) continue;
-            if (entry.getKey().contains(":")) {
-                String fieldMapping = entry.getKey();
-                String owner = fieldMapping.substring(0, fieldMapping.indexOf("."));
-                String name = fieldMapping.substring(fieldMapping.indexOf(".") + 1, fieldMapping.indexOf(":"));
-                String desc = fieldMapping.substring(fieldMapping.indexOf(":") + 1);
-                String mappedName = entry.getValue();
-
-                if (desc.isEmpty()) reverseRemapper.addFieldMapping(this.mapSafe(owner), mappedName, name);
-                else reverseRemapper.addFieldMapping(this.mapSafe(owner), mappedName, this.mapDesc(desc), name);
-            } else {
-                String methodMapping = entry.getKey();
-                String owner = methodMapping.substring(0, methodMapping.indexOf("."));
-                String name = methodMapping.substring(methodMapping.indexOf(".") + 1, methodMapping.indexOf("("));
-                String desc = methodMapping.substring(methodMapping.indexOf("("));
-                String mappedName = entry.getValue();
-
-                reverseRemapper.addMethodMapping(this.mapSafe(owner), mappedName, this.mapMethodDesc(desc), name);
-            }
+            this.addReverseMember(reverseRemapper, entry.getKey(), entry.getValue());
+        }
+        return this.reverseRemapper = reverseRemapper;
+    }
+
+    private void removeReverseMember(final MapRemapper reverseRemapper, final String key, final String mappedName) {
+        String owner = key.substring(0, key.indexOf("."));
+        String reverseKey;
+        String name;
+        if (key.contains(":")) {
+            name = key.substring(key.indexOf(".") + 1, key.indexOf(":"));
+            String desc = key.substring(key.indexOf(":") + 1);
+            reverseKey = this.mapSafe(owner) + "." + mappedName + ":" + (desc.isEmpty() ? "" : this.mapDesc(desc));
+        } else if (key.contains("(")) {
+            name = key.substring(key.indexOf(".") + 1, key.indexOf("("));
+            reverseKey = this.mapSafe(owner) + "." + mappedName + this.mapMethodDesc(key.substring(key.indexOf("(")));
+        } else {
+            return;
+        }
+        //Another member may have been mapped to the same name in the meantime
+        if (name.equals(reverseRemapper.mappings.get(reverseKey))) reverseRemapper.remove(reverseKey);
+    }
+
+    private void addReverseMember(final MapRemapper reverseRemapper, final String key, final String mappedName) {
+        if (key.contains(":")) {
+            String owner = key.substring(0, key.indexOf("."));
+            String name = key.substring(key.indexOf(".") + 1, key.indexOf(":"));
+            String desc = key.substring(key.indexOf(":") + 1);
+
+            if (desc.isEmpty()) reverseRemapper.addFieldMapping(this.mapSafe(owner), mappedName, name);
+            else reverseRemapper.addFieldMapping(this.mapSafe(owner), mappedName, this.mapDesc(desc), name);
+        } else if (key.contains("(")) {
+            String owner = key.substring(0, key.indexOf("."));
+            String name = key.substring(key.indexOf(".") + 1, key.indexOf("("));
+            String desc = key.substring(key.indexOf("("));
+
+            reverseRemapper.addMethodMapping(this.mapSafe(owner), mappedName, this.mapMethodDesc(desc), name);
         }
-        return reverseRemapper;
     }
 
 }
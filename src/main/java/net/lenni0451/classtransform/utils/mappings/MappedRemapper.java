@@ -0,0 +1,358 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A {@link MapRemapper} which looks up the mappings in a binary buffer (e.g. a memory mapped file) instead of keeping them on the heap<br>
+ * The buffer contains a sorted string table and sorted class, method, field and annotation attribute tables which are searched using binary search<br>
+ * Added mappings are stored on the heap and take priority over the mappings in the buffer<br>
+ * {@link #getMappings()} and {@link #reverse()} copy the mappings of the buffer to the heap and {@link #mapReverse(String)} copies the class mappings
+ */
+public class MappedRemapper extends MapRemapper {
+
+    /**
+     * Write the mappings of a remapper in the format read by this class
+     *
+     * @param remapper The remapper to write
+     * @param out      The output to write to
+     * @throws IOException If the output could not be written
+     */
+    public static void write(final MapRemapper remapper, final DataOutput out) throws IOException {
+        Map<String, String> mappings = remapper.getMappings();
+        Set<String> strings = new HashSet<>();
+        List<String[]> classes = new ArrayList<>();
+        List<String[]> methods = new ArrayList<>();
+        List<String[]> fields = new ArrayList<>();
+        List<String[]> attributes = new ArrayList<>();
+        for (Map.Entry<String, String> entry : mappings.entrySet()) {
+            String key = entry.getKey();
+            int dot = key.indexOf('.');
+            int colon = key.indexOf(':', Math.max(dot, 0));
+            int bracket = key.indexOf('(', Math.max(dot, 0));
+            String[] mapping;
+            if (dot == -1) {
+                classes.add(mapping = new String[]{key, entry.getValue()});
+            } else if (colon != -1) {
+                fields.add(mapping = new String[]{key.substring(0, dot), key.substring(dot + 1, colon), key.substring(colon + 1), entry.getValue()});
+            } else if (bracket != -1) {
+                methods.add(mapping = new String[]{key.substring(0, dot), key.substring(dot + 1, bracket), key.substring(bracket), entry.getValue()});
+            } else {
+                attributes.add(mapping = new String[]{key.substring(0, dot), key.substring(dot + 1), entry.getValue()});
+            }
+            Collections.addAll(strings, mapping);
+        }
+
+        //The strings are sorted by their UTF-8 bytes so the indices can be compared instead of the strings
+        List<byte[]> sortedStrings = new ArrayList<>();
+        for (String string : strings) sortedStrings.add(string.getBytes(StandardCharsets.UTF_8));
+        sortedStrings.sort(MappedRemapper::compare);
+        Map<String, Integer> indices = new HashMap<>();
+        out.writeInt(sortedStrings.size());
+        int offset = 0;
+        for (int i = 0; i < sortedStrings.size(); i++) {
+            byte[] string = sortedStrings.get(i);
+            indices.put(new String(string, StandardCharsets.UTF_8), i);
+            out.writeInt(offset);
+            offset += string.length;
+        }
+        out.writeInt(offset);
+        for (byte[] string : sortedStrings) out.write(string);
+
+        writeTable(out, classes, indices);
+        writeTable(out, methods, indices);
+        writeTable(out, fields, indices);
+        writeTable(out, attributes, indices);
+    }
+
+    private static void writeTable(final DataOutput out, final List<String[]> mappings, final Map<String, Integer> indices) throws IOException {
+        List<int[]> table = new ArrayList<>();
+        for (String[] mapping : mappings) {
+            int[] entry = new int[mapping.length];
+            for (int i = 0; i < mapping.length; i++) entry[i] = indices.get(mapping[i]);
+            table.add(entry);
+        }
+        table.sort((a, b) -> {
+            for (int i = 0; i < a.length - 1; i++) {
+                if (a[i] != b[i]) return Integer.compare(a[i], b[i]);
+            }
+            return 0;
+        });
+        out.writeInt(table.size());
+        for (int[] entry : table) {
+            for (int i : entry) out.writeInt(i);
+        }
+    }
+
+    private static int compare(final byte[] a, final byte[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return a.length - b.length;
+    }
+
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int dataStart;
+    private final Table classes;
+    private final Table methods;
+    private final Table fields;
+    private final Table attributes;
+    private Map<String, String> reverseClassMappings;
+
+    /**
+     * @param buffer The buffer containing the mappings written by {@link #write(MapRemapper, DataOutput)} starting at its current position
+     */
+    public MappedRemapper(final ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+        this.stringCount = this.buffer.getInt(0);
+        this.dataStart = 4 + (this.stringCount + 1) * 4;
+        int position = this.dataStart + this.buffer.getInt(4 + this.stringCount * 4);
+        this.classes = new Table(position, 2);
+        this.methods = new Table(this.classes.getEnd(), 4);
+        this.fields = new Table(this.methods.getEnd(), 4);
+        this.attributes = new Table(this.fields.getEnd(), 3);
+        if (this.attributes.getEnd() != this.buffer.limit()) throw new IllegalArgumentException("The size of the mappings does not match the buffer");
+    }
+
+    @Override
+    public Map<String, String> getMappings() {
+        Map<String, String> mappings = new HashMap<>();
+        for (Table table : new Table[]{this.classes, this.methods, this.fields, this.attributes}) {
+            for (int i = 0; i < table.count; i++) mappings.put(this.getKey(table, i), this.getString(table.get(i, table.width - 1)));
+        }
+        mappings.putAll(super.getMappings());
+        return Collections.unmodifiableMap(mappings);
+    }
+
+    @Override
+    public List<String> getStartingMappings(final String... starts) {
+        Set<String> mappings = new LinkedHashSet<>(super.getStartingMappings(starts));
+        for (String start : starts) {
+            int dot = start.indexOf('.');
+            if (dot == -1) {
+                //All keys with an owner starting with the prefix are in a range of the sorted string table
+                int[] range = this.prefixRange(start);
+                for (Table table : new Table[]{this.classes, this.methods, this.fields, this.attributes}) {
+                    for (int i = table.lowerBound(range[0]); i < table.count && table.get(i, 0) < range[1]; i++) mappings.add(this.getKey(table, i));
+                }
+            } else {
+                int owner = this.indexOf(start.substring(0, dot));
+                if (owner < 0) continue;
+                for (Table table : new Table[]{this.methods, this.fields, this.attributes}) {
+                    for (int i = table.lowerBound(owner); i < table.count && table.get(i, 0) == owner; i++) {
+                        String key = this.getKey(table, i);
+                        if (key.startsWith(start)) mappings.add(key);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(mappings);
+    }
+
+    @Override
+    public void addClassMapping(final String from, final String to, final boolean skipIfExists) {
+        super.addClassMapping(from, to, skipIfExists);
+        this.reverseClassMappings = null;
+    }
+
+    @Override
+    public void copy(final MapRemapper remapper) {
+        super.copy(remapper);
+        this.reverseClassMappings = null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return super.isEmpty() && this.classes.count == 0 && this.methods.count == 0 && this.fields.count == 0 && this.attributes.count == 0;
+    }
+
+    @Override
+    public String map(final String key) {
+        String mapped = super.map(key);
+        if (mapped != null) return mapped;
+        int dot = key.indexOf('.');
+        if (dot == -1) return this.getString(this.classes.find(this.indexOf(key), -1, -1));
+        String owner = key.substring(0, dot);
+        int colon = key.indexOf(':', dot);
+        int bracket = key.indexOf('(', dot);
+        if (colon != -1) return this.getString(this.fields.find(this.indexOf(owner), this.indexOf(key.substring(dot + 1, colon)), this.indexOf(key.substring(colon + 1))));
+        if (bracket != -1) return this.getString(this.methods.find(this.indexOf(owner), this.indexOf(key.substring(dot + 1, bracket)), this.indexOf(key.substring(bracket))));
+        return this.getString(this.attributes.find(this.indexOf(owner), this.indexOf(key.substring(dot + 1)), -1));
+    }
+
+    @Override
+    protected String lookupMethod(final String owner, final String name, final String desc) {
+        String mapped = super.lookupMethod(owner, name, desc);
+        if (mapped != null) return mapped;
+        return this.getString(this.methods.find(this.indexOf(owner), this.indexOf(name), this.indexOf(desc)));
+    }
+
+    @Override
+    protected String lookupField(final String owner, final String name, final String desc) {
+        String mapped = super.lookupField(owner, name, desc);
+        if (mapped != null) return mapped;
+        return this.getString(this.fields.find(this.indexOf(owner), this.indexOf(name), this.indexOf(desc)));
+    }
+
+    @Override
+    protected String lookupAnnotationAttribute(final String descriptor, final String name) {
+        String mapped = super.lookupAnnotationAttribute(descriptor, name);
+        if (mapped != null) return mapped;
+        return this.getString(this.attributes.find(this.indexOf(descriptor), this.indexOf(name), -1));
+    }
+
+    @Override
+    public String mapReverse(final String mapping) {
+        String key = super.mapReverse(mapping);
+        if (key != null) return key;
+        Map<String, String> reverseClassMappings = this.reverseClassMappings;
+        if (reverseClassMappings == null) {
+            reverseClassMappings = new HashMap<>();
+            for (int i = 0; i < this.classes.count; i++) {
+                String name = this.getString(this.classes.get(i, 0));
+                //Classes mapped on the heap are reversed by the super class
+                if (super.map(name) == null) reverseClassMappings.put(this.getString(this.classes.get(i, 1)), name);
+            }
+            this.reverseClassMappings = reverseClassMappings;
+        }
+        return reverseClassMappings.get(mapping);
+    }
+
+    private int indexOf(final String string) {
+        if (string == null) return -1;
+        int low = 0;
+        int high = this.stringCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int result = this.compare(mid, string, false);
+            if (result < 0) low = mid + 1;
+            else if (result > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the range of string indices starting with the given prefix<br>
+     * The end of the range is exclusive
+     */
+    private int[] prefixRange(final String prefix) {
+        int low = 0;
+        int high = this.stringCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.compare(mid, prefix, false) < 0) low = mid + 1;
+            else high = mid;
+        }
+        int start = low;
+        high = this.stringCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (this.compare(mid, prefix, true) == 0) low = mid + 1;
+            else high = mid;
+        }
+        return new int[]{start, low};
+    }
+
+    private int compare(final int index, final String string, final boolean prefix) {
+        //Compare the UTF-8 bytes in the buffer with the string without encoding it
+        int position = this.dataStart + this.buffer.getInt(4 + index * 4);
+        int end = this.dataStart + this.buffer.getInt(4 + (index + 1) * 4);
+        for (int i = 0; i < string.length(); ) {
+            int c = string.codePointAt(i);
+            i += Character.charCount(c);
+            int length = c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            for (int j = 0; j < length; j++) {
+                int b;
+                if (j == 0) b = length == 1 ? c : (0xF00 >> length) & 0xFF | c >> ((length - 1) * 6);
+                else b = 0x80 | (c >> ((length - 1 - j) * 6)) & 0x3F;
+                if (position >= end) return -1;
+                int diff = (this.buffer.get(position++) & 0xFF) - b;
+                if (diff != 0) return diff;
+            }
+        }
+        return position < end && !prefix ? 1 : 0;
+    }
+
+    private String getKey(final Table table, final int entry) {
+        String owner = this.getString(table.get(entry, 0));
+        if (table == this.classes) return owner;
+        String name = this.getString(table.get(entry, 1));
+        if (table == this.methods) return owner + "." + name + this.getString(table.get(entry, 2));
+        if (table == this.fields) return owner + "." + name + ":" + this.getString(table.get(entry, 2));
+        return owner + "." + name;
+    }
+
+    private String getString(final int index) {
+        if (index < 0) return null;
+        int start = this.dataStart + this.buffer.getInt(4 + index * 4);
+        int end = this.dataStart + this.buffer.getInt(4 + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = this.buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private class Table {
+
+        private final int start;
+        private final int count;
+        private final int width;
+
+        private Table(final int position, final int width) {
+            this.start = position + 4;
+            this.count = MappedRemapper.this.buffer.getInt(position);
+            this.width = width;
+        }
+
+        private int getEnd() {
+            return this.start + this.count * this.width * 4;
+        }
+
+        private int get(final int entry, final int column) {
+            return MappedRemapper.this.buffer.getInt(this.start + (entry * this.width + column) * 4);
+        }
+
+        /**
+         * Find the first entry with a first key column greater than or equal to the given string index
+         */
+        private int lowerBound(final int first) {
+            int low = 0;
+            int high = this.count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (this.get(mid, 0) < first) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /**
+         * Find the mapped string index for the given key string indices<br>
+         * Unused key columns are passed as -1
+         */
+        private int find(final int first, final int second, final int third) {
+            if (first < 0 || (this.width > 2 && second < 0) || (this.width > 3 && third < 0)) return -1;
+            int low = 0;
+            int high = this.count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int result = Integer.compare(this.get(mid, 0), first);
+                if (result == 0 && this.width > 2) result = Integer.compare(this.get(mid, 1), second);
+                if (result == 0 && this.width > 3) result = Integer.compare(this.get(mid, 2), third);
+                if (result < 0) low = mid + 1;
+                else if (result > 0) high = mid - 1;
+                else return this.get(mid, this.width - 1);
+            }
+            return -1;
+        }
+
+    }
+
+}
@@ -1,5 +1,6 @@
 package net.lenni0451.classtransform.utils.mappings;
 
+import net.lenni0451.classtransform.utils.index.MethodIndex;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.commons.ClassRemapper;
@@ -9,9 +10,35 @@ import org.objectweb.asm.tree.*;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class Remapper {
 
+    private static final Map<ClassNode, MapRemapper> COPY_REMAPPERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Get the remapper used to copy members from a transformer into the transformed class<br>
+     * It maps the transformer to the transformed class and collects all other mappings of the transformer (e.g. shadowed members)
+     * so the copied members only have to be remapped once
+     *
+     * @param source The transformer {@link ClassNode}
+     * @param target The transformed {@link ClassNode}
+     * @return The remapper
+     */
+    public static MapRemapper getCopyRemapper(final ClassNode source, final ClassNode target) {
+        synchronized (COPY_REMAPPERS) {
+            MapRemapper remapper = COPY_REMAPPERS.get(source);
+            if (remapper == null || !target.name.equals(remapper.map(source.name))) {
+                remapper = new MapRemapper();
+                remapper.addClassMapping(source.name, target.name);
+                COPY_REMAPPERS.put(source, remapper);
+            }
+            return remapper;
+        }
+    }
+
     /**
      * Remap a {@link MethodNode} using a {@link MethodRemapper}<br>
      * This is a wrapper for {@link #remapAndAdd(String, String, ClassNode, MethodNode)} using the {@param target} {@link ClassNode} as the new holder
@@ -21,7 +48,7 @@ public class Remapper {
      * @param methodNode The {@link MethodNode} to remap
      */
     public static void remapAndAdd(final ClassNode source, final ClassNode target, final MethodNode methodNode) {
-        remapAndAdd(source.name, target.name, target, methodNode);
+        remapAndAdd(source.name, getCopyRemapper(source, target), target, methodNode);
     }
 
     /**
@@ -33,7 +60,7 @@ public class Remapper {
      * @param fieldNode The {@link MethodNode} to remap
      */
     public static void remapAndAdd(final ClassNode source, final ClassNode target, final FieldNode fieldNode) {
-        remapAndAdd(source.name, target.name, target, fieldNode);
+        remapAndAdd(source.name, getCopyRemapper(source, target), target, fieldNode);
     }
 
     /**
@@ -45,10 +72,22 @@ public class Remapper {
      * @param methodNode The {@link MethodNode} to remap
      */
     public static void remapAndAdd(final String sourceName, final String targetName, final ClassNode holder, final MethodNode methodNode) {
-        MapRemapper remapper = new MapRemapper(sourceName, targetName);
+        remapAndAdd(sourceName, new MapRemapper(sourceName, targetName), holder, methodNode);
+    }
+
+    /**
+     * Remap a {@link MethodNode} using a {@link MethodRemapper}
+     *
+     * @param sourceName The original name of the class
+     * @param remapper   The {@link MapRemapper} to use
+     * @param holder     The {@link ClassNode} to which the new node gets added
+     * @param methodNode The {@link MethodNode} to remap
+     */
+    public static void remapAndAdd(final String sourceName, final MapRemapper remapper, final ClassNode holder, final MethodNode methodNode) {
         MethodVisitor newNode = holder.visitMethod(methodNode.access, remapper.mapMethodName(sourceName, methodNode.name, methodNode.desc), remapper.mapDesc(methodNode.desc), methodNode.signature, methodNode.exceptions == null ? null : remapper.mapTypes(methodNode.exceptions.toArray(new String[0])));
         MethodRemapper methodRemapper = new MethodRemapper(newNode, remapper);
         methodNode.accept(methodRemapper);
+        MethodIndex.invalidate(holder);
     }
 
     /**
@@ -60,7 +99,18 @@ public class Remapper {
      * @param fieldNode  The {@link FieldNode} to remap
      */
     public static void remapAndAdd(final String sourceName, final String targetName, final ClassNode holder, final FieldNode fieldNode) {
-        MapRemapper remapper = new MapRemapper(sourceName, targetName);
+        remapAndAdd(sourceName, new MapRemapper(sourceName, targetName), holder, fieldNode);
+    }
+
+    /**
+     * Remap a {@link FieldNode} using a {@link FieldRemapper}
+     *
+     * @param sourceName The original name of the class
+     * @param remapper   The {@link MapRemapper} to use
+     * @param holder     The {@link ClassNode} to which the new node gets added
+     * @param fieldNode  The {@link FieldNode} to remap
+     */
+    public static void remapAndAdd(final String sourceName, final MapRemapper remapper, final ClassNode holder, final FieldNode fieldNode) {
         FieldVisitor newNode = holder.visitField(fieldNode.access, remapper.mapFieldName(sourceName, fieldNode.name, fieldNode.desc), remapper.mapDesc(fieldNode.desc), remapper.mapSignature(fieldNode.signature, true), fieldNode.value == null ? null : remapper.mapValue(fieldNode.value));
         FieldRemapper fieldRemapper = new FieldRemapper(newNode, remapper);
         if (fieldNode.visibleTypeAnnotations != null) {
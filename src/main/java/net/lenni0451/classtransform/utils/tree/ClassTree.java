@@ -1,18 +1,23 @@
 package net.lenni0451.classtransform.utils.tree;
 
+import net.lenni0451.classtransform.events.TransformEvents;
 import net.lenni0451.classtransform.utils.ASMUtils;
 import org.objectweb.asm.tree.ClassNode;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClassTree {
 
-    private static final Map<String, ClassTree> TREE = new HashMap<>();
+    //Classes are removed by one-shot transformer managers while other classes are transformed
+    private static final Map<String, ClassTree> TREE = new ConcurrentHashMap<>();
 
     public static ClassTree getTreePart(final IClassProvider classProvider, String className) {
         className = className.replace("/", ".");
-        if (TREE.containsKey(className)) return TREE.get(className);
+        ClassTree cachedTree = TREE.get(className);
+        if (cachedTree != null) return cachedTree;
 
+        Object event = TransformEvents.get().beginHierarchyResolve();
         byte[] bytecode = classProvider.getClass(className);
         ClassNode node = ASMUtils.fromBytes(bytecode);
         ClassTree tree = new ClassTree(node);
@@ -27,9 +32,14 @@ public class ClassTree {
             }
         } while (oldSize != tree.superClasses.size());
 
+        if (event != null) TransformEvents.get().endHierarchyResolve(event, className, tree.superClasses.size());
         return tree;
     }
 
+    public static void remove(final String className) {
+        TREE.remove(className.replace("/", "."));
+    }
+
 
     private final ClassNode node;
     private final String name;
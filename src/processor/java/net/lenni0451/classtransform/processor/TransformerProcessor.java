@@ -0,0 +1,187 @@
+package net.lenni0451.classtransform.processor;
+
+import net.lenni0451.classtransform.TransformerIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * An annotation processor which checks transformer classes when they are compiled and generates the {@link TransformerIndex}<br>
+ * Only errors which can be found without the bytecode of the target classes are reported:<br>
+ * - Missing or empty target methods and classes<br>
+ * - Unknown injection and redirect targets<br>
+ * - Non-void inject handlers<br>
+ * - Target methods which don't exist or have a different static modifier (only if the target class is available)
+ */
+@SupportedAnnotationTypes(TransformerProcessor.C_TRANSFORMER)
+public class TransformerProcessor extends AbstractProcessor {
+
+    static final String C_TRANSFORMER = "net.lenni0451.classtransform.annotations.CTransformer";
+    private static final String INJECTION_PACKAGE = "net.lenni0451.classtransform.annotations.injection.";
+    private static final String C_INJECT = INJECTION_PACKAGE + "CInject";
+    private static final String C_REDIRECT = INJECTION_PACKAGE + "CRedirect";
+    private static final Set<String> INJECTION_TARGETS = new HashSet<>(Arrays.asList("HEAD", "RETURN", "THROW", "TAIL", "INVOKE", "FIELD", "GETFIELD", "PUTFIELD", "NEW", "OPCODE"));
+    private static final Set<String> REDIRECT_TARGETS = new HashSet<>(Arrays.asList("INVOKE", "GETFIELD", "PUTFIELD", "NEW"));
+
+    private final Map<String, List<String>> transformers = new LinkedHashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!this.transformers.isEmpty()) this.writeIndex();
+            return false;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement) this.processTransformer((TypeElement) element);
+            }
+        }
+        return false;
+    }
+
+    private void processTransformer(final TypeElement transformer) {
+        AnnotationMirror annotation = this.getAnnotation(transformer, C_TRANSFORMER);
+        List<String> targets = new ArrayList<>();
+        List<TypeElement> targetElements = new ArrayList<>();
+        for (AnnotationValue value : this.getList(annotation, "value")) {
+            TypeElement target = (TypeElement) ((DeclaredType) value.getValue()).asElement();
+            targets.add(this.processingEnv.getElementUtils().getBinaryName(target).toString());
+            targetElements.add(target);
+        }
+        for (AnnotationValue value : this.getList(annotation, "name")) targets.add((String) value.getValue());
+        if (targets.isEmpty()) {
+            this.error("Transformer '" + transformer.getQualifiedName() + "' does not have any target classes", transformer, annotation);
+            return;
+        }
+        //Target classes given by name may not be available at compile time
+        if (targetElements.size() != targets.size()) targetElements.clear();
+
+        for (Element member : transformer.getEnclosedElements()) {
+            if (member instanceof ExecutableElement) this.processHandler(transformer, (ExecutableElement) member, targetElements);
+        }
+        this.transformers.put(this.processingEnv.getElementUtils().getBinaryName(transformer).toString(), targets);
+    }
+
+    private void processHandler(final TypeElement transformer, final ExecutableElement handler, final List<TypeElement> targets) {
+        for (AnnotationMirror annotation : handler.getAnnotationMirrors()) {
+            String type = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (!type.startsWith(INJECTION_PACKAGE)) continue;
+
+            String prefix = "Method '" + handler.getSimpleName() + "' in transformer '" + transformer.getQualifiedName() + "' ";
+            List<String> combis = new ArrayList<>();
+            for (AnnotationValue value : this.getList(annotation, "method")) combis.add((String) value.getValue());
+            for (String combi : combis) {
+                if (combi.isEmpty()) this.error(prefix + "has an empty target method", handler, annotation);
+                else if (type.equals(C_INJECT) || type.equals(C_REDIRECT)) this.checkTargetMethod(prefix, handler, annotation, combi, targets);
+            }
+
+            if (type.equals(C_INJECT)) {
+                if (combis.isEmpty()) this.error(prefix + "does not have any target methods", handler, annotation);
+                if (handler.getReturnType().getKind() != TypeKind.VOID) this.error(prefix + "must have void return type", handler, null);
+                for (AnnotationValue value : this.getList(annotation, "target")) this.checkTarget(prefix, handler, annotation, value, INJECTION_TARGETS);
+            } else if (type.equals(C_REDIRECT)) {
+                if (combis.isEmpty()) this.error(prefix + "does not have any target methods", handler, annotation);
+                this.checkTarget(prefix, handler, annotation, this.getAnnotationValue(annotation, "target"), REDIRECT_TARGETS);
+            }
+        }
+    }
+
+    private void checkTarget(final String prefix, final ExecutableElement handler, final AnnotationMirror annotation, final AnnotationValue target, final Set<String> validTargets) {
+        if (target == null) return;
+        String value = (String) this.getValue((AnnotationMirror) target.getValue(), "value");
+        if (value != null && !validTargets.contains(value.toUpperCase(Locale.ROOT))) {
+            String message = prefix + "has invalid target '" + value + "' (valid targets: " + String.join(", ", new TreeSet<>(validTargets)) + ")";
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, handler, annotation, target);
+        }
+    }
+
+    private void checkTargetMethod(final String prefix, final ExecutableElement handler, final AnnotationMirror annotation, final String combi, final List<TypeElement> targets) {
+        String name = combi.contains("(") ? combi.substring(0, combi.indexOf('(')) : combi;
+        if (name.contains("*")) return;
+        boolean isStatic = handler.getModifiers().contains(Modifier.STATIC);
+        for (TypeElement target : targets) {
+            List<ExecutableElement> methods = new ArrayList<>();
+            for (Element member : target.getEnclosedElements()) {
+                if (!(member instanceof ExecutableElement)) continue;
+                String memberName = member.getKind() == ElementKind.CONSTRUCTOR ? "<init>" : member.getKind() == ElementKind.STATIC_INIT ? "<clinit>" : member.getSimpleName().toString();
+                if (memberName.equals(name)) methods.add((ExecutableElement) member);
+            }
+            //Static initializers are not part of the elements of a class
+            if (methods.isEmpty() && name.contains("$")) {
+                //Synthetic methods (lambdas, accessors, bridges) only exist in the compiled class
+                String message = prefix + "has target method '" + combi + "' which could not be verified in '" + target.getQualifiedName() + "'";
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, handler, annotation);
+            } else if (methods.isEmpty() && !name.equals("<clinit>")) {
+                this.error(prefix + "has target method '" + combi + "' which does not exist in '" + target.getQualifiedName() + "'", handler, annotation);
+            } else if (!methods.isEmpty() && methods.stream().noneMatch(method -> method.getModifiers().contains(Modifier.STATIC) == isStatic || method.getKind() == ElementKind.CONSTRUCTOR)) {
+                this.error(prefix + "must " + (isStatic ? "not " : "") + "be static", handler, annotation);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject resource = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", TransformerIndex.RESOURCE);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(TransformerIndex.HEADER + "\n");
+                for (Map.Entry<String, List<String>> entry : this.transformers.entrySet()) {
+                    writer.write(entry.getKey());
+                    for (String target : entry.getValue()) writer.write("\t" + target);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write transformer index: " + e.getMessage());
+        }
+    }
+
+    private AnnotationMirror getAnnotation(final Element element, final String type) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(type)) return annotation;
+        }
+        return null;
+    }
+
+    private AnnotationValue getAnnotationValue(final AnnotationMirror annotation, final String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) return entry.getValue();
+        }
+        return null;
+    }
+
+    private Object getValue(final AnnotationMirror annotation, final String name) {
+        AnnotationValue value = this.getAnnotationValue(annotation, name);
+        return value == null ? null : value.getValue();
+    }
+
+    private List<AnnotationValue> getList(final AnnotationMirror annotation, final String name) {
+        Object value = this.getValue(annotation, name);
+        if (value instanceof List) return (List<AnnotationValue>) value;
+        return Collections.emptyList();
+    }
+
+    private void error(final String message, final Element element, final AnnotationMirror annotation) {
+        //javac only reports the first error at every position, so errors which are not caused by the annotation are reported at the element
+        if (annotation == null) this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        else this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element, annotation);
+    }
+
+}
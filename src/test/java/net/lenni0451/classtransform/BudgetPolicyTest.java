@@ -0,0 +1,109 @@
+package net.lenni0451.classtransform;
+
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CASM;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.budget.IBudgetPolicy;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.log.ILogger;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetPolicyTest {
+
+    @Test
+    @DisplayName("Skip only the rejected transformers")
+    public void rejectTransformers() {
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        List<String> errors = new ArrayList<>();
+        transformerManager.setLogger(new TestLogger(new ArrayList<>(), errors));
+        transformerManager.setBudgetPolicy(IBudgetPolicy.REJECT);
+        transformerManager.addTransformer(GrowingTransformer.class.getName());
+        transformerManager.addTransformer(InterfaceTransformer.class.getName());
+        List<byte[]> postTransformed = new ArrayList<>();
+        transformerManager.addPostTransformConsumer((name, bytecode) -> postTransformed.add(bytecode));
+
+        byte[] transformed = transformerManager.transform(SCalculator.class.getName(), classProvider.getClass(SCalculator.class.getName()));
+        ClassNode classNode = ASMUtils.fromBytes(transformed);
+        assertTrue(classNode.interfaces.contains("java/io/Serializable"));
+        assertTrue(classNode.methods.stream().noneMatch(m -> m.name.contains("$CInject$")));
+        assertEquals(1, errors.size());
+        assertEquals(1, postTransformed.size());
+        assertSame(transformed, postTransformed.get(0));
+    }
+
+    @Test
+    @DisplayName("Log crossed limits using the logger of the manager")
+    public void logGrowth() {
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        List<String> warnings = new ArrayList<>();
+        transformerManager.setLogger(new TestLogger(warnings, new ArrayList<>()));
+        transformerManager.setBudgetPolicy(IBudgetPolicy.LOG);
+        transformerManager.addTransformer(GrowingTransformer.class.getName());
+
+        byte[] transformed = transformerManager.transform(SCalculator.class.getName(), classProvider.getClass(SCalculator.class.getName()));
+        assertTrue(ASMUtils.fromBytes(transformed).methods.stream().anyMatch(m -> m.name.contains("$CInject$")));
+        assertFalse(warnings.isEmpty());
+    }
+
+
+    private static class TestLogger implements ILogger {
+
+        private final List<String> warnings;
+        private final List<String> errors;
+
+        private TestLogger(final List<String> warnings, final List<String> errors) {
+            this.warnings = warnings;
+            this.errors = errors;
+        }
+
+        @Override
+        public void warn(final String message) {
+            this.warnings.add(message);
+        }
+
+        @Override
+        public void error(final String message, final Throwable throwable) {
+            this.errors.add(message);
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class GrowingTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"), cancellable = true)
+        public static void add(final int i1, final int i2, final InjectionCallback callback) {
+            if (i1 == 0) callback.setReturnValue(-1);
+        }
+
+        @CInject(method = "add", target = @CTarget("RETURN"), cancellable = true)
+        public static void addReturn(final int i1, final int i2, final InjectionCallback callback) {
+            if (i2 == 0) callback.setReturnValue(-2);
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class InterfaceTransformer {
+
+        @CASM
+        public static void transform(final ClassNode classNode) {
+            classNode.interfaces.add("java/io/Serializable");
+        }
+
+    }
+
+}
@@ -55,4 +55,78 @@ class InjectionCallbackTest {
         assertEquals("test", returnValue);
     }
 
+    @Test
+    @DisplayName("Shared non-cancellable callback can't be modified")
+    @Order(3)
+    public void sharedNonCancellableCallback() {
+        InjectionCallback callback = InjectionCallback.NON_CANCELLABLE;
+        assertThrows(IllegalArgumentException.class, () -> callback.setReturnValue("test"));
+        assertFalse(callback.isCancelled());
+        assertThrows(IllegalStateException.class, callback::getReturnValue);
+    }
+
+    @Test
+    @DisplayName("Reuse a callback after it has been released")
+    @Order(3)
+    public void reuseCallback() {
+        InjectionCallback callback = InjectionCallback.acquire(true);
+        callback.setReturnValue("test");
+        InjectionCallback nested = InjectionCallback.acquire(false, "nested");
+        assertNotSame(callback, nested);
+        assertEquals("nested", nested.getReturnValue());
+        assertEquals("test", callback.getReturnValue());
+        nested.release();
+        callback.release();
+
+        InjectionCallback reused = InjectionCallback.acquire(false);
+        assertSame(callback, reused);
+        assertFalse(reused.isCancellable());
+        assertFalse(reused.isCancelled());
+        assertThrows(IllegalStateException.class, reused::getReturnValue);
+        reused.release();
+    }
+
+    @Test
+    @DisplayName("Get a primitive return value without boxing")
+    @Order(4)
+    public void primitiveReturnValue() {
+        InjectionCallback callback = new InjectionCallback(true, 5);
+        assertEquals(5, callback.getReturnValueInt());
+        assertEquals(5, callback.getReturnValue());
+        callback.setReturnValue(2.5F);
+        assertEquals(2.5F, callback.getReturnValueFloat());
+        assertEquals(2.5F, callback.getReturnValue());
+        callback.setReturnValue(true);
+        assertTrue(callback.getReturnValueBoolean());
+        assertEquals(Boolean.TRUE, callback.getReturnValue());
+    }
+
+    @Test
+    @DisplayName("Get a boxed return value as primitive")
+    @Order(4)
+    public void boxedReturnValue() {
+        InjectionCallback callback = new InjectionCallback(true);
+        callback.setReturnValue((Object) 10L);
+        assertEquals(10L, callback.getReturnValueLong());
+        assertThrows(ClassCastException.class, callback::getReturnValueInt);
+        callback.setReturnValue((Object) 'a');
+        assertEquals('a', callback.getReturnValueChar());
+        callback.setReturnValue((Object) null);
+        assertThrows(NullPointerException.class, callback::getReturnValueInt);
+        assertThrows(IllegalStateException.class, () -> new InjectionCallback(true).getReturnValueInt());
+    }
+
+    @Test
+    @DisplayName("Get a mismatched primitive return value")
+    @Order(4)
+    public void mismatchedPrimitiveReturnValue() {
+        InjectionCallback callback = new InjectionCallback(true, 1.5F);
+        assertThrows(ClassCastException.class, callback::getReturnValueInt);
+        assertThrows(ClassCastException.class, callback::getReturnValueDouble);
+        callback.setReturnValue(300);
+        assertThrows(ClassCastException.class, callback::getReturnValueByte);
+        assertThrows(ClassCastException.class, callback::getReturnValueLong);
+        assertEquals(300, callback.getReturnValueInt());
+    }
+
 }
@@ -0,0 +1,53 @@
+package net.lenni0451.classtransform;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InjectionCountersTest {
+
+    @Test
+    @DisplayName("Register the same site twice")
+    public void registerSite() {
+        int id = InjectionCounters.register("Transformer", "handler()V", "Target", "target()V", "HEAD", 0);
+        assertEquals(id, InjectionCounters.register("Transformer", "handler()V", "Target", "target()V", "HEAD", 0));
+        assertNotEquals(id, InjectionCounters.register("Transformer", "handler()V", "Target", "target()V", "HEAD", 1));
+        assertEquals("Target", InjectionCounters.getSite(id).getTargetClass());
+    }
+
+    @Test
+    @DisplayName("Derive the id from the site")
+    public void stableId() {
+        CRC32 crc = new CRC32();
+        crc.update("Transformer handler()V Target stable()V HEAD 0".getBytes(StandardCharsets.UTF_8));
+        assertEquals((int) crc.getValue(), InjectionCounters.register("Transformer", "handler()V", "Target", "stable()V", "HEAD", 0));
+        assertThrows(IllegalArgumentException.class, () -> InjectionCounters.getSite((int) crc.getValue() + 1));
+    }
+
+    @Test
+    @DisplayName("Increment a counter")
+    public void incrementCounter() {
+        int id = InjectionCounters.register("Transformer", "handler()V", "Target", "target()V", "RETURN", 0);
+        long count = InjectionCounters.get(id);
+        InjectionCounters.increment(id);
+        InjectionCounters.increment(id);
+        assertEquals(count + 2, InjectionCounters.get(id));
+        long total = InjectionCounters.getCounts().get(InjectionCounters.getSite(id));
+        assertEquals(count + 2, total);
+    }
+
+    @Test
+    @DisplayName("Grow the registry")
+    public void growRegistry() {
+        for (int i = 0; i < 100; i++) {
+            int id = InjectionCounters.register("Transformer", "handler()V", "Target", "grow()V", "HEAD", i);
+            InjectionCounters.increment(id);
+            assertEquals(i, InjectionCounters.getSite(id).getIndex());
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package net.lenni0451.classtransform;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InjectionLinkerTest {
+
+    private static int handler(final int i) {
+        return i * 2;
+    }
+
+    private static String other(final String s) {
+        return s;
+    }
+
+    private static CallSite bootstrap(final String key) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodType type = MethodType.methodType(int.class, int.class);
+        return InjectionLinker.bootstrap(lookup, "handler", type, key, lookup.findStatic(InjectionLinkerTest.class, "handler", type));
+    }
+
+    @Test
+    @DisplayName("Keep the handler of sites which can't be disabled")
+    public void disableWithoutFallback() throws Throwable {
+        String key = "Test#disableWithoutFallback";
+        InjectionLinker.disable(key);
+        try {
+            CallSite callSite = bootstrap(key);
+            assertEquals(4, (int) callSite.dynamicInvoker().invokeExact(2));
+            assertThrows(IllegalStateException.class, () -> InjectionLinker.disable(key));
+        } finally {
+            InjectionLinker.enable(key);
+        }
+    }
+
+    @Test
+    @DisplayName("Reject swapped handlers with the wrong type")
+    public void swapWrongType() throws Throwable {
+        String key = "Test#swapWrongType";
+        CallSite callSite = bootstrap(key);
+        MethodHandle other = MethodHandles.lookup().findStatic(InjectionLinkerTest.class, "other", MethodType.methodType(String.class, String.class));
+        assertThrows(WrongMethodTypeException.class, () -> InjectionLinker.swap(key, other));
+        assertEquals(4, (int) callSite.dynamicInvoker().invokeExact(2));
+        assertEquals(4, (int) bootstrap(key).dynamicInvoker().invokeExact(2));
+    }
+
+    @Test
+    @DisplayName("Link new sites to a swapped handler")
+    public void swapHandler() throws Throwable {
+        String key = "Test#swapHandler";
+        bootstrap(key);
+        InjectionLinker.swap(key, MethodHandles.identity(int.class));
+        try {
+            assertEquals(2, (int) bootstrap(key).dynamicInvoker().invokeExact(2));
+        } finally {
+            InjectionLinker.enable(key);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package net.lenni0451.classtransform;
+
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CASM;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.test.VCalculator;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OneShotTest {
+
+    @Test
+    @DisplayName("Release transformers after all targets have been transformed")
+    public void releaseTransformers() {
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        transformerManager.setOneShot(true);
+        transformerManager.addTransformer(OneShotTransformer.class.getName());
+        assertEquals(2, transformerManager.getTransformedClasses().size());
+
+        byte[] bytecode = classProvider.getClass(SCalculator.class.getName());
+        assertFalse(Arrays.equals(bytecode, transformerManager.transform(SCalculator.class.getName(), bytecode)));
+        assertEquals(1, transformerManager.getTransformedClasses().size());
+        assertTrue(transformerManager.getTransformedClasses().contains(VCalculator.class.getName()));
+        assertSame(bytecode, transformerManager.transform(SCalculator.class.getName(), bytecode));
+
+        bytecode = classProvider.getClass(VCalculator.class.getName());
+        assertFalse(Arrays.equals(bytecode, transformerManager.transform(VCalculator.class.getName(), bytecode)));
+        assertTrue(transformerManager.getTransformedClasses().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Keep transformers without one-shot mode")
+    public void keepTransformers() {
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        transformerManager.addTransformer(OneShotTransformer.class.getName());
+
+        byte[] bytecode = classProvider.getClass(SCalculator.class.getName());
+        transformerManager.transform(SCalculator.class.getName(), bytecode);
+        assertEquals(2, transformerManager.getTransformedClasses().size());
+        assertFalse(Arrays.equals(bytecode, transformerManager.transform(SCalculator.class.getName(), bytecode)));
+    }
+
+
+    @CTransformer({SCalculator.class, VCalculator.class})
+    private static class OneShotTransformer {
+
+        @CASM
+        public static void transform(final ClassNode classNode) {
+            classNode.interfaces.add("java/io/Serializable");
+        }
+
+    }
+
+}
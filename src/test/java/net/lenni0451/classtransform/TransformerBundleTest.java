@@ -0,0 +1,73 @@
+package net.lenni0451.classtransform;
+
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformerBundleTest {
+
+    @Test
+    @DisplayName("Load transformers from a bundle")
+    public void loadBundle() throws IOException {
+        File bundle = File.createTempFile("transformers", ".bundle");
+        bundle.deleteOnExit();
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager exporter = new TransformerManager(classProvider);
+        exporter.addTransformer(BundledTransformer.class.getName());
+        exporter.exportBundle(bundle, "1");
+
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        assertTrue(transformerManager.addTransformerBundle(bundle, "1"));
+        assertTrue(transformerManager.getTransformedClasses().contains(SCalculator.class.getName()));
+
+        byte[] bytecode = classProvider.getClass(SCalculator.class.getName());
+        ClassNode transformedClass = ASMUtils.fromBytes(transformerManager.transform(SCalculator.class.getName(), bytecode));
+        assertTrue(transformedClass.methods.stream().anyMatch(method -> method.name.contains("$CInject")));
+    }
+
+    @Test
+    @DisplayName("Ignore invalid bundles")
+    public void ignoreInvalidBundles() throws IOException {
+        File bundle = File.createTempFile("transformers", ".bundle");
+        bundle.deleteOnExit();
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager exporter = new TransformerManager(classProvider);
+        exporter.addTransformer(BundledTransformer.class.getName());
+        exporter.exportBundle(bundle, "1");
+
+        assertFalse(new TransformerManager(classProvider).addTransformerBundle(bundle, "2"));
+        byte[] content = Files.readAllBytes(bundle.toPath());
+        content[content.length / 2] ^= 1;
+        Files.write(bundle.toPath(), content);
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        assertFalse(transformerManager.addTransformerBundle(bundle, "1"));
+        assertTrue(transformerManager.getTransformedClasses().isEmpty());
+
+        assertTrue(bundle.delete());
+        assertFalse(transformerManager.addTransformerBundle(bundle, "1"));
+    }
+
+
+    @CTransformer(SCalculator.class)
+    private static class BundledTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"))
+        public static void add(final int i1, final int i2) {
+        }
+
+    }
+
+}
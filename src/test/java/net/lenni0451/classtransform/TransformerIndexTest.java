@@ -0,0 +1,109 @@
+package net.lenni0451.classtransform;
+
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.test.VCalculator;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformerIndexTest {
+
+    @Test
+    @DisplayName("Load indexed transformers lazily")
+    public void loadIndexedTransformers() throws IOException {
+        TransformerIndex index = new TransformerIndex();
+        String content = TransformerIndex.HEADER + "\n" + IndexedTransformer.class.getName() + "\t" + SCalculator.class.getName() + "\n";
+        index.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        transformerManager.addTransformerIndex(index);
+        assertTrue(transformerManager.getTransformedClasses().contains(SCalculator.class.getName()));
+
+        byte[] bytecode = classProvider.getClass(SCalculator.class.getName());
+        byte[] transformed = transformerManager.transform(SCalculator.class.getName(), bytecode);
+        ClassNode transformedClass = ASMUtils.fromBytes(transformed);
+        assertTrue(transformedClass.methods.stream().anyMatch(method -> method.name.contains("$CInject")));
+        assertTrue(transformerManager.getTransformedClasses().contains(SCalculator.class.getName()));
+    }
+
+    @Test
+    @DisplayName("Load indexed transformers from multiple threads")
+    public void loadIndexedTransformersConcurrently() throws Exception {
+        String content = TransformerIndex.HEADER + "\n"
+                + IndexedTransformer.class.getName() + "\t" + SCalculator.class.getName() + "\n"
+                + VIndexedTransformer.class.getName() + "\t" + VCalculator.class.getName() + "\n";
+        IClassProvider classProvider = new BasicClassProvider();
+        String[] targets = {SCalculator.class.getName(), VCalculator.class.getName(), SCalculator.class.getName(), VCalculator.class.getName()};
+        ExecutorService executor = Executors.newFixedThreadPool(targets.length);
+        try {
+            for (int i = 0; i < 20; i++) {
+                TransformerIndex index = new TransformerIndex();
+                index.read(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+                TransformerManager transformerManager = new TransformerManager(classProvider);
+                transformerManager.addTransformerIndex(index);
+
+                CyclicBarrier barrier = new CyclicBarrier(targets.length);
+                List<Future<byte[]>> results = new ArrayList<>();
+                for (String target : targets) {
+                    byte[] bytecode = classProvider.getClass(target);
+                    results.add(executor.submit(() -> {
+                        barrier.await();
+                        return transformerManager.transform(target, bytecode);
+                    }));
+                }
+                for (Future<byte[]> result : results) {
+                    ClassNode transformedClass = ASMUtils.fromBytes(result.get());
+                    assertTrue(transformedClass.methods.stream().anyMatch(method -> method.name.contains("$CInject")), transformedClass.name + " was not transformed");
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Reject unknown index formats")
+    public void rejectUnknownFormat() {
+        TransformerIndex index = new TransformerIndex();
+        assertThrows(IOException.class, () -> index.read(new ByteArrayInputStream("#Unknown\n".getBytes(StandardCharsets.UTF_8))));
+    }
+
+
+    @CTransformer(SCalculator.class)
+    private static class IndexedTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"))
+        public static void add(final int i1, final int i2) {
+        }
+
+    }
+
+    @CTransformer(VCalculator.class)
+    private static class VIndexedTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"))
+        public void add(final int i1, final int i2) {
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package net.lenni0451.classtransform.budget;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetTrackerTest {
+
+    private ClassNode classNode;
+    private MethodNode method;
+
+    @BeforeEach
+    public void setUp() {
+        this.classNode = new ClassNode();
+        this.classNode.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Test", null, "java/lang/Object", null);
+        this.method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "test", "()V", null, null);
+        for (int i = 0; i < 30; i++) this.method.instructions.add(new InsnNode(Opcodes.NOP));
+        this.method.instructions.add(new InsnNode(Opcodes.RETURN));
+        this.classNode.methods.add(this.method);
+    }
+
+    @Test
+    @DisplayName("Calculate the code size")
+    public void codeSize() {
+        assertEquals(31, BudgetTracker.getCodeSize(this.method));
+    }
+
+    @Test
+    @DisplayName("Report crossed limits")
+    public void crossedLimits() {
+        BudgetTracker tracker = new BudgetTracker(this.classNode);
+        for (int i = 0; i < 10; i++) this.method.instructions.insert(new InsnNode(Opcodes.NOP));
+        ClassNode transformer = new ClassNode();
+        transformer.name = "Transformer";
+        tracker.transformed(transformer);
+
+        List<MethodGrowth> growths = tracker.getCrossedLimits();
+        assertEquals(1, growths.size());
+        MethodGrowth growth = growths.get(0);
+        assertEquals(31, growth.getOldSize());
+        assertEquals(41, growth.getNewSize());
+        assertEquals(MethodSizeLimit.MAX_INLINE_SIZE, growth.getCrossedLimits().get(0));
+        assertTrue(growth.getTransformers().contains("Transformer"));
+    }
+
+    @Test
+    @DisplayName("Attribute modifications which do not change the instruction count")
+    public void sameSizeModification() {
+        BudgetTracker tracker = new BudgetTracker(this.classNode);
+        this.method.instructions.set(this.method.instructions.getFirst(), new InsnNode(Opcodes.ICONST_0));
+        this.method.instructions.set(this.method.instructions.getFirst().getNext(), new InsnNode(Opcodes.POP));
+        ClassNode first = new ClassNode();
+        first.name = "First";
+        tracker.transformed(first);
+        for (int i = 0; i < 10; i++) this.method.instructions.insert(new InsnNode(Opcodes.NOP));
+        ClassNode second = new ClassNode();
+        second.name = "Second";
+        tracker.transformed(second);
+
+        List<MethodGrowth> growths = tracker.getCrossedLimits();
+        assertEquals(1, growths.size());
+        assertEquals(Arrays.asList("First", "Second"), new ArrayList<>(growths.get(0).getTransformers()));
+    }
+
+    @Test
+    @DisplayName("Ignore growth below the limits")
+    public void noCrossedLimits() {
+        BudgetTracker tracker = new BudgetTracker(this.classNode);
+        this.method.instructions.insert(new InsnNode(Opcodes.NOP));
+        assertTrue(tracker.getCrossedLimits().isEmpty());
+    }
+
+}
@@ -0,0 +1,130 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.mappings.impl.SrgMapper;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import net.lenni0451.classtransform.utils.mappings.MappedRemapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingCacheTest {
+
+    @Test
+    @DisplayName("Load mappings from the cache")
+    public void loadFromCache() throws IOException {
+        File source = File.createTempFile("mappings", ".srg");
+        File cache = File.createTempFile("mappings", ".cache");
+        source.deleteOnExit();
+        cache.deleteOnExit();
+        assertTrue(cache.delete());
+        this.write(source, "CL: a net/test/Täst", "CL: b net/test/Other", "FD: a/b net/test/Täst/field", "MD: a/c (La;)V net/test/Täst/run (Lnet/test/Täst;)V");
+
+        MapRemapper parsed = this.load(source, cache);
+        assertFalse(parsed instanceof MappedRemapper);
+        assertTrue(cache.isFile());
+
+        MapRemapper cached = this.load(source, cache);
+        assertTrue(cached instanceof MappedRemapper);
+        assertEquals(parsed.getMappings(), cached.getMappings());
+        assertEquals("net/test/Täst", cached.map("a"));
+        assertEquals("net/test/Other", cached.map("b"));
+        assertNull(cached.map("c"));
+        assertEquals("field", cached.mapFieldName("a", "b", "I"));
+        assertEquals("run", cached.mapMethodName("a", "c", "(La;)V"));
+        assertEquals("c", cached.mapMethodName("a", "c", "(Lb;)V"));
+        assertEquals("a", cached.mapReverse("net/test/Täst"));
+        assertEquals("c", cached.reverse().mapMethodName("net/test/Täst", "run", "(Lnet/test/Täst;)V"));
+
+        cached.addMethodMapping("a", "d", "()V", "added");
+        assertEquals("added", cached.mapMethodName("a", "d", "()V"));
+        cached.addClassMapping("a", "net/test/Moved");
+        assertEquals("a", cached.mapReverse("net/test/Moved"));
+        assertNull(cached.mapReverse("net/test/Täst"));
+        assertEquals("b", cached.mapReverse("net/test/Other"));
+
+        byte[] cacheBytes = Files.readAllBytes(cache.toPath());
+        Files.write(cache.toPath(), Arrays.copyOf(cacheBytes, cacheBytes.length + 4));
+        MapRemapper corrupted = this.load(source, cache);
+        assertFalse(corrupted instanceof MappedRemapper);
+        assertEquals(parsed.getMappings(), corrupted.getMappings());
+
+        this.write(source, "CL: a net/test/Changed");
+        MapRemapper changed = this.load(source, cache);
+        assertFalse(changed instanceof MappedRemapper);
+        assertEquals("net/test/Changed", changed.map("a"));
+    }
+
+    @Test
+    @DisplayName("Resolve short member names from the cache")
+    public void shortMemberNames() throws IOException {
+        File source = File.createTempFile("mappings", ".srg");
+        File cache = File.createTempFile("mappings", ".cache");
+        source.deleteOnExit();
+        cache.deleteOnExit();
+        assertTrue(cache.delete());
+        this.write(source, "CL: a net/test/Test", "CL: ab net/test/Other", "FD: a/b net/test/Test/field", "MD: a/c (La;)V net/test/Test/run (Lnet/test/Test;)V", "MD: a/c ()V net/test/Test/start ()V", "MD: ab/c ()V net/test/Other/other ()V");
+        this.load(source, cache);
+        MapRemapper cached = this.load(source, cache);
+        assertTrue(cached instanceof MappedRemapper);
+
+        List<String> methods = cached.getStartingMappings("a.c(");
+        Collections.sort(methods);
+        assertEquals(Arrays.asList("a.c()V", "a.c(La;)V"), methods);
+        assertEquals("start", cached.map("a.c()V"));
+        assertEquals("run", cached.map("a.c(La;)V"));
+        assertEquals(Collections.singletonList("a.b:"), cached.getStartingMappings("a.b:"));
+        assertEquals("field", cached.map("a.b:"));
+        assertNull(cached.map("a.d()V"));
+
+        List<String> all = cached.getStartingMappings("a");
+        Collections.sort(all);
+        assertEquals(Arrays.asList("a", "a.b:", "a.c()V", "a.c(La;)V", "ab", "ab.c()V"), all);
+
+        cached.addMethodMapping("a", "c", "(I)V", "added");
+        methods = cached.getStartingMappings("a.c(");
+        Collections.sort(methods);
+        assertEquals(Arrays.asList("a.c()V", "a.c(I)V", "a.c(La;)V"), methods);
+        assertEquals("added", cached.map("a.c(I)V"));
+    }
+
+    @Test
+    @DisplayName("Replace reversed members of the cache")
+    public void replaceReversedMember() throws IOException {
+        File source = File.createTempFile("mappings", ".srg");
+        File cache = File.createTempFile("mappings", ".cache");
+        source.deleteOnExit();
+        cache.deleteOnExit();
+        assertTrue(cache.delete());
+        this.write(source, "CL: a net/test/Test", "MD: a/c ()V net/test/Test/run ()V");
+        this.load(source, cache);
+        MapRemapper cached = this.load(source, cache);
+        assertTrue(cached instanceof MappedRemapper);
+
+        assertEquals("c", cached.reverse().mapMethodName("net/test/Test", "run", "()V"));
+        cached.addMethodMapping("a", "c", "()V", "renamed");
+        assertEquals("renamed", cached.map("a.c()V"));
+        assertEquals("run", cached.reverse().mapMethodName("net/test/Test", "run", "()V"));
+        assertEquals("c", cached.reverse().mapMethodName("net/test/Test", "renamed", "()V"));
+    }
+
+
+    private void write(final File file, final String... lines) throws IOException {
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MapRemapper load(final File source, final File cache) {
+        SrgMapper mapper = new SrgMapper(MapperConfig.create().cacheFile(cache), source);
+        mapper.load();
+        return mapper.getRemapper();
+    }
+
+}
@@ -0,0 +1,117 @@
+package net.lenni0451.classtransform.mappings;
+
+import net.lenni0451.classtransform.mappings.impl.ProguardMapper;
+import net.lenni0451.classtransform.mappings.impl.SrgMapper;
+import net.lenni0451.classtransform.mappings.impl.TinyV2Mapper;
+import net.lenni0451.classtransform.utils.mappings.MapRemapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappingParserTest {
+
+    @Test
+    @DisplayName("Parse tiny v2 mappings")
+    public void parseTinyV2() throws IOException {
+        File file = this.write(
+                "tiny\t2\t0\tofficial\tintermediary\tnamed",
+                "c\ta\tclass_1\tTest",
+                "\tc\tA comment",
+                "\tm\t(La;)V\tb\tmethod_1\ttest",
+                "\t\tp\t1\t\t\tparam",
+                "\tf\tLa;\tc\tfield_1\tself",
+                "c\td\tclass_2\tOther"
+        );
+        MapRemapper remapper = this.load(new TinyV2Mapper(MapperConfig.create(), file, TinyV2Mapper.Type.INTERMEDIARY_TO_CLEAN));
+        assertEquals("Test", remapper.map("class_1"));
+        assertEquals("Other", remapper.map("class_2"));
+        assertEquals("test", remapper.mapMethodName("class_1", "method_1", "(Lclass_1;)V"));
+        assertEquals("self", remapper.mapFieldName("class_1", "field_1", "Lclass_1;"));
+
+        File invalid = this.write("c\ta\tb");
+        assertThrows(RuntimeException.class, () -> new TinyV2Mapper(MapperConfig.create(), invalid, TinyV2Mapper.Type.OBFUSCATED_TO_CLEAN).load());
+    }
+
+    @Test
+    @DisplayName("Parse proguard mappings")
+    public void parseProguard() throws IOException {
+        File file = this.write(
+                "# comment",
+                "net.test.Test -> a:",
+                "    int field -> b",
+                "    1:2:void run() -> c",
+                "    3:3:java.lang.String get(int,char[]):5:5 -> d"
+        );
+        MapRemapper remapper = this.load(new ProguardMapper(MapperConfig.create(), file));
+        assertEquals("a", remapper.map("net/test/Test"));
+        assertEquals("b", remapper.mapFieldName("net/test/Test", "field", "I"));
+        assertEquals("c", remapper.mapMethodName("net/test/Test", "run", "()V"));
+        assertEquals("d", remapper.mapMethodName("net/test/Test", "get", "(I[C)Ljava/lang/String;"));
+    }
+
+    @Test
+    @DisplayName("Parse srg mappings")
+    public void parseSrg() throws IOException {
+        File file = this.write(
+                "CL: a net/test/Test",
+                "FD: a/b net/test/Test/field",
+                "MD: a/c (La;)V net/test/Test/run (Lnet/test/Test;)V"
+        );
+        MapRemapper remapper = this.load(new SrgMapper(MapperConfig.create(), file));
+        assertEquals("net/test/Test", remapper.map("a"));
+        assertEquals("field", remapper.mapFieldName("a", "b", "I"));
+        assertEquals("run", remapper.mapMethodName("a", "c", "(La;)V"));
+    }
+
+    @Test
+    @DisplayName("Parse large mappings in parallel")
+    public void parseParallel() throws IOException {
+        List<String> tinyLines = new ArrayList<>();
+        List<String> proguardLines = new ArrayList<>();
+        tinyLines.add("tiny\t2\t0\tofficial\tintermediary\tnamed");
+        for (int i = 0; i < 20000; i++) {
+            tinyLines.add("c\tc" + i + "\tclass_" + i + "\tnet/test/Class" + i);
+            proguardLines.add("net.test.Class" + i + " -> c" + i + ":");
+            for (int j = 0; j < 5; j++) {
+                tinyLines.add("\tm\t(Lc" + ((i + 1) % 20000) + ";)V\tm" + j + "\tmethod_" + i + "_" + j + "\tmethod" + j);
+                tinyLines.add("\tf\tLc" + i + ";\tf" + j + "\tfield_" + i + "_" + j + "\tfield" + j);
+                proguardLines.add("    1:1:void method" + j + "(net.test.Class" + ((i + 1) % 20000) + ") -> m" + j);
+                proguardLines.add("    int field" + j + " -> f" + j);
+            }
+        }
+        File tiny = this.write(tinyLines.toArray(new String[0]));
+        File proguard = this.write(proguardLines.toArray(new String[0]));
+
+        MapRemapper serialTiny = this.load(new TinyV2Mapper(MapperConfig.create(), tiny, TinyV2Mapper.Type.INTERMEDIARY_TO_CLEAN));
+        MapRemapper parallelTiny = this.load(new TinyV2Mapper(MapperConfig.create().parallelThreshold(0), tiny, TinyV2Mapper.Type.INTERMEDIARY_TO_CLEAN));
+        assertEquals(20000 * 11, parallelTiny.getMappings().size());
+        assertEquals(serialTiny.getMappings(), parallelTiny.getMappings());
+        assertEquals("method1", parallelTiny.mapMethodName("class_19999", "method_19999_1", "(Lclass_0;)V"));
+
+        MapRemapper serialProguard = this.load(new ProguardMapper(MapperConfig.create(), proguard));
+        MapRemapper parallelProguard = this.load(new ProguardMapper(MapperConfig.create().parallelThreshold(0), proguard));
+        assertEquals(serialProguard.getMappings(), parallelProguard.getMappings());
+    }
+
+
+    private File write(final String... lines) throws IOException {
+        File file = File.createTempFile("mappings", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private MapRemapper load(final AMapper mapper) {
+        mapper.load();
+        return mapper.getRemapper();
+    }
+
+}
@@ -0,0 +1,104 @@
+package net.lenni0451.classtransform.processor;
+
+import net.lenni0451.classtransform.TransformerIndex;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformerProcessorTest {
+
+    private static final String VALID = String.join("\n",
+            "import net.lenni0451.classtransform.annotations.*;",
+            "import net.lenni0451.classtransform.annotations.injection.*;",
+            "@CTransformer(value = java.util.Random.class, name = \"a.b.Obfuscated\")",
+            "public class Valid {",
+            "    @CInject(method = \"nextInt()I\", target = @CTarget(\"HEAD\"))",
+            "    public void nextInt() {",
+            "    }",
+            "    @CRedirect(method = \"nextInt\", target = @CTarget(value = \"INVOKE\", target = \"Ljava/util/Random;next(I)I\"))",
+            "    public int next(final java.util.Random random, final int bits) {",
+            "        return 0;",
+            "    }",
+            "    @CInject(method = \"lambda$doubles$0\", target = @CTarget(\"HEAD\"))",
+            "    public void lambda() {",
+            "    }",
+            "}");
+    private static final String INVALID = String.join("\n",
+            "import net.lenni0451.classtransform.annotations.*;",
+            "import net.lenni0451.classtransform.annotations.injection.*;",
+            "@CTransformer(java.util.Random.class)",
+            "public class Invalid {",
+            "    @CInject(method = \"nextInt\", target = @CTarget(\"UNKNOWN\"))",
+            "    public int nextInt() {",
+            "        return 0;",
+            "    }",
+            "    @CInject(method = \"missing\", target = @CTarget(\"HEAD\"))",
+            "    public void missing() {",
+            "    }",
+            "    @CRedirect(method = \"nextInt\", target = @CTarget(value = \"HEAD\"))",
+            "    public int head(final java.util.Random random) {",
+            "        return 0;",
+            "    }",
+            "    @CInject(method = \"nextInt\", target = @CTarget(\"HEAD\"))",
+            "    public static void staticInject() {",
+            "    }",
+            "}");
+
+    @Test
+    @DisplayName("Generate transformer index")
+    public void generateTransformerIndex() throws IOException {
+        File output = Files.createTempDirectory("classtransform").toFile();
+        List<Diagnostic<? extends JavaFileObject>> errors = this.compile(output, "Valid", VALID);
+        assertTrue(errors.isEmpty(), errors.toString());
+
+        TransformerIndex index = new TransformerIndex();
+        try (InputStream is = new FileInputStream(new File(output, TransformerIndex.RESOURCE))) {
+            index.read(is);
+        }
+        assertEquals(Collections.singletonMap("Valid", Arrays.asList("java.util.Random", "a.b.Obfuscated")), index.getTransformers());
+    }
+
+    @Test
+    @DisplayName("Report invalid transformers")
+    public void reportInvalidTransformers() throws IOException {
+        File output = Files.createTempDirectory("classtransform").toFile();
+        List<String> errors = this.compile(output, "Invalid", INVALID).stream().map(d -> d.getMessage(null)).collect(Collectors.toList());
+        assertEquals(5, errors.size(), errors.toString());
+        assertTrue(errors.stream().anyMatch(e -> e.contains("has invalid target 'UNKNOWN'")));
+        assertTrue(errors.stream().anyMatch(e -> e.contains("must have void return type")));
+        assertTrue(errors.stream().anyMatch(e -> e.contains("'missing' which does not exist")));
+        assertTrue(errors.stream().anyMatch(e -> e.contains("must not be static")));
+        assertTrue(errors.stream().anyMatch(e -> e.contains("has invalid target 'HEAD'")));
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(final File output, final String name, final String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        JavaFileObject file = new SimpleJavaFileObject(new File(name + ".java").toURI(), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = Arrays.asList("-d", output.getAbsolutePath(), "-classpath", System.getProperty("java.class.path"), "-proc:only");
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new TransformerProcessor()));
+        task.call();
+        return diagnostics.getDiagnostics().stream().filter(d -> d.getKind() == Diagnostic.Kind.ERROR).collect(Collectors.toList());
+    }
+
+}
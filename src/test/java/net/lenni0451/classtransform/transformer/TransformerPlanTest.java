@@ -0,0 +1,79 @@
+package net.lenni0451.classtransform.transformer;
+
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.exceptions.InvalidTargetException;
+import net.lenni0451.classtransform.exceptions.TransformerException;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformerPlanTest extends ATransformerTest {
+
+    @Test
+    @DisplayName("Compile transformer")
+    public void compileTransformer() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.TransformerPlanTest$ValidTransformer");
+        TransformerPlan plan = TransformerPlan.compile(transformer, this.classProvider, this.injectionTargets.keySet());
+        assertEquals(1, plan.getTargets().size());
+        assertEquals(SCalculator.class.getName(), plan.getTargets().get(0));
+
+        List<Annotation> annotations = plan.getAnnotations("add(II)V");
+        assertEquals(1, annotations.size());
+        assertTrue(annotations.get(0) instanceof CInject);
+        assertEquals("HEAD", ((CInject) annotations.get(0)).target()[0].value());
+
+        //The internal transformers get the same instance when parsing the annotation again
+        TransformerPlan other = TransformerPlan.compile(ASMUtils.cloneClass(transformer), this.classProvider, this.injectionTargets.keySet());
+        assertSame(annotations.get(0), other.getAnnotations("add(II)V").get(0));
+    }
+
+    @Test
+    @DisplayName("Reject invalid transformers")
+    public void rejectInvalidTransformers() {
+        ClassNode invalidTarget = this.getTransformerClass("net.lenni0451.classtransform.transformer.TransformerPlanTest$InvalidTargetTransformer");
+        assertThrows(InvalidTargetException.class, () -> this.transformerManager.addTransformer(invalidTarget));
+        ClassNode invalidReturn = this.getTransformerClass("net.lenni0451.classtransform.transformer.TransformerPlanTest$InvalidReturnTransformer");
+        assertThrows(TransformerException.class, () -> this.transformerManager.addTransformer(invalidReturn));
+        ClassNode noTransformer = ASMUtils.fromBytes(this.classProvider.getClass(SCalculator.class.getName()));
+        assertThrows(IllegalStateException.class, () -> this.transformerManager.addTransformer(noTransformer));
+    }
+
+
+    @CTransformer(SCalculator.class)
+    private static class ValidTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"))
+        public static void add(final int i1, final int i2) {
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class InvalidTargetTransformer {
+
+        @CInject(method = "add", target = @CTarget("UNKNOWN"))
+        public static void add(final int i1, final int i2) {
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class InvalidReturnTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"))
+        public static int add(final int i1, final int i2) {
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,290 @@
+package net.lenni0451.classtransform.transformer.impl;
+
+import net.lenni0451.classtransform.InjectionCallback;
+import net.lenni0451.classtransform.InjectionCounters;
+import net.lenni0451.classtransform.InjectionLinker;
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.InjectionInfo;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.test.TestClassLoader;
+import net.lenni0451.classtransform.test.VCalculator;
+import net.lenni0451.classtransform.transformer.ATransformerTest;
+import net.lenni0451.classtransform.utils.ASMUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CInjectTransformerTest extends ATransformerTest {
+
+    private final CInjectTransformer transformer = new CInjectTransformer();
+
+    @Test
+    @DisplayName("Inject into static method")
+    public void injectStatic() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        int r1 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 1, 2));
+        assertEquals(3, r1);
+        int r2 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, r2);
+        double r3 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, 4D, 2D));
+        assertEquals(4D, r3);
+        double r4 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, 4D, 0D));
+        assertEquals(0D, r4);
+    }
+
+    @Test
+    @DisplayName("Inject using reused callbacks")
+    public void injectReusedCallbacks() {
+        this.transformerManager.setCallbackMode(CInject.CallbackMode.REUSE);
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        for (int i = 0; i < 2; i++) {
+            int r1 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+            assertEquals(-1, r1);
+            double r2 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, 4D, 2D));
+            assertEquals(4D, r2);
+        }
+    }
+
+    @Test
+    @DisplayName("Only share callbacks if enabled")
+    public void sharedCallbacksOptIn() {
+        assertEquals(CInject.CallbackMode.ALLOCATE, this.transformerManager.getCallbackMode());
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SharedInjectTestTransformer");
+        ClassNode allocated = ASMUtils.cloneClass(this.staticCalculatorClass);
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, allocated, ASMUtils.cloneClass(transformer));
+        assertFalse(this.usesSharedCallback(allocated));
+
+        this.transformerManager.setCallbackMode(CInject.CallbackMode.SHARED);
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        assertTrue(this.usesSharedCallback(this.staticCalculatorClass));
+    }
+
+    private boolean usesSharedCallback(final ClassNode classNode) {
+        return classNode.methods.stream().flatMap(method -> Arrays.stream(method.instructions.toArray())).anyMatch(instruction -> {
+            if (!(instruction instanceof FieldInsnNode)) return false;
+            FieldInsnNode fieldInsnNode = (FieldInsnNode) instruction;
+            return fieldInsnNode.owner.equals(Type.getInternalName(InjectionCallback.class)) && fieldInsnNode.name.equals("NON_CANCELLABLE");
+        });
+    }
+
+    @Test
+    @DisplayName("Release reused callbacks if the handler throws")
+    public void releaseReusedCallbackOnThrow() {
+        this.transformerManager.setCallbackMode(CInject.CallbackMode.REUSE);
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$ThrowingInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        InvocationTargetException e1 = assertThrows(InvocationTargetException.class, () -> clazz.getDeclaredMethod("subtract", int.class, int.class).invoke(null, -1, 2));
+        assertTrue(e1.getCause() instanceof IllegalStateException);
+        this.assertCallbackReusable();
+        InvocationTargetException e2 = assertThrows(InvocationTargetException.class, () -> clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, -4D, 2D));
+        assertTrue(e2.getCause() instanceof IllegalStateException);
+        this.assertCallbackReusable();
+
+        int r1 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("subtract", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, r1);
+        double r2 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, 4D, 2D));
+        assertEquals(2D, r2);
+    }
+
+    private void assertCallbackReusable() {
+        InjectionCallback callback = InjectionCallback.acquire(true);
+        callback.release();
+        assertSame(callback, InjectionCallback.acquire(true));
+        callback.release();
+    }
+
+    @Test
+    @DisplayName("Name copied handlers deterministically")
+    public void deterministicHandlerNames() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SInjectTestTransformer");
+        ClassNode otherClass = ASMUtils.fromBytes(this.classProvider.getClass(SCalculator.class.getName()));
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, ASMUtils.cloneClass(transformer));
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, otherClass, ASMUtils.cloneClass(transformer));
+        List<String> names = this.staticCalculatorClass.methods.stream().map(m -> m.name).collect(Collectors.toList());
+        assertEquals(names, otherClass.methods.stream().map(m -> m.name).collect(Collectors.toList()));
+
+        assertTrue(names.stream().anyMatch(name -> name.startsWith("divideHead$CInject$")));
+        assertTrue(names.stream().anyMatch(name -> name.startsWith("divideReturn$CInject$")));
+    }
+
+    @Test
+    @DisplayName("Share handler copies between transformer instances")
+    public void shareHandlerCopies() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, ASMUtils.cloneClass(transformer));
+        List<String> names = this.staticCalculatorClass.methods.stream().map(m -> m.name + m.desc).collect(Collectors.toList());
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, ASMUtils.cloneClass(transformer));
+        assertEquals(names, this.staticCalculatorClass.methods.stream().map(m -> m.name + m.desc).collect(Collectors.toList()));
+
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        int result = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, result);
+    }
+
+    @Test
+    @DisplayName("Copy handler only once for multiple targets")
+    public void copyHandlerOnce() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$MultiTargetTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        assertEquals(1, this.staticCalculatorClass.methods.stream().filter(m -> m.name.contains("$CInject")).count());
+        MethodNode handler = this.staticCalculatorClass.methods.stream().filter(m -> m.name.contains("$CInject")).findFirst().get();
+        assertEquals(1, handler.invisibleAnnotations.stream().filter(a -> a.desc.equals(Type.getDescriptor(InjectionInfo.class))).count());
+
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        int r1 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, r1);
+        int r2 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("subtract", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, r2);
+    }
+
+    @Test
+    @DisplayName("Count injection site invocations")
+    public void countInvocations() {
+        this.transformerManager.setInjectionCounters(true);
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        InjectionCounters.Site site = InjectionCounters.getCounts().keySet().stream()
+                .filter(s -> s.getTargetClass().equals(this.staticCalculatorClass.name) && s.getTargetMethod().equals("add(II)I"))
+                .findFirst().orElseThrow(IllegalStateException::new);
+        long count = InjectionCounters.get(site.getId());
+        assertDoesNotThrow(() -> clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 1, 2));
+        assertDoesNotThrow(() -> clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(count + 2, InjectionCounters.get(site.getId()));
+        assertEquals("HEAD", site.getInjectionTarget());
+    }
+
+    @Test
+    @DisplayName("Relink dynamic handlers")
+    public void relinkDynamicHandlers() {
+        this.transformerManager.setDynamicHandlers(true);
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$SInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        String key = transformer.name + "#add(IILnet/lenni0451/classtransform/InjectionCallback;)V";
+
+        int r1 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, r1);
+        assertTrue(InjectionLinker.getKeys().contains(key));
+        try {
+            InjectionLinker.disable(key);
+            int r2 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+            assertEquals(2, r2);
+        } finally {
+            InjectionLinker.enable(key);
+        }
+        int r3 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 0, 2));
+        assertEquals(-1, r3);
+    }
+
+    @Test
+    @DisplayName("Inject into virtual method")
+    public void injectVirtual() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CInjectTransformerTest$VInjectTestTransformer");
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.virtualCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.virtualCalculatorClass);
+        Object instance = assertDoesNotThrow(() -> clazz.getDeclaredConstructor().newInstance());
+        int r5 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(instance, 1, 2));
+        assertEquals(3, r5);
+        int r6 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(instance, 0, 2));
+        assertEquals(-1, r6);
+        double r7 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(instance, 4D, 2D));
+        assertEquals(4D, r7);
+        double r8 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(instance, 4D, 0D));
+        assertEquals(0D, r8);
+    }
+
+
+    @CTransformer(SCalculator.class)
+    private static class SInjectTestTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"), cancellable = true)
+        public static void add(final int i1, final int i2, final InjectionCallback callback) {
+            if (i1 == 0) callback.setReturnValue(-1);
+        }
+
+        @CInject(method = "divide", target = @CTarget("HEAD"), cancellable = true)
+        public static void divideHead(final double d1, final double d2, final InjectionCallback callback) {
+            if (d2 == 0) callback.setReturnValue(0D);
+        }
+
+        @CInject(method = "divide", target = @CTarget("RETURN"), cancellable = true)
+        public static void divideReturn(final double d1, final double d2, final InjectionCallback callback) {
+            callback.setReturnValue((double) callback.getReturnValue() * 2);
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class SharedInjectTestTransformer {
+
+        @CInject(method = "subtract", target = @CTarget("HEAD"))
+        public static void subtract(final int i1, final int i2, final InjectionCallback callback) {
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class ThrowingInjectTestTransformer {
+
+        @CInject(method = "subtract", target = @CTarget("HEAD"), cancellable = true)
+        public static void subtract(final int i1, final int i2, final InjectionCallback callback) {
+            if (i1 < 0) throw new IllegalStateException();
+            if (i1 == 0) callback.setReturnValue(-1);
+        }
+
+        @CInject(method = "divide", target = @CTarget("RETURN"))
+        public static void divide(final double d1, final double d2, final InjectionCallback callback) {
+            if (d1 < 0) throw new IllegalStateException();
+        }
+
+    }
+
+    @CTransformer(SCalculator.class)
+    private static class MultiTargetTestTransformer {
+
+        @CInject(method = {"add", "subtract"}, target = @CTarget("HEAD"), cancellable = true)
+        public static void inject(final int i1, final int i2, final InjectionCallback callback) {
+            if (i1 == 0) callback.setReturnValue(-1);
+        }
+
+    }
+
+    @CTransformer(VCalculator.class)
+    private static class VInjectTestTransformer {
+
+        @CInject(method = "add", target = @CTarget("HEAD"), cancellable = true)
+        public void add(final int i1, final int i2, final InjectionCallback callback) {
+            if (i1 == 0) callback.setReturnValue(-1);
+        }
+
+        @CInject(method = "divide", target = @CTarget("HEAD"), cancellable = true)
+        public void divideHead(final double d1, final double d2, final InjectionCallback callback) {
+            if (d2 == 0) callback.setReturnValue(0D);
+        }
+
+        @CInject(method = "divide", target = @CTarget("RETURN"), cancellable = true)
+        public void divideReturn(final double d1, final double d2, final InjectionCallback callback) {
+            callback.setReturnValue((double) callback.getReturnValue() * 2);
+        }
+
+    }
+
+}
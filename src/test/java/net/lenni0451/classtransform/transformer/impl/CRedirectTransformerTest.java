@@ -9,9 +9,11 @@ import net.lenni0451.classtransform.test.SCalculator;
 import net.lenni0451.classtransform.test.TestClassLoader;
 import net.lenni0451.classtransform.test.VCalculator;
 import net.lenni0451.classtransform.transformer.ATransformerTest;
+import net.lenni0451.classtransform.utils.ASMUtils;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 import java.util.Random;
 
@@ -49,6 +51,20 @@ class CRedirectTransformerTest extends ATransformerTest {
         assertEquals(rint, 1234);
     }
 
+    @Test
+    @DisplayName("Redirect virtual invoke without locals")
+    public void redirectVirtualInvokeWithoutLocals() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.CRedirectTransformerTest$VBoundInvokeTestTransformer");
+        MethodNode rbint = ASMUtils.getMethod(this.virtualCalculatorClass, "rbint", "(I)I");
+        int maxLocals = rbint.maxLocals;
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.virtualCalculatorClass, transformer);
+        assertEquals(maxLocals, rbint.maxLocals);
+        Class<?> clazz = TestClassLoader.load(this.virtualCalculatorClass);
+        Object instance = assertDoesNotThrow(() -> clazz.getDeclaredConstructor().newInstance());
+        int rint = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("rbint", int.class).invoke(instance, 10));
+        assertEquals(rint, 1010);
+    }
+
     @Test
     @DisplayName("Redirect static GETFIELD")
     public void redirectStaticGETFIELD() {
@@ -149,6 +165,16 @@ class CRedirectTransformerTest extends ATransformerTest {
 
     }
 
+    @CTransformer(VCalculator.class)
+    private static class VBoundInvokeTestTransformer {
+
+        @CRedirect(method = "rbint", target = @CTarget(value = "INVOKE", target = "Ljava/util/Random;nextInt(I)I"))
+        public int nextInt(final Random rnd, final int bound) {
+            return 1000 + bound;
+        }
+
+    }
+
     @CTransformer(SCalculator.class)
     private static class SGetfieldTestTransformer {
 
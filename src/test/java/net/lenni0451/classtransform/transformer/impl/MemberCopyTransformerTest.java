@@ -40,6 +40,17 @@ class MemberCopyTransformerTest extends ATransformerTest {
         assertEquals(Math.E, vPi);
     }
 
+    @Test
+    @DisplayName("Copy method using a renamed shadow")
+    public void copyRenamedShadow() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.transformer.impl.MemberCopyTransformerTest$RenamedShadowTest");
+        new CShadowTransformer().transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        this.transformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        double sPi = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("getShadowPi").invoke(null));
+        assertEquals(Math.PI, sPi);
+    }
+
     private void removeShadows(final ClassNode transformer) {
         CShadowTransformer shadowTransformer = new CShadowTransformer();
         shadowTransformer.transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
@@ -63,4 +74,16 @@ class MemberCopyTransformerTest extends ATransformerTest {
 
     }
 
+    @CTransformer(SCalculator.class)
+    private static class RenamedShadowTest {
+
+        @CShadow("pi")
+        private static double shadowPi;
+
+        public static double getShadowPi() {
+            return shadowPi;
+        }
+
+    }
+
 }
\ No newline at end of file
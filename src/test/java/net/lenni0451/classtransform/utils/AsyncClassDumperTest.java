@@ -0,0 +1,76 @@
+package net.lenni0451.classtransform.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncClassDumperTest {
+
+    @Test
+    @DisplayName("Dump classes to a directory")
+    public void dumpToDirectory() throws IOException {
+        File directory = Files.createTempDirectory("dump").toFile();
+        AsyncClassDumper dumper = AsyncClassDumper.toDirectory(directory, 16, AsyncClassDumper.OverflowPolicy.BLOCK);
+        for (int i = 0; i < 100; i++) dumper.transform("net.test.Class" + i, new byte[]{(byte) i});
+        dumper.flush();
+        assertArrayEquals(new byte[]{5}, Files.readAllBytes(new File(directory, "net/test/Class5.class").toPath()));
+        dumper.transform("net.test.Class5", new byte[]{1, 2});
+        dumper.close();
+        assertArrayEquals(new byte[]{1, 2}, Files.readAllBytes(new File(directory, "net/test/Class5.class").toPath()));
+        assertEquals(0, dumper.getDropped());
+
+        dumper.transform("net.test.Closed", new byte[0]);
+        assertEquals(1, dumper.getDropped());
+        assertFalse(new File(directory, "net/test/Closed.class").exists());
+    }
+
+    @Test
+    @DisplayName("Count classes dumped while closing")
+    public void closeWhileDumping() throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("dump").toFile();
+        AsyncClassDumper dumper = AsyncClassDumper.toDirectory(directory, 1, AsyncClassDumper.OverflowPolicy.BLOCK);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int thread = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 200; j++) dumper.transform("net.test.Class" + thread + "_" + j, new byte[]{(byte) j});
+            });
+            threads[i].start();
+        }
+        Thread.sleep(5);
+        dumper.close();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+            assertFalse(thread.isAlive());
+        }
+
+        File[] written = new File(directory, "net/test").listFiles();
+        assertEquals(threads.length * 200, (written == null ? 0 : written.length) + dumper.getDropped());
+    }
+
+    @Test
+    @DisplayName("Dump classes to a zip file")
+    public void dumpToZip() throws IOException {
+        File file = File.createTempFile("dump", ".zip");
+        file.deleteOnExit();
+        AsyncClassDumper dumper = AsyncClassDumper.toZip(file, 4, AsyncClassDumper.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 10; i++) {
+            dumper.transform("net.test.Class" + i, new byte[]{(byte) i});
+            dumper.flush();
+        }
+        dumper.transform("net.test.Class0", new byte[]{1, 2});
+        dumper.close();
+
+        try (ZipFile zip = new ZipFile(file)) {
+            assertEquals(10, zip.size());
+            assertEquals(1, zip.getEntry("net/test/Class0.class").getSize());
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.InjectionCallback;
+import net.lenni0451.classtransform.annotations.CTarget;
+import net.lenni0451.classtransform.annotations.CTransformer;
+import net.lenni0451.classtransform.annotations.injection.CInject;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.test.TestClassLoader;
+import net.lenni0451.classtransform.transformer.ATransformerTest;
+import net.lenni0451.classtransform.transformer.impl.CInjectTransformer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HandlerInlinerTest extends ATransformerTest {
+
+    @Test
+    @DisplayName("Inline handlers into the injection sites")
+    public void inlineHandlers() {
+        ClassNode transformer = this.getTransformerClass("net.lenni0451.classtransform.utils.HandlerInlinerTest$InlineTestTransformer");
+        new CInjectTransformer().transform(this.transformerManager, this.classProvider, this.injectionTargets, this.staticCalculatorClass, transformer);
+        HandlerInliner.inline(this.staticCalculatorClass);
+        for (MethodNode method : this.staticCalculatorClass.methods) assertFalse(method.name.contains("$CInject"), method.name);
+
+        Class<?> clazz = TestClassLoader.load(this.staticCalculatorClass);
+        int r1 = assertDoesNotThrow(() -> (int) clazz.getDeclaredMethod("add", int.class, int.class).invoke(null, 1, 2));
+        assertEquals(4, r1);
+        double r2 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, 4D, 2D));
+        assertEquals(2D, r2);
+        double r3 = assertDoesNotThrow(() -> (double) clazz.getDeclaredMethod("divide", double.class, double.class).invoke(null, 4D, 0D));
+        assertEquals(0D, r3);
+    }
+
+
+    @CTransformer(SCalculator.class)
+    private static class InlineTestTransformer {
+
+        @CInject(method = "add", target = @CTarget("RETURN"), cancellable = true)
+        public static void add(final int i1, final int i2, final InjectionCallback callback) {
+            callback.setReturnValue(callback.getReturnValueInt() + 1);
+        }
+
+        @CInject(method = "divide", target = @CTarget("HEAD"), cancellable = true)
+        public static void divide(final double d1, final double d2, final InjectionCallback callback) {
+            try {
+                if (d2 == 0) throw new ArithmeticException();
+            } catch (ArithmeticException e) {
+                callback.setReturnValue(0D);
+            }
+        }
+
+    }
+
+}
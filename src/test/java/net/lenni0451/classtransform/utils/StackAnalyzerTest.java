@@ -0,0 +1,68 @@
+package net.lenni0451.classtransform.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StackAnalyzerTest {
+
+    @Test
+    @DisplayName("Find the start of the arguments")
+    public void findArgumentStart() {
+        ClassNode owner = this.createClass();
+        MethodNode method = this.createMethod(owner);
+        VarInsnNode receiver = new VarInsnNode(Opcodes.ALOAD, 1);
+        MethodInsnNode call = new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/String", "charAt", "(I)C");
+        method.instructions.add(receiver);
+        method.instructions.add(new InsnNode(Opcodes.ICONST_1));
+        method.instructions.add(new InsnNode(Opcodes.DUP));
+        method.instructions.add(new InsnNode(Opcodes.IADD));
+        method.instructions.add(call);
+        method.instructions.add(new InsnNode(Opcodes.IRETURN));
+
+        StackAnalyzer analyzer = StackAnalyzer.analyze(owner, method);
+        assertNotNull(analyzer);
+        assertSame(receiver, analyzer.getArgumentStart(call, 2));
+        assertSame(call, analyzer.getArgumentStart(call, 0));
+    }
+
+    @Test
+    @DisplayName("Ignore branching arguments")
+    public void ignoreBranchingArguments() {
+        ClassNode owner = this.createClass();
+        MethodNode method = this.createMethod(owner);
+        LabelNode other = new LabelNode();
+        LabelNode end = new LabelNode();
+        MethodInsnNode call = new MethodInsnNode(Opcodes.INVOKEVIRTUAL, "java/lang/String", "charAt", "(I)C");
+        method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+        method.instructions.add(new VarInsnNode(Opcodes.ALOAD, 1));
+        method.instructions.add(new JumpInsnNode(Opcodes.IFNULL, other));
+        method.instructions.add(new InsnNode(Opcodes.ICONST_1));
+        method.instructions.add(new JumpInsnNode(Opcodes.GOTO, end));
+        method.instructions.add(other);
+        method.instructions.add(new InsnNode(Opcodes.ICONST_0));
+        method.instructions.add(end);
+        method.instructions.add(call);
+        method.instructions.add(new InsnNode(Opcodes.IRETURN));
+
+        StackAnalyzer analyzer = StackAnalyzer.analyze(owner, method);
+        assertNotNull(analyzer);
+        assertNull(analyzer.getArgumentStart(call, 2));
+    }
+
+    private ClassNode createClass() {
+        ClassNode owner = new ClassNode();
+        owner.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Test", null, "java/lang/Object", null);
+        return owner;
+    }
+
+    private MethodNode createMethod(final ClassNode owner) {
+        MethodNode method = new MethodNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "test", "(Ljava/lang/Object;Ljava/lang/String;)C", null, null);
+        owner.methods.add(method);
+        return method;
+    }
+
+}
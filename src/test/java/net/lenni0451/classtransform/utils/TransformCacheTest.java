@@ -0,0 +1,80 @@
+package net.lenni0451.classtransform.utils;
+
+import net.lenni0451.classtransform.TransformerManager;
+import net.lenni0451.classtransform.test.SCalculator;
+import net.lenni0451.classtransform.utils.tree.BasicClassProvider;
+import net.lenni0451.classtransform.utils.tree.IClassProvider;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformCacheTest {
+
+    @Test
+    @DisplayName("Remove least recently used classes")
+    public void evictLeastRecentlyUsed() {
+        TransformCache cache = new TransformCache(10);
+        TransformCache.Key k1 = TransformCache.key("a", new byte[]{1});
+        TransformCache.Key k2 = TransformCache.key("b", new byte[]{1});
+        TransformCache.Key k3 = TransformCache.key("c", new byte[]{1});
+        cache.put(k1, 0, new byte[4]);
+        cache.put(k2, 0, new byte[4]);
+        assertNotNull(cache.get(k1));
+        cache.put(k3, 0, new byte[4]);
+        assertEquals(8, cache.getSize());
+        assertNotNull(cache.get(k1));
+        assertNull(cache.get(k2));
+        assertNotNull(cache.get(k3));
+
+        cache.put(TransformCache.key("d", new byte[0]), 0, new byte[11]);
+        assertEquals(8, cache.getSize());
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get(k1));
+    }
+
+    @Test
+    @DisplayName("Ignore classes of outdated generations")
+    public void invalidateGenerations() {
+        TransformCache cache = new TransformCache(10);
+        TransformCache.Key key = TransformCache.key("a", new byte[]{1});
+        long generation = cache.getGeneration();
+        cache.put(key, generation, new byte[4]);
+        assertNotNull(cache.get(key));
+
+        cache.invalidate();
+        assertNull(cache.get(key));
+        assertEquals(0, cache.getSize());
+        cache.put(key, generation, new byte[4]);
+        assertNull(cache.get(key));
+        cache.put(key, cache.getGeneration(), new byte[4]);
+        assertNotNull(cache.get(key));
+    }
+
+    @Test
+    @DisplayName("Transform identical classes once")
+    public void transformOnce() {
+        IClassProvider classProvider = new BasicClassProvider();
+        TransformerManager transformerManager = new TransformerManager(classProvider);
+        transformerManager.setTransformCacheSize(1024 * 1024);
+        AtomicInteger calls = new AtomicInteger();
+        transformerManager.addRawTransformer(SCalculator.class.getName(), (manager, node) -> {
+            calls.incrementAndGet();
+            node.interfaces.add("java/io/Serializable");
+            return node;
+        });
+
+        byte[] bytecode = classProvider.getClass(SCalculator.class.getName());
+        byte[] transformed = transformerManager.transform(SCalculator.class.getName(), bytecode);
+        assertArrayEquals(transformed, transformerManager.transform(SCalculator.class.getName(), bytecode.clone()));
+        assertEquals(1, calls.get());
+
+        transformerManager.setInlineHandlers(true);
+        transformerManager.transform(SCalculator.class.getName(), bytecode);
+        assertEquals(2, calls.get());
+    }
+
+}
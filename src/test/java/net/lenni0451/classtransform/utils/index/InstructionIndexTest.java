@@ -0,0 +1,88 @@
+package net.lenni0451.classtransform.utils.index;
+
+import net.lenni0451.classtransform.utils.MemberDeclaration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstructionIndexTest {
+
+    private MethodNode method;
+
+    @BeforeEach
+    public void setUp() {
+        this.method = new MethodNode(0, "test", "()V", null, null);
+        this.method.instructions.add(new FieldInsnNode(Opcodes.GETSTATIC, "Test", "field", "I"));
+        this.method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "Test", "method", "(I)V"));
+        this.method.instructions.add(new InsnNode(Opcodes.ACONST_NULL));
+        this.method.instructions.add(new InsnNode(Opcodes.ATHROW));
+        this.method.instructions.add(new MethodInsnNode(Opcodes.INVOKESTATIC, "Test", "method", "(I)V"));
+        this.method.instructions.add(new InsnNode(Opcodes.RETURN));
+    }
+
+    @Test
+    @DisplayName("Find instructions by opcode")
+    public void findByOpcode() {
+        InstructionIndex index = InstructionIndex.get(this.method);
+        assertEquals(6, index.size());
+        assertEquals(2, index.getOpcode(Opcodes.INVOKESTATIC).size());
+        assertEquals(1, index.getOpcode(Opcodes.ATHROW).size());
+        assertTrue(index.getOpcode(Opcodes.NOP).isEmpty());
+        assertEquals(3, index.getOpcodes(Opcodes.INVOKESTATIC, Opcodes.ATHROW).size());
+    }
+
+    @Test
+    @DisplayName("Find instructions by member")
+    public void findByMember() {
+        InstructionIndex index = InstructionIndex.get(this.method);
+        assertEquals(2, index.getMember(new MemberDeclaration("Test", "method", "(I)V")).size());
+        assertEquals(1, index.getMember(new MemberDeclaration("Test", "field", "I")).size());
+        assertTrue(index.getMember(new MemberDeclaration("Test", "field", "J")).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Positions and ranges")
+    public void positionsAndRanges() {
+        InstructionIndex index = InstructionIndex.get(this.method);
+        AbstractInsnNode athrow = index.getOpcode(Opcodes.ATHROW).get(0);
+        assertEquals(3, index.indexOf(athrow));
+        assertEquals(2, index.getInstructions(2, 3).size());
+        assertEquals(6, index.getInstructions(0, 100).size());
+        assertEquals(1, index.filter(index.getOpcode(Opcodes.INVOKESTATIC), 2, 5).size());
+    }
+
+    @Test
+    @DisplayName("Rebuild after invalidation")
+    public void rebuildAfterInvalidation() {
+        InstructionIndex index = InstructionIndex.get(this.method);
+        assertSame(index, InstructionIndex.get(this.method));
+
+        this.method.instructions.set(this.method.instructions.getFirst(), new InsnNode(Opcodes.ICONST_0));
+        InstructionIndex.invalidate(this.method);
+        InstructionIndex rebuilt = InstructionIndex.get(this.method);
+        assertNotSame(index, rebuilt);
+        assertEquals(1, rebuilt.getOpcode(Opcodes.ICONST_0).size());
+        assertTrue(rebuilt.getOpcode(Opcodes.GETSTATIC).isEmpty());
+
+        this.method.instructions.add(new InsnNode(Opcodes.NOP));
+        assertEquals(7, InstructionIndex.get(this.method).size());
+    }
+
+    @Test
+    @DisplayName("Rebuild after replace")
+    public void rebuildAfterReplace() {
+        InstructionIndex index = InstructionIndex.get(this.method);
+        AbstractInsnNode athrow = index.getOpcode(Opcodes.ATHROW).get(0);
+        this.method.instructions.set(athrow, new InsnNode(Opcodes.RETURN));
+
+        InstructionIndex rebuilt = InstructionIndex.get(this.method);
+        assertNotSame(index, rebuilt);
+        assertTrue(rebuilt.getOpcode(Opcodes.ATHROW).isEmpty());
+        assertEquals(3, rebuilt.indexOf(rebuilt.getOpcode(Opcodes.RETURN).get(0)));
+    }
+
+}
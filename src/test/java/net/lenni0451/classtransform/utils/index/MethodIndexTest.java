@@ -0,0 +1,72 @@
+package net.lenni0451.classtransform.utils.index;
+
+import net.lenni0451.classtransform.utils.ASMUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodIndexTest {
+
+    private ClassNode classNode;
+
+    @BeforeEach
+    public void setUp() {
+        this.classNode = new ClassNode();
+        this.classNode.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, "Test", null, "java/lang/Object", null);
+        this.classNode.visitMethod(Opcodes.ACC_PUBLIC, "getName", "()Ljava/lang/String;", null, null);
+        this.classNode.visitMethod(Opcodes.ACC_PUBLIC, "getName", "(I)Ljava/lang/String;", null, null);
+        this.classNode.visitMethod(Opcodes.ACC_PUBLIC, "setName", "(Ljava/lang/String;)V", null, null);
+    }
+
+    @Test
+    @DisplayName("Find methods by name and descriptor")
+    public void findMethods() {
+        MethodIndex index = MethodIndex.get(this.classNode);
+        assertNotNull(index.getMethod("getName", "(I)Ljava/lang/String;"));
+        assertNull(index.getMethod("getName", "(J)Ljava/lang/String;"));
+        assertEquals(2, index.getMethods("getName").size());
+        assertEquals(3, index.getMethods(ASMUtils.getCombiPattern("*Name")).size());
+    }
+
+    @Test
+    @DisplayName("Resolve method combis")
+    public void resolveCombis() {
+        assertEquals(1, ASMUtils.getMethodsFromCombi(this.classNode, "getName()Ljava/lang/String;").size());
+        assertEquals(2, ASMUtils.getMethodsFromCombi(this.classNode, "getName").size());
+        assertEquals(2, ASMUtils.getMethodsFromCombi(this.classNode, "get*").size());
+    }
+
+    @Test
+    @DisplayName("Rebuild after replacing methods")
+    public void rebuildAfterReplace() {
+        MethodIndex index = MethodIndex.get(this.classNode);
+        MethodNode removed = this.classNode.methods.remove(0);
+        this.classNode.methods.add(new MethodNode(Opcodes.ACC_PUBLIC, "isNamed", "()Z", null, null));
+        assertNotSame(index, MethodIndex.get(this.classNode));
+
+        index = MethodIndex.get(this.classNode);
+        assertNull(index.getMethod(removed.name, removed.desc));
+        assertNotNull(index.getMethod("isNamed", "()Z"));
+        assertSame(index, MethodIndex.get(this.classNode));
+    }
+
+    @Test
+    @DisplayName("Rebuild after invalidation")
+    public void rebuildAfterInvalidation() {
+        MethodIndex index = MethodIndex.get(this.classNode);
+        MethodNode renamed = this.classNode.methods.get(2);
+        renamed.name = "updateName";
+        assertSame(index, MethodIndex.get(this.classNode));
+
+        MethodIndex.invalidate(this.classNode);
+        index = MethodIndex.get(this.classNode);
+        assertNull(index.getMethod("setName", renamed.desc));
+        assertSame(renamed, index.getMethod("updateName", renamed.desc));
+    }
+
+}
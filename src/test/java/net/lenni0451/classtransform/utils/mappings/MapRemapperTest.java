@@ -0,0 +1,89 @@
+package net.lenni0451.classtransform.utils.mappings;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapRemapperTest {
+
+    @Test
+    @DisplayName("Map added members")
+    public void mapAddedMembers() {
+        MapRemapper remapper = new MapRemapper();
+        remapper.addClassMapping("a", "Test");
+        remapper.addMethodMapping("a", "b", "(I)V", "method");
+        remapper.addFieldMapping("a", "c", "I", "field");
+        remapper.addFieldMapping("a", "d", "anyField");
+        remapper.addMethodMapping("a", "b", "(I)V", "other", true);
+
+        assertEquals("Test", remapper.map("a"));
+        assertEquals("method", remapper.mapMethodName("a", "b", "(I)V"));
+        assertEquals("b", remapper.mapMethodName("a", "b", "(J)V"));
+        assertEquals("field", remapper.mapFieldName("a", "c", "I"));
+        assertEquals("c", remapper.mapFieldName("a", "c", "J"));
+        assertEquals("anyField", remapper.mapFieldName("a", "d", "J"));
+        assertEquals("method", remapper.getMappings().get("a.b(I)V"));
+        assertEquals("field", remapper.getMappings().get("a.c:I"));
+    }
+
+    @Test
+    @DisplayName("Map flat mappings")
+    public void mapFlatMappings() {
+        Map<String, String> mappings = new HashMap<>();
+        mappings.put("a.b(I)V", "method");
+        mappings.put("a.c:", "field");
+        mappings.put(".run()Ljava/lang/Runnable;", "lambda");
+        mappings.put("La;.value", "attribute");
+        MapRemapper remapper = new MapRemapper();
+        remapper.copy(new MapRemapper(mappings));
+
+        assertEquals("method", remapper.mapMethodName("a", "b", "(I)V"));
+        assertEquals("field", remapper.mapFieldName("a", "c", "I"));
+        assertEquals("lambda", remapper.mapInvokeDynamicMethodName("run", "()Ljava/lang/Runnable;"));
+        assertEquals("attribute", remapper.mapAnnotationAttributeName("La;", "value"));
+        assertEquals(4, remapper.getMappings().size());
+    }
+
+    @Test
+    @DisplayName("Reverse mappings")
+    public void reverseMappings() {
+        MapRemapper remapper = new MapRemapper();
+        remapper.addClassMapping("a", "Test");
+        remapper.addMethodMapping("a", "b", "(La;)V", "method");
+        MapRemapper reverse = remapper.reverse();
+        assertEquals("a", remapper.mapReverse("Test"));
+        assertEquals("b", reverse.mapMethodName("Test", "method", "(LTest;)V"));
+
+        remapper.addFieldMapping("a", "c", "La;", "field");
+        assertSame(reverse, remapper.reverse());
+        assertEquals("c", reverse.mapFieldName("Test", "field", "LTest;"));
+        assertNull(remapper.mapReverse("field"));
+
+        remapper.addClassMapping("a", "Other");
+        assertNotSame(reverse, remapper.reverse());
+        assertEquals("b", remapper.reverse().mapMethodName("Other", "method", "(LOther;)V"));
+        assertNull(remapper.mapReverse("Test"));
+    }
+
+    @Test
+    @DisplayName("Reverse class mappings")
+    public void reverseClassMappings() {
+        MapRemapper remapper = new MapRemapper();
+        remapper.addClassMapping("a", "Test");
+        remapper.addClassMapping("b", "Other");
+        remapper.addMethodMapping("b", "c", "()V", "Test");
+        remapper.addFieldMapping("b", "d", "I", "Other");
+        assertEquals("a", remapper.mapReverse("Test"));
+        assertEquals("b", remapper.mapReverse("Other"));
+
+        remapper.addClassMapping("c", "Test");
+        remapper.addClassMapping("c", "Third");
+        assertEquals("a", remapper.mapReverse("Test"));
+        assertEquals("c", remapper.mapReverse("Third"));
+    }
+
+}